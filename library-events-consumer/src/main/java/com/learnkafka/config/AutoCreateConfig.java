@@ -0,0 +1,39 @@
+package com.learnkafka.config;
+
+import com.learnkafka.consumer.LibraryEventsRetryRouter;
+import com.learnkafka.consumer.RetryTier;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class AutoCreateConfig {
+
+    @Bean
+    public NewTopic libraryEventsRetry1s() {
+        return retryTopic(RetryTier.RETRY_1S.getTopic());
+    }
+
+    @Bean
+    public NewTopic libraryEventsRetry10s() {
+        return retryTopic(RetryTier.RETRY_10S.getTopic());
+    }
+
+    @Bean
+    public NewTopic libraryEventsRetry60s() {
+        return retryTopic(RetryTier.RETRY_60S.getTopic());
+    }
+
+    @Bean
+    public NewTopic libraryEventsDlt() {
+        return retryTopic(LibraryEventsRetryRouter.DLT);
+    }
+
+    private static NewTopic retryTopic(String name) {
+        return TopicBuilder.name(name)
+                .partitions(3)
+                .replicas(3)
+                .build();
+    }
+}
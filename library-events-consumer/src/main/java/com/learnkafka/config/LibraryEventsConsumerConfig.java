@@ -1,29 +1,33 @@
 package com.learnkafka.config;
 
-import com.learnkafka.service.LibraryEventsService;
+import com.learnkafka.consumer.CompositeRebalanceListener;
+import com.learnkafka.consumer.DatabaseCircuitBreakerErrorHandler;
+import com.learnkafka.consumer.LibraryEventsBatchErrorHandler;
+import com.learnkafka.consumer.LibraryEventsParallelConsumer;
+import com.learnkafka.consumer.LibraryEventsRetryRouter;
+import com.learnkafka.consumer.RetryDelayErrorHandler;
+import com.learnkafka.service.ConsumerOffsetStore;
+import com.learnkafka.service.DatabaseCircuitBreaker;
+import com.learnkafka.service.LibraryEventCache;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.dao.RecoverableDataAccessException;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.listener.ContainerProperties;
-import org.springframework.retry.RetryPolicy;
-import org.springframework.retry.backoff.BackOffPolicy;
-import org.springframework.retry.backoff.FixedBackOffPolicy;
-import org.springframework.retry.policy.SimpleRetryPolicy;
-import org.springframework.retry.support.RetryTemplate;
+import org.springframework.kafka.listener.SeekToCurrentErrorHandler;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.backoff.FixedBackOff;
 
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.stream.IntStream;
 
 @Configuration
@@ -31,7 +35,22 @@ import java.util.stream.IntStream;
 @Slf4j
 public class LibraryEventsConsumerConfig {
     @Autowired
-    LibraryEventsService libraryEventsService;
+    LibraryEventsRetryRouter libraryEventsRetryRouter;
+
+    @Autowired
+    DatabaseCircuitBreaker databaseCircuitBreaker;
+
+    @Autowired
+    LibraryEventCache libraryEventCache;
+
+    @Autowired
+    ConsumerOffsetStore consumerOffsetStore;
+
+    @Autowired
+    TaskScheduler taskScheduler;
+
+    @Value("${library-events.consumer.offset-store.kafka-commit-interval-ms:30000}")
+    long kafkaCommitIntervalMs;
 
     @Bean
     ConcurrentKafkaListenerContainerFactory<?, ?> kafkaListenerContainerFactory(ConcurrentKafkaListenerContainerFactoryConfigurer configurer, ConsumerFactory<Object, Object> consumerFactory) {
@@ -39,65 +58,77 @@ public class LibraryEventsConsumerConfig {
         configurer.configure(factory, consumerFactory);
         factory.setConcurrency(3);
 
-        factory.setErrorHandler((ex, data) -> {
-            log.info("Exception in consumerConfig is {} and the record is {}", ex.getMessage(), data);
-        });
-
-        factory.setRetryTemplate(retryTemplate());
-
-        factory.setRecoveryCallback(
-                context -> {
-                    if (!(context.getLastThrowable().getCause() instanceof RecoverableDataAccessException)) {
-                        log.info("Inside the non recoverable logic");
+        // failed records move on to the retry tier topics instead of sleeping on the consumer thread,
+        // unless the database circuit is open, in which case they wait on the paused partitions
+        factory.setErrorHandler(retryRoutingErrorHandler());
+        configureOffsets(factory);
 
-                        throw new RuntimeException(context.getLastThrowable().getMessage());
-                    }
-
-                    log.info("Inside the recoverable logic");
+        return factory;
+    }
 
-                    ConsumerRecord<Integer, String> consumerRecord = (ConsumerRecord<Integer, String>) context.getAttribute("record");
-                    libraryEventsService.handleRecovery(consumerRecord);
+    @Bean
+    ConcurrentKafkaListenerContainerFactory<?, ?> batchKafkaListenerContainerFactory(ConcurrentKafkaListenerContainerFactoryConfigurer configurer, ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setConcurrency(3);
+        factory.setBatchListener(true);
+        configureOffsets(factory);
 
-                    return null;
-                }
-        );
+        // a failed batch is sought back to its first unprocessed record instead of being committed
+        factory.setBatchErrorHandler(new LibraryEventsBatchErrorHandler());
 
         return factory;
     }
 
-    private RetryTemplate retryTemplate() {
-        RetryTemplate retryTemplate = new RetryTemplate();
+    @Bean
+    @ConditionalOnProperty(name = "library-events.consumer.listener-mode", havingValue = "parallel")
+    ConcurrentKafkaListenerContainerFactory<?, ?> parallelKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            LibraryEventsParallelConsumer parallelConsumer,
+            @Value("${library-events.consumer.parallel.commit-interval-ms:1000}") long commitIntervalMs) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setConcurrency(3);
 
-        retryTemplate.setRetryPolicy(retryPolicy());
+        // offsets are committed by the listener once the workers have completed them
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setIdleEventInterval(commitIntervalMs);
+        factory.getContainerProperties().setConsumerRebalanceListener(new CompositeRebalanceListener(parallelConsumer, libraryEventCache));
 
-        retryTemplate.setBackOffPolicy(backoffPolicy());
+        factory.setErrorHandler((ex, data) -> {
+            log.error("Exception in parallel consumerConfig is {} and the record is {}", ex.getMessage(), data);
+        });
 
-        return retryTemplate;
+        return factory;
     }
 
-    private BackOffPolicy backoffPolicy() {
-        FixedBackOffPolicy fixedBackOffPolicy = new FixedBackOffPolicy();
+    @Bean
+    ConcurrentKafkaListenerContainerFactory<?, ?> retryKafkaListenerContainerFactory(ConcurrentKafkaListenerContainerFactoryConfigurer configurer, ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
 
-        fixedBackOffPolicy.setBackOffPeriod(1000);
+        // records that are not due yet wait on a paused container rather than on a sleeping listener thread
+        factory.setErrorHandler(new RetryDelayErrorHandler(retryRoutingErrorHandler(), taskScheduler, databaseCircuitBreaker));
+        configureOffsets(factory);
 
-        return fixedBackOffPolicy;
+        return factory;
     }
 
-    private RetryPolicy retryPolicy() {
-        SimpleRetryPolicy simpleRetryPolicy = new SimpleRetryPolicy(3, retryableExceptions(), true);
+    private void configureOffsets(ConcurrentKafkaListenerContainerFactory<Object, Object> factory) {
+        if (!consumerOffsetStore.isEnabled()) {
+            factory.getContainerProperties().setConsumerRebalanceListener(libraryEventCache);
 
-        simpleRetryPolicy.setMaxAttempts(3);
+            return;
+        }
 
-        return simpleRetryPolicy;
+        // positions are restored from the database on assignment, Kafka commits only cover partitions it has not seen yet
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.TIME);
+        factory.getContainerProperties().setAckTime(kafkaCommitIntervalMs);
+        factory.getContainerProperties().setConsumerRebalanceListener(new CompositeRebalanceListener(consumerOffsetStore, libraryEventCache));
     }
 
-    private Map<Class<? extends Throwable>, Boolean> retryableExceptions() {
-        HashMap<Class<? extends Throwable>, Boolean> retryableExceptions = new HashMap<>();
-
-        retryableExceptions.put(IllegalArgumentException.class, false);
-        retryableExceptions.put(RecoverableDataAccessException.class, true);
-
-        return retryableExceptions;
+    private DatabaseCircuitBreakerErrorHandler retryRoutingErrorHandler() {
+        return new DatabaseCircuitBreakerErrorHandler(databaseCircuitBreaker, new SeekToCurrentErrorHandler(libraryEventsRetryRouter, new FixedBackOff(0L, 0L)));
     }
-
 }
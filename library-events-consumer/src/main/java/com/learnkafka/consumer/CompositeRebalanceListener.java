@@ -0,0 +1,40 @@
+package com.learnkafka.consumer;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lets a container, which takes a single rebalance listener, notify several of them in order.
+ */
+public class CompositeRebalanceListener implements ConsumerAwareRebalanceListener {
+    private final List<ConsumerAwareRebalanceListener> delegates;
+
+    public CompositeRebalanceListener(ConsumerAwareRebalanceListener... delegates) {
+        this.delegates = Arrays.asList(delegates);
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        delegates.forEach(delegate -> delegate.onPartitionsRevokedBeforeCommit(consumer, partitions));
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        delegates.forEach(delegate -> delegate.onPartitionsRevokedAfterCommit(consumer, partitions));
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        delegates.forEach(delegate -> delegate.onPartitionsLost(consumer, partitions));
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        delegates.forEach(delegate -> delegate.onPartitionsAssigned(consumer, partitions));
+    }
+}
@@ -0,0 +1,286 @@
+package com.learnkafka.consumer;
+
+import com.learnkafka.service.DatabaseCircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Sizes the concurrency of the record listener container from its lag and processing time.
+ * The lag is the {@code records-lag} of the container's own consumers, as published by
+ * {@link ConsumerLagMetrics}: it is measured from the consumer position, so offsets whose commit is
+ * still pending (AckMode.TIME, or records completed out of order in parallel mode) do not count
+ * as lag. Every sample estimates how many consumer threads are needed to keep up with the incoming rate
+ * and drain the current lag within {@code target-drain-seconds}. The container is only restarted
+ * with the new concurrency once the estimate has pointed the same way for several consecutive
+ * samples, and it never scales while the database circuit is open. Changing the concurrency
+ * restarts the whole container, so no further change is made for {@code cooldown-ms} afterwards,
+ * while the new consumers rejoin the group and report their lag again.
+ */
+@Component
+@ConditionalOnProperty(name = "library-events.consumer.autoscaling.enabled", havingValue = "true")
+@Slf4j
+public class ConcurrencyAutoscaler {
+    private static final int DECISION_HISTORY = 20;
+
+    @Autowired
+    KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+    @Autowired
+    ConsumerLagMetrics consumerLagMetrics;
+
+    @Autowired
+    DatabaseCircuitBreaker databaseCircuitBreaker;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${library-events.consumer.autoscaling.listener-id:library-events-listener}")
+    String listenerId;
+
+    @Value("${library-events.consumer.autoscaling.topic:library-events}")
+    String topic;
+
+    @Value("${library-events.consumer.autoscaling.min-concurrency:1}")
+    int minConcurrency;
+
+    @Value("${library-events.consumer.autoscaling.max-concurrency:12}")
+    int maxConcurrency;
+
+    @Value("${library-events.consumer.autoscaling.target-drain-seconds:60}")
+    double targetDrainSeconds;
+
+    @Value("${library-events.consumer.autoscaling.scale-up-samples:2}")
+    int scaleUpSamples;
+
+    @Value("${library-events.consumer.autoscaling.scale-down-samples:6}")
+    int scaleDownSamples;
+
+    @Value("${library-events.consumer.autoscaling.cooldown-ms:60000}")
+    long cooldownMs;
+
+    private final Deque<Map<String, Object>> decisions = new ArrayDeque<>();
+
+    private Counter scaleUps;
+
+    private Counter scaleDowns;
+
+    private volatile Map<TopicPartition, Long> partitionLag = Collections.emptyMap();
+
+    private volatile long lag;
+
+    private volatile double processingMs;
+
+    private volatile int desired;
+
+    private long lastProcessedCount;
+
+    private double lastProcessedNanos;
+
+    private long lastSampleAt;
+
+    private int candidate;
+
+    private int candidateSamples;
+
+    private long lastScaledAt;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("library.events.consumer.autoscaler.concurrency", this, ConcurrencyAutoscaler::currentConcurrency)
+                .description("Consumer threads currently running for the record listener")
+                .register(meterRegistry);
+        Gauge.builder("library.events.consumer.autoscaler.desired", this, autoscaler -> autoscaler.desired)
+                .description("Consumer threads the last sample asked for")
+                .register(meterRegistry);
+        Gauge.builder("library.events.consumer.autoscaler.lag", this, autoscaler -> autoscaler.lag)
+                .description("Records behind the end of the topic at the last sample")
+                .register(meterRegistry);
+        Gauge.builder("library.events.consumer.autoscaler.processing.time", this, autoscaler -> autoscaler.processingMs)
+                .description("Average milliseconds per record since the previous sample")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        scaleUps = Counter.builder("library.events.consumer.autoscaler.decisions")
+                .description("Concurrency changes applied by the autoscaler")
+                .tag("direction", "up")
+                .register(meterRegistry);
+        scaleDowns = Counter.builder("library.events.consumer.autoscaler.decisions")
+                .description("Concurrency changes applied by the autoscaler")
+                .tag("direction", "down")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${library-events.consumer.autoscaling.sample-interval-ms:10000}")
+    public void sample() {
+        ConcurrentMessageListenerContainer<?, ?> container = container();
+        if (container == null || !container.isRunning()) {
+            return;
+        }
+
+        Collection<TopicPartition> assignedPartitions = container.getAssignedPartitions();
+        if (assignedPartitions == null || assignedPartitions.isEmpty()) {
+            return;
+        }
+
+        Map<TopicPartition, Long> lagByPartition = lagOf(assignedPartitions);
+
+        long now = System.nanoTime();
+        Timer timer = meterRegistry.find(LibraryEventsConsumer.PROCESSING_TIMER).timer();
+        long processedCount = timer == null ? 0 : timer.count();
+        double processedNanos = timer == null ? 0 : timer.totalTime(TimeUnit.NANOSECONDS);
+
+        double intervalSeconds = lastSampleAt == 0 ? 0 : (now - lastSampleAt) / 1e9;
+        long processed = processedCount - lastProcessedCount;
+        double processedRate = intervalSeconds > 0 ? processed / intervalSeconds : 0;
+        double avgProcessingMs = processed > 0 ? (processedNanos - lastProcessedNanos) / processed / 1e6 : 0;
+
+        lastSampleAt = now;
+        lastProcessedCount = processedCount;
+        lastProcessedNanos = processedNanos;
+
+        partitionLag = lagByPartition;
+        onSample(container.getConcurrency(), assignedPartitions.size(), lagByPartition.values().stream().mapToLong(Long::longValue).sum(), processedRate, avgProcessingMs);
+    }
+
+    synchronized void onSample(int current, int partitions, long lag, double processedRate, double avgProcessingMs) {
+        this.lag = lag;
+        this.processingMs = avgProcessingMs;
+        this.desired = decide(current, partitions, lag, processedRate, avgProcessingMs);
+
+        boolean coolingDown = lastScaledAt != 0 && System.nanoTime() - lastScaledAt < TimeUnit.MILLISECONDS.toNanos(cooldownMs);
+        if (desired == current || coolingDown || !databaseCircuitBreaker.isClosed()) {
+            candidate = 0;
+            candidateSamples = 0;
+
+            return;
+        }
+
+        // consecutive samples must agree on the direction, the size of the step follows the latest one
+        boolean up = desired > current;
+        candidateSamples = candidate != 0 && (candidate > current) == up ? candidateSamples + 1 : 1;
+        candidate = desired;
+
+        if (candidateSamples >= (up ? scaleUpSamples : scaleDownSamples)) {
+            scale(current, up ? desired : Math.max(desired, current - 1), lag, avgProcessingMs);
+        }
+    }
+
+    int decide(int current, int partitions, long lag, double processedRate, double avgProcessingMs) {
+        int upperBound = Math.max(minConcurrency, Math.min(maxConcurrency, partitions));
+
+        int needed;
+        if (avgProcessingMs <= 0) {
+            // nothing was processed in the interval, so only the lag tells us anything
+            needed = lag > 0 ? current + 1 : minConcurrency;
+        } else {
+            double perThreadRate = 1000 / avgProcessingMs;
+            double demandRate = processedRate + lag / targetDrainSeconds;
+            needed = (int) Math.ceil(demandRate / perThreadRate);
+        }
+
+        return Math.max(minConcurrency, Math.min(upperBound, needed));
+    }
+
+    private void scale(int current, int target, long lag, double avgProcessingMs) {
+        ConcurrentMessageListenerContainer<?, ?> container = container();
+        if (container == null) {
+            return;
+        }
+
+        log.info("event=autoscaler_scaling listener={} from={} to={} lag={} processing_ms={}", listenerId, current, target, lag, avgProcessingMs);
+
+        container.stop(() -> {
+            container.setConcurrency(target);
+            container.start();
+        });
+
+        (target > current ? scaleUps : scaleDowns).increment();
+        lastScaledAt = System.nanoTime();
+        candidate = 0;
+        candidateSamples = 0;
+
+        Map<String, Object> decision = new LinkedHashMap<>();
+        decision.put("at", Instant.now().toString());
+        decision.put("from", current);
+        decision.put("to", target);
+        decision.put("lag", lag);
+        decision.put("processingMs", avgProcessingMs);
+        synchronized (decisions) {
+            decisions.addFirst(decision);
+            if (decisions.size() > DECISION_HISTORY) {
+                decisions.removeLast();
+            }
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("listenerId", listenerId);
+        snapshot.put("concurrency", currentConcurrency());
+        snapshot.put("desired", desired);
+        snapshot.put("minConcurrency", minConcurrency);
+        snapshot.put("maxConcurrency", maxConcurrency);
+        snapshot.put("lag", lag);
+        snapshot.put("partitionLag", partitionLag.entrySet().stream()
+                .collect(Collectors.toMap(entry -> entry.getKey().toString(), Map.Entry::getValue, (first, second) -> first, TreeMap::new)));
+        snapshot.put("processingMs", processingMs);
+        synchronized (decisions) {
+            snapshot.put("decisions", new ArrayList<>(decisions));
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Lag of the container's partitions, skipping those whose consumer has not reported {@code records-lag} yet.
+     */
+    private Map<TopicPartition, Long> lagOf(Collection<TopicPartition> assignedPartitions) {
+        Map<TopicPartition, Double> lags = consumerLagMetrics.getLags();
+
+        Map<TopicPartition, Long> lagByPartition = new LinkedHashMap<>();
+        for (TopicPartition topicPartition : assignedPartitions) {
+            Double partitionLag = lags.get(topicPartition);
+            if (topicPartition.topic().equals(topic) && partitionLag != null && !partitionLag.isNaN()) {
+                lagByPartition.put(topicPartition, Math.max(0, partitionLag.longValue()));
+            }
+        }
+
+        return lagByPartition;
+    }
+
+    private int currentConcurrency() {
+        ConcurrentMessageListenerContainer<?, ?> container = container();
+
+        return container == null ? 0 : container.getConcurrency();
+    }
+
+    private ConcurrentMessageListenerContainer<?, ?> container() {
+        MessageListenerContainer container = kafkaListenerEndpointRegistry.getListenerContainer(listenerId);
+
+        return container instanceof ConcurrentMessageListenerContainer ? (ConcurrentMessageListenerContainer<?, ?>) container : null;
+    }
+}
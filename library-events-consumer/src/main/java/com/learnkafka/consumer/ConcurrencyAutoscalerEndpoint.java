@@ -0,0 +1,22 @@
+package com.learnkafka.consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@ConditionalOnProperty(name = "library-events.consumer.autoscaling.enabled", havingValue = "true")
+@Endpoint(id = "autoscaler")
+public class ConcurrencyAutoscalerEndpoint {
+    @Autowired
+    ConcurrencyAutoscaler concurrencyAutoscaler;
+
+    @ReadOperation
+    public Map<String, Object> autoscaler() {
+        return concurrencyAutoscaler.snapshot();
+    }
+}
@@ -0,0 +1,95 @@
+package com.learnkafka.consumer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes a {@code library.events.consumer.lag} gauge per assigned partition, read from the
+ * {@code records-lag} metric the Kafka consumers already keep, so no extra broker requests are made.
+ * Partitions this instance no longer consumes report NaN.
+ */
+@Component
+public class ConsumerLagMetrics {
+    public static final String LAG = "library.events.consumer.lag";
+
+    private static final String FETCH_MANAGER_GROUP = "consumer-fetch-manager-metrics";
+
+    private static final String RECORDS_LAG = "records-lag";
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+    private final Map<TopicPartition, Double> lags = new ConcurrentHashMap<>();
+
+    @Scheduled(fixedDelayString = "${library-events.consumer.metrics.lag-refresh-interval-ms:5000}")
+    public void refresh() {
+        Map<TopicPartition, Double> current = new HashMap<>();
+        for (MessageListenerContainer container : kafkaListenerEndpointRegistry.getListenerContainers()) {
+            container.metrics().values().forEach(metrics -> metrics.forEach((metricName, metric) -> {
+                TopicPartition topicPartition = lagPartition(metricName);
+                if (topicPartition != null) {
+                    current.put(topicPartition, lagOf(metric));
+                }
+            }));
+        }
+
+        update(current);
+    }
+
+    void update(Map<TopicPartition, Double> current) {
+        current.forEach((topicPartition, lag) -> {
+            if (lags.put(topicPartition, lag) == null) {
+                Gauge.builder(LAG, lags, partitionLags -> partitionLags.getOrDefault(topicPartition, Double.NaN))
+                        .description("Records between the consumer position and the end of the partition")
+                        .tag("topic", topicPartition.topic())
+                        .tag("partition", String.valueOf(topicPartition.partition()))
+                        .register(meterRegistry);
+            }
+        });
+
+        lags.keySet().forEach(topicPartition -> {
+            if (!current.containsKey(topicPartition)) {
+                lags.put(topicPartition, Double.NaN);
+            }
+        });
+    }
+
+    public Map<TopicPartition, Double> getLags() {
+        return lags;
+    }
+
+    private static TopicPartition lagPartition(MetricName metricName) {
+        if (!FETCH_MANAGER_GROUP.equals(metricName.group()) || !RECORDS_LAG.equals(metricName.name())) {
+            return null;
+        }
+
+        String topic = metricName.tags().get("topic");
+        String partition = metricName.tags().get("partition");
+        if (topic == null || partition == null) {
+            return null;
+        }
+
+        return new TopicPartition(topic, Integer.parseInt(partition));
+    }
+
+    private static double lagOf(Metric metric) {
+        Object value = metric.metricValue();
+
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+    }
+}
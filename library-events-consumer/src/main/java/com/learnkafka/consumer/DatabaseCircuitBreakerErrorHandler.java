@@ -0,0 +1,52 @@
+package com.learnkafka.consumer;
+
+import com.learnkafka.service.DatabaseCircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ContainerAwareErrorHandler;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * While the database circuit is open, seeks failed records back instead of handing them to the
+ * delegate, so they are redelivered from the same offsets once the paused containers resume.
+ */
+@Slf4j
+public class DatabaseCircuitBreakerErrorHandler implements ContainerAwareErrorHandler {
+    private final DatabaseCircuitBreaker databaseCircuitBreaker;
+
+    private final ContainerAwareErrorHandler delegate;
+
+    public DatabaseCircuitBreakerErrorHandler(DatabaseCircuitBreaker databaseCircuitBreaker, ContainerAwareErrorHandler delegate) {
+        this.databaseCircuitBreaker = databaseCircuitBreaker;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void handle(Exception thrownException, List<ConsumerRecord<?, ?>> records, Consumer<?, ?> consumer, MessageListenerContainer container) {
+        if (databaseCircuitBreaker.isClosed()) {
+            delegate.handle(thrownException, records, consumer, container);
+
+            return;
+        }
+
+        Map<TopicPartition, Long> offsets = new LinkedHashMap<>();
+        records.forEach(record -> offsets.putIfAbsent(new TopicPartition(record.topic(), record.partition()), record.offset()));
+        offsets.forEach(consumer::seek);
+
+        log.warn("event=records_held circuit={} offsets={}", databaseCircuitBreaker.getState(), offsets);
+    }
+
+    /**
+     * Evaluated right after {@link #handle}: a held record must not be committed.
+     */
+    @Override
+    public boolean isAckAfterHandle() {
+        return databaseCircuitBreaker.isClosed() && delegate.isAckAfterHandle();
+    }
+}
@@ -0,0 +1,93 @@
+package com.learnkafka.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded worker pool where every shard is a single thread, so tasks submitted with the same
+ * key run in submission order while different keys run in parallel. Submitting to a full shard
+ * blocks the caller, which pushes back on the poll loop instead of buffering without limit.
+ */
+@Slf4j
+public class KeyOrderedExecutor implements AutoCloseable {
+    private final ThreadPoolExecutor[] shards;
+
+    public KeyOrderedExecutor(String namePrefix, int workers, int queueCapacity) {
+        if (workers < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("workers and queueCapacity must be positive");
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        shards = new ThreadPoolExecutor[workers];
+        for (int i = 0; i < workers; i++) {
+            shards[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, namePrefix + "-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+
+                        return thread;
+                    },
+                    (runnable, executor) -> {
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException("Executor has been shut down");
+                        }
+
+                        try {
+                            executor.getQueue().put(runnable);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+
+                            throw new RejectedExecutionException("Interrupted while waiting for a free slot", e);
+                        }
+                    });
+        }
+    }
+
+    public void execute(Object key, Runnable task) {
+        shards[shardFor(key)].execute(task);
+    }
+
+    int shardFor(Object key) {
+        if (key == null) {
+            return 0;
+        }
+
+        int hash = key.hashCode();
+
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+
+    public int queued() {
+        int queued = 0;
+        for (ThreadPoolExecutor shard : shards) {
+            BlockingQueue<Runnable> queue = shard.getQueue();
+            queued += queue.size();
+        }
+
+        return queued;
+    }
+
+    @Override
+    public void close() {
+        for (ThreadPoolExecutor shard : shards) {
+            shard.shutdown();
+        }
+
+        try {
+            for (ThreadPoolExecutor shard : shards) {
+                if (!shard.awaitTermination(30, TimeUnit.SECONDS)) {
+                    log.warn("event=worker_shutdown_timeout queued={}", shard.getQueue().size());
+                    shard.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
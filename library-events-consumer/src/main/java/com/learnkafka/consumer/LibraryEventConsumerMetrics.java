@@ -0,0 +1,92 @@
+package com.learnkafka.consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.record.TimestampType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end latency, persistence and retry outcome meters shared by the service, the retry router
+ * and the retry consumer.
+ */
+@Component
+public class LibraryEventConsumerMetrics {
+    public static final String END_TO_END_LATENCY = "library.events.consumer.end.to.end.latency";
+
+    public static final String PERSISTENCE = "library.events.consumer.persistence";
+
+    public static final String RETRIES = "library.events.consumer.retries";
+
+    public static final String RECOVERIES = "library.events.consumer.recoveries";
+
+    public static final String DEAD_LETTERS = "library.events.consumer.dead.letters";
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Records the time from the record's producer timestamp until its changes were committed.
+     */
+    public void recordCommitted(ConsumerRecord<?, ?> consumerRecord) {
+        if (consumerRecord.timestampType() == TimestampType.NO_TIMESTAMP_TYPE || consumerRecord.timestamp() < 0) {
+            return;
+        }
+
+        long latencyMs = Math.max(0, System.currentTimeMillis() - consumerRecord.timestamp());
+        timers.computeIfAbsent(END_TO_END_LATENCY + ':' + consumerRecord.topic(), key -> Timer.builder(END_TO_END_LATENCY)
+                        .description("Time from the Library Event's record timestamp until its database commit")
+                        .tag("topic", consumerRecord.topic())
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofMinutes(5))
+                        .register(meterRegistry))
+                .record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs and times a database write, {@code mode} telling single records from bulk writes.
+     */
+    public void timePersistence(String mode, Runnable persistence) {
+        timers.computeIfAbsent(PERSISTENCE + ':' + mode, key -> Timer.builder(PERSISTENCE)
+                        .description("Time spent writing Library Events to the database, failures included")
+                        .tag("mode", mode)
+                        .register(meterRegistry))
+                .record(persistence);
+    }
+
+    public void recordRetry(RetryTier retryTier, Throwable throwable) {
+        counter(RETRIES, "Failed Library Events sent to a retry tier", "tier", retryTier.getTopic(), "exception", exceptionName(throwable)).increment();
+    }
+
+    public void recordRecovery(RetryTier retryTier) {
+        counter(RECOVERIES, "Library Events that succeeded on a retry tier", "tier", retryTier.getTopic()).increment();
+    }
+
+    public void recordDeadLetter(Throwable throwable) {
+        counter(DEAD_LETTERS, "Library Events given up on and sent to the dead letter topic", "exception", exceptionName(throwable)).increment();
+    }
+
+    private static String exceptionName(Throwable throwable) {
+        return NestedExceptionUtils.getMostSpecificCause(throwable).getClass().getSimpleName();
+    }
+
+    private Counter counter(String name, String description, String... tags) {
+        return counters.computeIfAbsent(name + ':' + String.join(":", tags), key -> Counter.builder(name)
+                .description(description)
+                .tags(tags)
+                .register(meterRegistry));
+    }
+}
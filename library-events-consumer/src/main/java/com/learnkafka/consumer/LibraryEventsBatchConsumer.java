@@ -0,0 +1,36 @@
+package com.learnkafka.consumer;
+
+import com.learnkafka.entity.LibraryEvent;
+import com.learnkafka.service.LibraryEventsService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@ConditionalOnProperty(name = "library-events.consumer.listener-mode", havingValue = "batch")
+@Slf4j
+public class LibraryEventsBatchConsumer {
+    @Autowired
+    private LibraryEventsService libraryEventsService;
+
+    @Value("${library-events.logging.slow-threshold-ms:500}")
+    long slowThresholdMs;
+
+    @KafkaListener(topics = {"library-events"}, containerFactory = "batchKafkaListenerContainerFactory")
+    public void onMessage(List<ConsumerRecord<Integer, LibraryEvent>> consumerRecords) {
+        long start = System.nanoTime();
+        libraryEventsService.processLibraryEvents(consumerRecords);
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (elapsedMs >= slowThresholdMs) {
+            log.warn("event=slow_batch size={} elapsed_ms={}", consumerRecords.size(), elapsedMs);
+        }
+    }
+}
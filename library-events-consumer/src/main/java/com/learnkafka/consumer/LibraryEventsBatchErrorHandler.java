@@ -0,0 +1,50 @@
+package com.learnkafka.consumer;
+
+import com.learnkafka.service.BatchProcessingException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ContainerAwareBatchErrorHandler;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Never commits a failed batch: every partition is sought back to its first unprocessed record, or
+ * to the start of the batch when the failure does not say how far processing got.
+ */
+@Slf4j
+public class LibraryEventsBatchErrorHandler implements ContainerAwareBatchErrorHandler {
+    @Override
+    public void handle(Exception thrownException, ConsumerRecords<?, ?> data, Consumer<?, ?> consumer, MessageListenerContainer container) {
+        Map<TopicPartition, Long> offsets = new LinkedHashMap<>();
+
+        BatchProcessingException batchProcessingException = batchProcessingException(thrownException);
+        if (batchProcessingException != null) {
+            offsets.putAll(batchProcessingException.getResumeOffsets());
+        } else if (data != null) {
+            data.forEach(record -> offsets.putIfAbsent(new TopicPartition(record.topic(), record.partition()), record.offset()));
+        }
+
+        offsets.forEach(consumer::seek);
+
+        log.warn("event=batch_held offsets={} error=\"{}\"", offsets, thrownException.getMessage());
+    }
+
+    @Override
+    public boolean isAckAfterHandle() {
+        return false;
+    }
+
+    private static BatchProcessingException batchProcessingException(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BatchProcessingException) {
+                return (BatchProcessingException) cause;
+            }
+        }
+
+        return null;
+    }
+}
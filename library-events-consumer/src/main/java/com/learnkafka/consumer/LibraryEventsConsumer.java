@@ -1,23 +1,59 @@
 package com.learnkafka.consumer;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.learnkafka.entity.LibraryEvent;
+import com.learnkafka.logging.SamplingTurboFilter;
 import com.learnkafka.service.LibraryEventsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+
 @Component
+@ConditionalOnProperty(name = "library-events.consumer.listener-mode", havingValue = "record", matchIfMissing = true)
 @Slf4j
 public class LibraryEventsConsumer {
+    public static final String PROCESSING_TIMER = "library.events.consumer.processing";
+
     @Autowired
     private LibraryEventsService libraryEventsService;
 
-    @KafkaListener(topics = {"library-events"})
-    public void onMessage(ConsumerRecord<Integer, String> consumerRecord) throws JsonProcessingException {
-        log.info("ConsumerRecord: {}", consumerRecord);
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${library-events.logging.slow-threshold-ms:500}")
+    long slowThresholdMs;
+
+    private Timer processingTimer;
+
+    @PostConstruct
+    public void init() {
+        processingTimer = Timer.builder(PROCESSING_TIMER)
+                .description("Time spent processing a Library Event record")
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(id = "library-events-listener", idIsGroup = false, topics = {"library-events"})
+    public void onMessage(ConsumerRecord<Integer, LibraryEvent> consumerRecord) {
+        log.info(SamplingTurboFilter.SAMPLED, "event=record_received partition={} offset={} key={}", consumerRecord.partition(), consumerRecord.offset(), consumerRecord.key());
+
+        long start = System.nanoTime();
+        try {
+            libraryEventsService.processLibraryEvent(consumerRecord);
+        } finally {
+            processingTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
 
-        libraryEventsService.processLibraryEvent(consumerRecord);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (elapsedMs >= slowThresholdMs) {
+            log.warn("event=slow_record partition={} offset={} key={} elapsed_ms={}", consumerRecord.partition(), consumerRecord.offset(), consumerRecord.key(), elapsedMs);
+        }
     }
 }
@@ -1,5 +1,6 @@
 package com.learnkafka.consumer;
 
+import com.learnkafka.entity.LibraryEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
@@ -10,10 +11,10 @@ import org.springframework.stereotype.Component;
 
 //@Component
 @Slf4j
-public class LibraryEventsConsumerManualOffset implements AcknowledgingMessageListener<Integer, String> {
+public class LibraryEventsConsumerManualOffset implements AcknowledgingMessageListener<Integer, LibraryEvent> {
     @Override
     @KafkaListener(topics = {"library-events"})
-    public void onMessage(ConsumerRecord<Integer, String> consumerRecord, Acknowledgment acknowledgment) {
+    public void onMessage(ConsumerRecord<Integer, LibraryEvent> consumerRecord, Acknowledgment acknowledgment) {
         log.info("ConsumerRecord: {}", consumerRecord);
         acknowledgment.acknowledge();
     }
@@ -0,0 +1,211 @@
+package com.learnkafka.consumer;
+
+import com.learnkafka.entity.LibraryEvent;
+import com.learnkafka.logging.SamplingTurboFilter;
+import com.learnkafka.service.LibraryEventsService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatches the records of each assigned partition to a worker pool sharded by record key, so a
+ * single partition can use many cores while records sharing a key keep their order. Offsets are
+ * committed from the consumer thread, and only up to the highest contiguous completed offset.
+ */
+@Component
+@ConditionalOnProperty(name = "library-events.consumer.listener-mode", havingValue = "parallel")
+@Slf4j
+public class LibraryEventsParallelConsumer implements ConsumerAwareRebalanceListener {
+    @Autowired
+    private LibraryEventsService libraryEventsService;
+
+    @Value("${library-events.consumer.parallel.workers:16}")
+    int workers;
+
+    @Value("${library-events.consumer.parallel.queue-capacity:500}")
+    int queueCapacity;
+
+    @Value("${library-events.consumer.parallel.commit-interval-ms:1000}")
+    long commitIntervalMs;
+
+    @Value("${library-events.consumer.parallel.drain-timeout-ms:30000}")
+    long drainTimeoutMs;
+
+    @Value("${library-events.logging.slow-threshold-ms:500}")
+    long slowThresholdMs;
+
+    private final Map<TopicPartition, PartitionOffsetTracker> trackers = new ConcurrentHashMap<>();
+
+    private KeyOrderedExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        executor = new KeyOrderedExecutor("library-events-worker", workers, queueCapacity);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.close();
+    }
+
+    @KafkaListener(topics = {"library-events"}, containerFactory = "parallelKafkaListenerContainerFactory")
+    public void onMessage(ConsumerRecord<Integer, LibraryEvent> consumerRecord, Consumer<?, ?> consumer) {
+        log.info(SamplingTurboFilter.SAMPLED, "event=record_received partition={} offset={} key={}", consumerRecord.partition(), consumerRecord.offset(), consumerRecord.key());
+
+        PartitionOffsetTracker tracker = trackers.computeIfAbsent(new TopicPartition(consumerRecord.topic(), consumerRecord.partition()), topicPartition -> new PartitionOffsetTracker());
+        long offset = consumerRecord.offset();
+        if (!tracker.accepts(offset)) {
+            return;
+        }
+
+        tracker.dispatched(offset);
+
+        executor.execute(shardKey(consumerRecord), () -> {
+            long start = System.nanoTime();
+            try {
+                libraryEventsService.processIndividually(consumerRecord);
+                tracker.completed(offset);
+            } catch (RuntimeException e) {
+                tracker.failed(offset);
+                log.warn("event=record_held partition={} offset={} key={} error=\"{}\"", consumerRecord.partition(), offset, consumerRecord.key(), e.getMessage());
+
+                return;
+            }
+
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (elapsedMs >= slowThresholdMs) {
+                log.warn("event=slow_record partition={} offset={} key={} elapsed_ms={}", consumerRecord.partition(), offset, consumerRecord.key(), elapsedMs);
+            }
+        });
+
+        commitCompleted(consumer, false);
+    }
+
+    /**
+     * Keeps committing while the partitions are quiet, otherwise the tail of a burst would only be
+     * committed once the next record arrives. Idle events are published on the consumer thread.
+     */
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        commitCompleted(event.getConsumer(), true);
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        long now = System.currentTimeMillis();
+        for (TopicPartition topicPartition : partitions) {
+            PartitionOffsetTracker tracker = trackers.remove(topicPartition);
+            if (tracker == null) {
+                continue;
+            }
+
+            try {
+                if (!tracker.awaitIdle(drainTimeoutMs)) {
+                    log.warn("event=partition_drain_timeout partition={} in_flight={}", topicPartition, tracker.inFlight());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            long offset = tracker.commit(now);
+            if (offset >= 0) {
+                offsets.put(topicPartition, new OffsetAndMetadata(offset));
+            }
+        }
+
+        if (!offsets.isEmpty()) {
+            consumer.commitSync(offsets);
+
+            log.info("event=revoked_partitions_committed offsets={}", offsets);
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        partitions.forEach(trackers::remove);
+    }
+
+    void commitCompleted(Consumer<?, ?> consumer, boolean force) {
+        rewindFailed(consumer);
+
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        long now = System.currentTimeMillis();
+        for (TopicPartition topicPartition : consumer.assignment()) {
+            PartitionOffsetTracker tracker = trackers.get(topicPartition);
+            if (tracker == null || !(force || tracker.isCommitDue(now, commitIntervalMs))) {
+                continue;
+            }
+
+            long offset = tracker.commit(now);
+            if (offset >= 0) {
+                offsets.put(topicPartition, new OffsetAndMetadata(offset));
+            }
+        }
+
+        if (offsets.isEmpty()) {
+            return;
+        }
+
+        consumer.commitAsync(offsets, (committed, exception) -> {
+            if (exception != null) {
+                log.warn("event=offset_commit_failed offsets={} error=\"{}\"", offsets, exception.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Seeks a partition back to a record that could neither be processed nor routed to a retry tier,
+     * once everything before it has completed. Records after it are redelivered, and those already
+     * processed are skipped as redeliveries.
+     */
+    private void rewindFailed(Consumer<?, ?> consumer) {
+        for (TopicPartition topicPartition : consumer.assignment()) {
+            PartitionOffsetTracker tracker = trackers.get(topicPartition);
+            long rewindOffset = tracker == null ? -1 : tracker.rewindOffset();
+            if (rewindOffset < 0) {
+                continue;
+            }
+
+            consumer.seek(topicPartition, rewindOffset);
+            trackers.put(topicPartition, PartitionOffsetTracker.resumingAt(rewindOffset));
+
+            log.warn("event=partition_rewound partition={} offset={}", topicPartition, rewindOffset);
+        }
+    }
+
+    /**
+     * NEW events carry no key, so they are spread by book id and fall back to the offset; they have
+     * nothing to be ordered against until they are persisted and given an id.
+     */
+    static Object shardKey(ConsumerRecord<Integer, LibraryEvent> consumerRecord) {
+        if (consumerRecord.key() != null) {
+            return consumerRecord.key();
+        }
+
+        LibraryEvent libraryEvent = consumerRecord.value();
+        if (libraryEvent != null && libraryEvent.getBook() != null && libraryEvent.getBook().getBookId() != null) {
+            return libraryEvent.getBook().getBookId();
+        }
+
+        return consumerRecord.offset();
+    }
+}
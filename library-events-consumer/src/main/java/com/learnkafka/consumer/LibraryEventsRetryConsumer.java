@@ -0,0 +1,50 @@
+package com.learnkafka.consumer;
+
+import com.learnkafka.entity.LibraryEvent;
+import com.learnkafka.logging.SamplingTurboFilter;
+import com.learnkafka.service.LibraryEventsService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Consumes the retry tier topics. Each tier gets its own container, and records within a tier
+ * become due in the order they were written, so holding the tier back until its head record is due
+ * only delays records that are not due yet either. The wait happens on a paused container, see
+ * {@link RetryDelayErrorHandler}.
+ */
+@Component
+@Slf4j
+public class LibraryEventsRetryConsumer {
+    @Autowired
+    private LibraryEventsService libraryEventsService;
+
+    @Autowired
+    LibraryEventConsumerMetrics libraryEventConsumerMetrics;
+
+    @KafkaListener(topics = {"library-events-retry-1s"}, containerFactory = "retryKafkaListenerContainerFactory")
+    @KafkaListener(topics = {"library-events-retry-10s"}, containerFactory = "retryKafkaListenerContainerFactory")
+    @KafkaListener(topics = {"library-events-retry-60s"}, containerFactory = "retryKafkaListenerContainerFactory")
+    public void onMessage(ConsumerRecord<Integer, LibraryEvent> consumerRecord) {
+        Optional<RetryTier> retryTier = RetryTier.fromTopic(consumerRecord.topic());
+        long maxDelayMs = retryTier
+                .map(RetryTier::getDelayMs)
+                .orElse(0L);
+        long now = System.currentTimeMillis();
+        long delayMs = Math.min(LibraryEventsRetryRouter.dueAt(consumerRecord) - now, maxDelayMs);
+        if (delayMs > 0) {
+            throw new RetryNotDueException(consumerRecord.topic(), now + delayMs);
+        }
+
+        log.info(SamplingTurboFilter.SAMPLED, "event=record_retried topic={} partition={} offset={} key={} attempt={}",
+                consumerRecord.topic(), consumerRecord.partition(), consumerRecord.offset(), consumerRecord.key(), LibraryEventsRetryRouter.attempt(consumerRecord));
+
+        if (libraryEventsService.processLibraryEvent(consumerRecord)) {
+            retryTier.ifPresent(libraryEventConsumerMetrics::recordRecovery);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.learnkafka.consumer;
+
+import com.learnkafka.entity.LibraryEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Routes a failed Library Event to the next {@link RetryTier} topic, or to the dead letter topic
+ * once the tiers are exhausted or the failure cannot be fixed by retrying. The attempt count and
+ * the time the record becomes due are carried in headers.
+ * <p>
+ * Every publish waits for the broker acknowledgement and throws when it fails, so the error handler
+ * seeks the record back instead of committing past a record that never reached its destination.
+ */
+@Component
+@Slf4j
+public class LibraryEventsRetryRouter implements ConsumerRecordRecoverer {
+    public static final String DLT = "library-events.DLT";
+
+    public static final String ATTEMPT_HEADER = "library-events-attempt";
+
+    public static final String DUE_AT_HEADER = "library-events-due-at";
+
+    @Autowired
+    KafkaTemplate<Integer, LibraryEvent> kafkaTemplate;
+
+    @Autowired
+    KafkaProperties kafkaProperties;
+
+    @Autowired
+    LibraryEventConsumerMetrics libraryEventConsumerMetrics;
+
+    @Value("${library-events.consumer.retry.send-timeout-ms:10000}")
+    long sendTimeoutMs;
+
+    private DefaultKafkaProducerFactory<Integer, byte[]> rawProducerFactory;
+
+    private DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+
+    @PostConstruct
+    public void init() {
+        // records that could not be deserialized are forwarded with their original bytes
+        rawProducerFactory = new DefaultKafkaProducerFactory<>(kafkaProperties.buildProducerProperties(), new IntegerSerializer(), new ByteArraySerializer());
+
+        Map<Class<?>, KafkaOperations<?, ?>> templates = new LinkedHashMap<>();
+        templates.put(LibraryEvent.class, kafkaTemplate);
+        templates.put(byte[].class, new KafkaTemplate<>(rawProducerFactory));
+
+        deadLetterPublishingRecoverer = new DeadLetterPublishingRecoverer(templates, this::destination) {
+            @Override
+            protected void publish(ProducerRecord<Object, Object> outRecord, KafkaOperations<Object, Object> kafkaOperations) {
+                LibraryEventsRetryRouter.this.publish(outRecord, kafkaOperations);
+            }
+        };
+        deadLetterPublishingRecoverer.setHeadersFunction(this::retryHeaders);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        rawProducerFactory.destroy();
+    }
+
+    @Override
+    public void accept(ConsumerRecord<?, ?> consumerRecord, Exception exception) {
+        deadLetterPublishingRecoverer.accept(consumerRecord, exception);
+    }
+
+    void publish(ProducerRecord<Object, Object> outRecord, KafkaOperations<Object, Object> kafkaOperations) {
+        try {
+            kafkaOperations.send(outRecord).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new KafkaException("Interrupted while publishing Library Event to " + outRecord.topic(), e);
+        } catch (ExecutionException e) {
+            throw new KafkaException("Failed to publish Library Event to " + outRecord.topic(), e.getCause());
+        } catch (TimeoutException e) {
+            throw new KafkaException("Timed out publishing Library Event to " + outRecord.topic() + " after " + sendTimeoutMs + " ms", e);
+        }
+    }
+
+    TopicPartition destination(ConsumerRecord<?, ?> consumerRecord, Exception exception) {
+        Optional<RetryTier> nextTier = nextTier(consumerRecord, exception);
+        String topic = nextTier
+                .map(RetryTier::getTopic)
+                .orElse(DLT);
+        if (nextTier.isPresent()) {
+            libraryEventConsumerMetrics.recordRetry(nextTier.get(), exception);
+        } else {
+            libraryEventConsumerMetrics.recordDeadLetter(exception);
+        }
+
+        log.warn("event=library_event_rerouted topic={} partition={} offset={} key={} attempt={} destination={} error=\"{}\"",
+                consumerRecord.topic(), consumerRecord.partition(), consumerRecord.offset(), consumerRecord.key(), attempt(consumerRecord), topic, rootCause(exception).getMessage());
+
+        return new TopicPartition(topic, -1);
+    }
+
+    Headers retryHeaders(ConsumerRecord<?, ?> consumerRecord, Exception exception) {
+        Headers headers = new RecordHeaders();
+        headers.add(ATTEMPT_HEADER, ByteBuffer.allocate(Integer.BYTES).putInt(attempt(consumerRecord) + 1).array());
+        nextTier(consumerRecord, exception)
+                .ifPresent(tier -> headers.add(DUE_AT_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(System.currentTimeMillis() + tier.getDelayMs()).array()));
+
+        return headers;
+    }
+
+    private static Optional<RetryTier> nextTier(ConsumerRecord<?, ?> consumerRecord, Exception exception) {
+        if (!isRetryable(exception)) {
+            return Optional.empty();
+        }
+
+        return RetryTier.forAttempt(attempt(consumerRecord));
+    }
+
+    /**
+     * @return the number of attempts already made on the record, 1 for a record read from the main topic
+     */
+    public static int attempt(ConsumerRecord<?, ?> consumerRecord) {
+        Header header = consumerRecord.headers().lastHeader(ATTEMPT_HEADER);
+
+        return header == null ? 1 : ByteBuffer.wrap(header.value()).getInt();
+    }
+
+    /**
+     * @return the epoch millis at which the record may be retried, 0 when it carries no due time
+     */
+    public static long dueAt(ConsumerRecord<?, ?> consumerRecord) {
+        Header header = consumerRecord.headers().lastHeader(DUE_AT_HEADER);
+
+        return header == null ? 0 : ByteBuffer.wrap(header.value()).getLong();
+    }
+
+    static boolean isRetryable(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RecoverableDataAccessException || cause instanceof TransientDataAccessException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static Throwable rootCause(Throwable exception) {
+        Throwable cause = exception;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+
+        return cause;
+    }
+}
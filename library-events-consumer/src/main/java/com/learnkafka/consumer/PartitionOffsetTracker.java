@@ -0,0 +1,127 @@
+package com.learnkafka.consumer;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Tracks the in-flight offsets of a single partition so that only the highest contiguous
+ * completed offset is ever committed. Dispatch and commit happen on the consumer thread,
+ * completion may happen on any worker thread. A failed offset stays in flight, which holds the
+ * commits back until the partition is rewound to it.
+ */
+public class PartitionOffsetTracker {
+    private final ConcurrentSkipListSet<Long> pending = new ConcurrentSkipListSet<>();
+
+    private final ConcurrentSkipListSet<Long> failed = new ConcurrentSkipListSet<>();
+
+    // after a rewind, records from the previous poll are dropped until the rewound offset comes back
+    private long resumeOffset;
+
+    private volatile long nextOffset = -1;
+
+    private long committedOffset = -1;
+
+    private long lastCommitAt;
+
+    public PartitionOffsetTracker() {
+        this(-1);
+    }
+
+    private PartitionOffsetTracker(long resumeOffset) {
+        this.resumeOffset = resumeOffset;
+    }
+
+    /**
+     * @return a tracker for a partition that was sought back to {@code offset}
+     */
+    public static PartitionOffsetTracker resumingAt(long offset) {
+        return new PartitionOffsetTracker(offset);
+    }
+
+    /**
+     * @return false for records still arriving from before a rewind, which must not be dispatched
+     */
+    public boolean accepts(long offset) {
+        if (resumeOffset < 0) {
+            return true;
+        }
+
+        if (offset != resumeOffset) {
+            return false;
+        }
+
+        resumeOffset = -1;
+
+        return true;
+    }
+
+    public void dispatched(long offset) {
+        pending.add(offset);
+        nextOffset = offset + 1;
+    }
+
+    public void completed(long offset) {
+        pending.remove(offset);
+    }
+
+    public void failed(long offset) {
+        failed.add(offset);
+    }
+
+    /**
+     * @return the offset to seek back to once every record before a failed one has completed, -1 otherwise
+     */
+    public long rewindOffset() {
+        Long lowestPending = pending.ceiling(Long.MIN_VALUE);
+
+        return lowestPending != null && failed.contains(lowestPending) ? lowestPending : -1;
+    }
+
+    /**
+     * @return the offset to commit, i.e. the lowest offset still in flight or the one after the last
+     * dispatched record when nothing is in flight; -1 when nothing was dispatched yet.
+     */
+    public long committableOffset() {
+        Long lowestPending = pending.ceiling(Long.MIN_VALUE);
+
+        return lowestPending != null ? lowestPending : nextOffset;
+    }
+
+    public boolean isCommitDue(long now, long commitIntervalMs) {
+        return now - lastCommitAt >= commitIntervalMs;
+    }
+
+    /**
+     * Marks the committable offset as committed.
+     *
+     * @return the offset to hand to the consumer, or -1 when it would not move the committed position forward.
+     */
+    public long commit(long now) {
+        long offset = committableOffset();
+        lastCommitAt = now;
+        if (offset <= committedOffset) {
+            return -1;
+        }
+
+        committedOffset = offset;
+
+        return offset;
+    }
+
+    public int inFlight() {
+        return pending.size();
+    }
+
+    public boolean awaitIdle(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        // failed offsets will not complete, they are redelivered to the next owner
+        while (!failed.containsAll(pending)) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+
+            Thread.sleep(10);
+        }
+
+        return true;
+    }
+}
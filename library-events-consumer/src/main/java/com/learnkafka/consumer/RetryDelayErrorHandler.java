@@ -0,0 +1,82 @@
+package com.learnkafka.consumer;
+
+import com.learnkafka.logging.SamplingTurboFilter;
+import com.learnkafka.service.DatabaseCircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ContainerAwareErrorHandler;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds a retry tier back until its head record is due: the records are sought back and the
+ * container is paused, then resumed by the scheduler at the due time. The consumer keeps polling
+ * while paused, so a long tier delay neither blocks the listener thread nor trips
+ * {@code max.poll.interval.ms}. Any other failure goes to the delegate.
+ */
+@Slf4j
+public class RetryDelayErrorHandler implements ContainerAwareErrorHandler {
+    private final ContainerAwareErrorHandler delegate;
+
+    private final TaskScheduler taskScheduler;
+
+    private final DatabaseCircuitBreaker databaseCircuitBreaker;
+
+    // isAckAfterHandle is asked right after handle on the same consumer thread
+    private final ThreadLocal<Boolean> deferred = ThreadLocal.withInitial(() -> false);
+
+    public RetryDelayErrorHandler(ContainerAwareErrorHandler delegate, TaskScheduler taskScheduler, DatabaseCircuitBreaker databaseCircuitBreaker) {
+        this.delegate = delegate;
+        this.taskScheduler = taskScheduler;
+        this.databaseCircuitBreaker = databaseCircuitBreaker;
+    }
+
+    @Override
+    public void handle(Exception thrownException, List<ConsumerRecord<?, ?>> records, Consumer<?, ?> consumer, MessageListenerContainer container) {
+        RetryNotDueException retryNotDueException = retryNotDue(thrownException);
+        deferred.set(retryNotDueException != null);
+        if (retryNotDueException == null) {
+            delegate.handle(thrownException, records, consumer, container);
+
+            return;
+        }
+
+        Map<TopicPartition, Long> offsets = new LinkedHashMap<>();
+        records.forEach(record -> offsets.putIfAbsent(new TopicPartition(record.topic(), record.partition()), record.offset()));
+        offsets.forEach(consumer::seek);
+
+        container.pause();
+        taskScheduler.schedule(() -> resume(container), Instant.ofEpochMilli(retryNotDueException.getDueAt()));
+
+        log.info(SamplingTurboFilter.SAMPLED, "event=retry_deferred offsets={} delay_ms={}", offsets, retryNotDueException.getDueAt() - System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean isAckAfterHandle() {
+        return !deferred.get() && delegate.isAckAfterHandle();
+    }
+
+    private void resume(MessageListenerContainer container) {
+        // an open circuit keeps every container paused and resumes them itself once it closes
+        if (databaseCircuitBreaker.isClosed()) {
+            container.resume();
+        }
+    }
+
+    private static RetryNotDueException retryNotDue(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetryNotDueException) {
+                return (RetryNotDueException) cause;
+            }
+        }
+
+        return null;
+    }
+}
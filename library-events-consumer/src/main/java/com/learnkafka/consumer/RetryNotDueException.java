@@ -0,0 +1,19 @@
+package com.learnkafka.consumer;
+
+/**
+ * Thrown by the retry tier listener when the head record is not due yet, so the
+ * {@link RetryDelayErrorHandler} can hold the tier back without blocking the consumer thread.
+ */
+public class RetryNotDueException extends RuntimeException {
+    private final long dueAt;
+
+    public RetryNotDueException(String topic, long dueAt) {
+        super(String.format("Library Event on %s is not due before %d", topic, dueAt));
+
+        this.dueAt = dueAt;
+    }
+
+    public long getDueAt() {
+        return dueAt;
+    }
+}
@@ -0,0 +1,48 @@
+package com.learnkafka.consumer;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Delay tiers a failed Library Event goes through before it is parked on the dead letter topic.
+ * Every tier has its own topic, so records waiting out a long delay never hold up shorter ones
+ * or the main {@code library-events} partitions.
+ */
+public enum RetryTier {
+    RETRY_1S("library-events-retry-1s", 1_000),
+    RETRY_10S("library-events-retry-10s", 10_000),
+    RETRY_60S("library-events-retry-60s", 60_000);
+
+    private final String topic;
+
+    private final long delayMs;
+
+    RetryTier(String topic, long delayMs) {
+        this.topic = topic;
+        this.delayMs = delayMs;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public long getDelayMs() {
+        return delayMs;
+    }
+
+    /**
+     * @param attempt number of attempts already made, starting at 1 for the main topic
+     * @return the tier for the next attempt, or empty once every tier has been used
+     */
+    public static Optional<RetryTier> forAttempt(int attempt) {
+        RetryTier[] tiers = values();
+
+        return attempt >= 1 && attempt <= tiers.length ? Optional.of(tiers[attempt - 1]) : Optional.empty();
+    }
+
+    public static Optional<RetryTier> fromTopic(String topic) {
+        return Arrays.stream(values())
+                .filter(tier -> tier.topic.equals(topic))
+                .findFirst();
+    }
+}
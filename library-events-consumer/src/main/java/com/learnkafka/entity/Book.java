@@ -1,5 +1,6 @@
 package com.learnkafka.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 
 import javax.persistence.*;
@@ -22,5 +23,6 @@ public class Book {
 
     @OneToOne(mappedBy = "book")
     @ToString.Exclude
+    @JsonIgnore
     private LibraryEvent libraryEvent;
 }
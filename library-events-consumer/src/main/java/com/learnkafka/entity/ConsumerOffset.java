@@ -0,0 +1,30 @@
+package com.learnkafka.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+/**
+ * Next offset to consume from a partition, written in the same transaction as the Library Events read from it.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+public class ConsumerOffset {
+    @Id
+    private String consumerOffsetId;
+
+    private String consumerGroup;
+
+    private String topic;
+
+    private Integer partitionNumber;
+
+    private Long nextOffset;
+
+    public static String idOf(String consumerGroup, String topic, int partitionNumber) {
+        return consumerGroup + "/" + topic + "/" + partitionNumber;
+    }
+}
@@ -13,7 +13,8 @@ import javax.validation.constraints.NotNull;
 @Entity
 public class LibraryEvent {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "library_event_seq")
+    @SequenceGenerator(name = "library_event_seq", sequenceName = "library_event_seq", allocationSize = 50)
     private Integer libraryEventId;
 
     @Enumerated(EnumType.STRING)
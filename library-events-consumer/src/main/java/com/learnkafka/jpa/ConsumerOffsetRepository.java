@@ -0,0 +1,10 @@
+package com.learnkafka.jpa;
+
+import com.learnkafka.entity.ConsumerOffset;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ConsumerOffsetRepository extends CrudRepository<ConsumerOffset, String>, ConsumerOffsetRepositoryCustom {
+
+}
@@ -0,0 +1,8 @@
+package com.learnkafka.jpa;
+
+public interface ConsumerOffsetRepositoryCustom {
+    /**
+     * Upserts the next offset of a partition without loading it, never moving a stored offset backwards.
+     */
+    void advance(String consumerGroup, String topic, int partitionNumber, long nextOffset);
+}
@@ -0,0 +1,23 @@
+package com.learnkafka.jpa;
+
+import com.learnkafka.entity.ConsumerOffset;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+public class ConsumerOffsetRepositoryImpl implements ConsumerOffsetRepositoryCustom {
+    // records handled one by one after a batch may complete out of order, so the stored offset only moves forward
+    private static final String MERGE_CONSUMER_OFFSET = "MERGE INTO consumer_offset (consumer_offset_id, consumer_group, topic, partition_number, next_offset) KEY (consumer_offset_id) " +
+            "SELECT ?, ?, ?, ?, GREATEST(?, COALESCE((SELECT next_offset FROM consumer_offset WHERE consumer_offset_id = ?), 0))";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void advance(String consumerGroup, String topic, int partitionNumber, long nextOffset) {
+        String consumerOffsetId = ConsumerOffset.idOf(consumerGroup, topic, partitionNumber);
+
+        jdbcTemplate.update(MERGE_CONSUMER_OFFSET, consumerOffsetId, consumerGroup, topic, partitionNumber, nextOffset, consumerOffsetId);
+    }
+}
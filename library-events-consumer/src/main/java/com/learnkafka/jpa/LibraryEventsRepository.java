@@ -5,6 +5,6 @@ import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface LibraryEventsRepository extends CrudRepository<LibraryEvent, Integer> {
+public interface LibraryEventsRepository extends CrudRepository<LibraryEvent, Integer>, LibraryEventsRepositoryCustom {
 
 }
@@ -0,0 +1,20 @@
+package com.learnkafka.jpa;
+
+import com.learnkafka.entity.LibraryEvent;
+
+public interface LibraryEventsRepositoryCustom {
+    /**
+     * Points an existing library event at the given book, upserting the book, without loading either entity.
+     *
+     * @return {@code false} when no library event has the given id, in which case nothing is written
+     */
+    boolean applyUpdate(LibraryEvent libraryEvent);
+
+    /**
+     * Like {@link #applyUpdate(LibraryEvent)}, but only when the library event still points at the update's book,
+     * which ties an update to the event it was written against when the id alone cannot.
+     *
+     * @return {@code false} when no library event with the given id points at that book, in which case nothing is written
+     */
+    boolean applyUpdateOfSameBook(LibraryEvent libraryEvent);
+}
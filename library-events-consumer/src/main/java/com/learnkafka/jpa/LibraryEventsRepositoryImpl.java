@@ -0,0 +1,49 @@
+package com.learnkafka.jpa;
+
+import com.learnkafka.entity.Book;
+import com.learnkafka.entity.LibraryEvent;
+import com.learnkafka.entity.LibraryEventType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+public class LibraryEventsRepositoryImpl implements LibraryEventsRepositoryCustom {
+    // the book is only upserted when the library event exists, so a miss writes nothing
+    private static final String MERGE_BOOK = "MERGE INTO book (book_id, book_name, book_author) KEY (book_id) " +
+            "SELECT ?, ?, ? FROM library_event WHERE library_event_id = ?";
+
+    private static final String MERGE_SAME_BOOK = "MERGE INTO book (book_id, book_name, book_author) KEY (book_id) " +
+            "SELECT ?, ?, ? FROM library_event WHERE library_event_id = ? AND book_id = ?";
+
+    private static final String UPDATE_LIBRARY_EVENT = "UPDATE library_event SET library_event_type = ?, book_id = ? " +
+            "WHERE library_event_id = ?";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public boolean applyUpdate(LibraryEvent libraryEvent) {
+        Book book = libraryEvent.getBook();
+
+        int mergedBooks = jdbcTemplate.update(MERGE_BOOK, book.getBookId(), book.getBookName(), book.getBookAuthor(), libraryEvent.getLibraryEventId());
+        if (mergedBooks == 0) {
+            return false;
+        }
+
+        return jdbcTemplate.update(UPDATE_LIBRARY_EVENT, LibraryEventType.UPDATE.name(), book.getBookId(), libraryEvent.getLibraryEventId()) > 0;
+    }
+
+    @Override
+    @Transactional
+    public boolean applyUpdateOfSameBook(LibraryEvent libraryEvent) {
+        Book book = libraryEvent.getBook();
+
+        int mergedBooks = jdbcTemplate.update(MERGE_SAME_BOOK, book.getBookId(), book.getBookName(), book.getBookAuthor(), libraryEvent.getLibraryEventId(), book.getBookId());
+        if (mergedBooks == 0) {
+            return false;
+        }
+
+        return jdbcTemplate.update(UPDATE_LIBRARY_EVENT, LibraryEventType.UPDATE.name(), book.getBookId(), libraryEvent.getLibraryEventId()) > 0;
+    }
+}
@@ -0,0 +1,203 @@
+package com.learnkafka.serialization;
+
+import com.learnkafka.entity.Book;
+import com.learnkafka.entity.LibraryEvent;
+import com.learnkafka.entity.LibraryEventType;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Version 1 layout: version byte, presence flags byte, then only the present fields in declaration order.
+ * Integers are fixed 4 bytes big-endian, the event type is a single byte code and strings are
+ * varint length-prefixed UTF-8.
+ */
+public final class LibraryEventBinaryCodec {
+    public static final byte VERSION_1 = 1;
+
+    private static final int LIBRARY_EVENT_ID = 1;
+    private static final int LIBRARY_EVENT_TYPE = 1 << 1;
+    private static final int BOOK = 1 << 2;
+    private static final int BOOK_ID = 1 << 3;
+    private static final int BOOK_NAME = 1 << 4;
+    private static final int BOOK_AUTHOR = 1 << 5;
+
+    private LibraryEventBinaryCodec() {
+    }
+
+    public static byte[] encode(LibraryEvent libraryEvent) {
+        Book book = libraryEvent.getBook();
+        byte[] bookName = book == null || book.getBookName() == null ? null : book.getBookName().getBytes(StandardCharsets.UTF_8);
+        byte[] bookAuthor = book == null || book.getBookAuthor() == null ? null : book.getBookAuthor().getBytes(StandardCharsets.UTF_8);
+
+        int flags = 0;
+        int size = 2;
+        if (libraryEvent.getLibraryEventId() != null) {
+            flags |= LIBRARY_EVENT_ID;
+            size += Integer.BYTES;
+        }
+        if (libraryEvent.getLibraryEventType() != null) {
+            flags |= LIBRARY_EVENT_TYPE;
+            size += 1;
+        }
+        if (book != null) {
+            flags |= BOOK;
+            if (book.getBookId() != null) {
+                flags |= BOOK_ID;
+                size += Integer.BYTES;
+            }
+            if (bookName != null) {
+                flags |= BOOK_NAME;
+                size += varIntSize(bookName.length) + bookName.length;
+            }
+            if (bookAuthor != null) {
+                flags |= BOOK_AUTHOR;
+                size += varIntSize(bookAuthor.length) + bookAuthor.length;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(VERSION_1);
+        buffer.put((byte) flags);
+        if ((flags & LIBRARY_EVENT_ID) != 0) {
+            buffer.putInt(libraryEvent.getLibraryEventId());
+        }
+        if ((flags & LIBRARY_EVENT_TYPE) != 0) {
+            buffer.put(typeCode(libraryEvent.getLibraryEventType()));
+        }
+        if ((flags & BOOK_ID) != 0) {
+            buffer.putInt(book.getBookId());
+        }
+        if ((flags & BOOK_NAME) != 0) {
+            putBytes(buffer, bookName);
+        }
+        if ((flags & BOOK_AUTHOR) != 0) {
+            putBytes(buffer, bookAuthor);
+        }
+
+        return buffer.array();
+    }
+
+    public static LibraryEvent decode(byte[] data) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            byte version = buffer.get();
+            if (version != VERSION_1) {
+                throw new IllegalArgumentException("Unsupported Library Event binary version : " + version);
+            }
+
+            int flags = buffer.get();
+            LibraryEvent libraryEvent = new LibraryEvent();
+            if ((flags & LIBRARY_EVENT_ID) != 0) {
+                libraryEvent.setLibraryEventId(buffer.getInt());
+            }
+            if ((flags & LIBRARY_EVENT_TYPE) != 0) {
+                libraryEvent.setLibraryEventType(libraryEventType(buffer.get()));
+            }
+            if ((flags & BOOK) != 0) {
+                Book book = new Book();
+                if ((flags & BOOK_ID) != 0) {
+                    book.setBookId(buffer.getInt());
+                }
+                if ((flags & BOOK_NAME) != 0) {
+                    book.setBookName(getString(buffer));
+                }
+                if ((flags & BOOK_AUTHOR) != 0) {
+                    book.setBookAuthor(getString(buffer));
+                }
+                libraryEvent.setBook(book);
+            }
+
+            return libraryEvent;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated Library Event binary payload", e);
+        }
+    }
+
+    /**
+     * Reads only the event id and type, which sit right after the flags byte.
+     */
+    public static LibraryEventRoutingFields decodeRoutingFields(byte[] data) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            byte version = buffer.get();
+            if (version != VERSION_1) {
+                throw new IllegalArgumentException("Unsupported Library Event binary version : " + version);
+            }
+
+            int flags = buffer.get();
+            Integer libraryEventId = (flags & LIBRARY_EVENT_ID) != 0 ? buffer.getInt() : null;
+            LibraryEventType libraryEventType = (flags & LIBRARY_EVENT_TYPE) != 0 ? libraryEventType(buffer.get()) : null;
+
+            return new LibraryEventRoutingFields(libraryEventId, libraryEventType);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated Library Event binary payload", e);
+        }
+    }
+
+    static byte typeCode(LibraryEventType libraryEventType) {
+        switch (libraryEventType) {
+            case NEW:
+                return 1;
+            case UPDATE:
+                return 2;
+            default:
+                throw new IllegalArgumentException("Unsupported Library Event Type : " + libraryEventType);
+        }
+    }
+
+    static LibraryEventType libraryEventType(byte typeCode) {
+        switch (typeCode) {
+            case 1:
+                return LibraryEventType.NEW;
+            case 2:
+                return LibraryEventType.UPDATE;
+            default:
+                throw new IllegalArgumentException("Unknown Library Event Type code : " + typeCode);
+        }
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        int value = bytes.length;
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 28) {
+                throw new IllegalArgumentException("Malformed Library Event binary string length");
+            }
+            b = buffer.get();
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Truncated Library Event binary payload");
+        }
+
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+
+        return value;
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            size++;
+            value >>>= 7;
+        }
+
+        return size;
+    }
+}
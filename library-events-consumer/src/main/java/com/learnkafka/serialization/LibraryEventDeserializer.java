@@ -0,0 +1,88 @@
+package com.learnkafka.serialization;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.learnkafka.entity.LibraryEvent;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class LibraryEventDeserializer implements Deserializer<LibraryEvent> {
+    public static final String DESERIALIZATION_TIMER = "library.events.consumer.deserialization";
+
+    private final ObjectReader objectReader;
+
+    private final JsonFactory jsonFactory;
+
+    private final Map<LibraryEventWireFormat, Timer> deserializationTimers = new EnumMap<>(LibraryEventWireFormat.class);
+
+    public LibraryEventDeserializer() {
+        this(new ObjectMapper());
+    }
+
+    public LibraryEventDeserializer(ObjectMapper objectMapper) {
+        this.objectReader = objectMapper.readerFor(LibraryEvent.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.jsonFactory = objectMapper.getFactory();
+
+        for (LibraryEventWireFormat wireFormat : LibraryEventWireFormat.values()) {
+            deserializationTimers.put(wireFormat, Timer.builder(DESERIALIZATION_TIMER)
+                    .description("Time spent decoding a Library Event, rejected records included")
+                    .tag("format", wireFormat.getValue())
+                    .register(Metrics.globalRegistry));
+        }
+    }
+
+    @Override
+    public LibraryEvent deserialize(String topic, byte[] data) {
+        return deserialize(topic, data, LibraryEventWireFormat.JSON);
+    }
+
+    @Override
+    public LibraryEvent deserialize(String topic, Headers headers, byte[] data) {
+        Header header = headers.lastHeader(LibraryEventWireFormat.HEADER);
+
+        LibraryEventWireFormat wireFormat;
+        try {
+            wireFormat = LibraryEventWireFormat.fromHeaderValue(header == null ? null : header.value());
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Error deserializing Library Event from topic " + topic, e);
+        }
+
+        return deserialize(topic, data, wireFormat);
+    }
+
+    private LibraryEvent deserialize(String topic, byte[] data, LibraryEventWireFormat wireFormat) {
+        if (data == null) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        try {
+            // invalid records are rejected on their routing fields, before any entity is built
+            if (wireFormat == LibraryEventWireFormat.BINARY_V1) {
+                LibraryEventBinaryCodec.decodeRoutingFields(data).validate();
+
+                return LibraryEventBinaryCodec.decode(data);
+            }
+
+            LibraryEventRoutingFields.readJson(jsonFactory, data).validate();
+
+            return objectReader.readValue(data);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new SerializationException("Error deserializing Library Event from topic " + topic, e);
+        } finally {
+            deserializationTimers.get(wireFormat).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
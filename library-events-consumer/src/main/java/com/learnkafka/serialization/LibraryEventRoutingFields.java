@@ -0,0 +1,99 @@
+package com.learnkafka.serialization;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.learnkafka.entity.LibraryEventType;
+
+import java.io.IOException;
+
+/**
+ * The fields a record is routed on, read without building a {@code LibraryEvent} so records that
+ * would be rejected anyway never pay for full binding.
+ */
+public final class LibraryEventRoutingFields {
+    private final Integer libraryEventId;
+
+    private final LibraryEventType libraryEventType;
+
+    LibraryEventRoutingFields(Integer libraryEventId, LibraryEventType libraryEventType) {
+        this.libraryEventId = libraryEventId;
+        this.libraryEventType = libraryEventType;
+    }
+
+    public Integer getLibraryEventId() {
+        return libraryEventId;
+    }
+
+    public LibraryEventType getLibraryEventType() {
+        return libraryEventType;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the record can never be persisted
+     */
+    public void validate() {
+        if (libraryEventType == null) {
+            throw new IllegalArgumentException("Library Event Type is missing.");
+        }
+
+        if (libraryEventType == LibraryEventType.UPDATE && libraryEventId == null) {
+            throw new IllegalArgumentException("Library Event Id is null.");
+        }
+    }
+
+    /**
+     * Streams the top level fields of a JSON payload, skipping nested objects such as the book, and
+     * stops as soon as both routing fields have been seen.
+     */
+    static LibraryEventRoutingFields readJson(JsonFactory jsonFactory, byte[] data) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Library Event payload is not a JSON object");
+            }
+
+            Integer libraryEventId = null;
+            LibraryEventType libraryEventType = null;
+            boolean idSeen = false;
+            boolean typeSeen = false;
+            while (!(idSeen && typeSeen) && parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("libraryEventId".equals(fieldName)) {
+                    libraryEventId = token == JsonToken.VALUE_NULL ? null : intValue(parser, token);
+                    idSeen = true;
+                } else if ("libraryEventType".equals(fieldName)) {
+                    libraryEventType = token == JsonToken.VALUE_NULL ? null : libraryEventType(parser, token);
+                    typeSeen = true;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            return new LibraryEventRoutingFields(libraryEventId, libraryEventType);
+        }
+    }
+
+    private static int intValue(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.VALUE_NUMBER_INT) {
+            throw new IllegalArgumentException("Library Event Id is not an integer : " + parser.getText());
+        }
+
+        return parser.getIntValue();
+    }
+
+    private static LibraryEventType libraryEventType(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.VALUE_STRING) {
+            throw new IllegalArgumentException("Library Event Type is not a string : " + parser.getText());
+        }
+
+        String value = parser.getText();
+        for (LibraryEventType libraryEventType : LibraryEventType.values()) {
+            if (libraryEventType.name().equals(value)) {
+                return libraryEventType;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown Library Event Type : " + value);
+    }
+}
@@ -0,0 +1,71 @@
+package com.learnkafka.serialization;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.learnkafka.entity.LibraryEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.Map;
+
+public class LibraryEventSerializer implements Serializer<LibraryEvent> {
+    private final ObjectWriter objectWriter;
+
+    private LibraryEventWireFormat wireFormat = LibraryEventWireFormat.JSON;
+
+    public LibraryEventSerializer() {
+        this(new ObjectMapper());
+    }
+
+    public LibraryEventSerializer(ObjectMapper objectMapper) {
+        this.objectWriter = objectMapper.writerFor(LibraryEvent.class);
+    }
+
+    public LibraryEventSerializer(ObjectMapper objectMapper, LibraryEventWireFormat wireFormat) {
+        this(objectMapper);
+        this.wireFormat = wireFormat;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object wireFormat = configs.get(LibraryEventWireFormat.CONFIG);
+        if (wireFormat != null) {
+            this.wireFormat = LibraryEventWireFormat.fromValue(wireFormat.toString());
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, LibraryEvent libraryEvent) {
+        return serialize(topic, libraryEvent, LibraryEventWireFormat.JSON);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, LibraryEvent libraryEvent) {
+        if (libraryEvent == null) {
+            return null;
+        }
+
+        headers.remove(LibraryEventWireFormat.HEADER);
+        headers.add(LibraryEventWireFormat.HEADER, wireFormat.getHeaderValue());
+
+        return serialize(topic, libraryEvent, wireFormat);
+    }
+
+    private byte[] serialize(String topic, LibraryEvent libraryEvent, LibraryEventWireFormat wireFormat) {
+        if (libraryEvent == null) {
+            return null;
+        }
+
+        if (wireFormat == LibraryEventWireFormat.BINARY_V1) {
+            return LibraryEventBinaryCodec.encode(libraryEvent);
+        }
+
+        try {
+            return objectWriter.writeValueAsBytes(libraryEvent);
+        } catch (JsonProcessingException e) {
+            throw new SerializationException("Error serializing Library Event for topic " + topic, e);
+        }
+    }
+}
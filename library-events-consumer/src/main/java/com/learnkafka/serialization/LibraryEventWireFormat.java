@@ -0,0 +1,51 @@
+package com.learnkafka.serialization;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public enum LibraryEventWireFormat {
+    JSON("json"),
+    BINARY_V1("binary-v1");
+
+    public static final String HEADER = "event-format";
+
+    public static final String CONFIG = "library-events.wire-format";
+
+    private final String value;
+
+    private final byte[] headerValue;
+
+    LibraryEventWireFormat(String value) {
+        this.value = value;
+        this.headerValue = value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public byte[] getHeaderValue() {
+        return headerValue;
+    }
+
+    public static LibraryEventWireFormat fromValue(String value) {
+        return Arrays.stream(values())
+                .filter(wireFormat -> wireFormat.value.equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown Library Event wire format : " + value));
+    }
+
+    public static LibraryEventWireFormat fromHeaderValue(byte[] headerValue) {
+        if (headerValue == null) {
+            return JSON;
+        }
+
+        for (LibraryEventWireFormat wireFormat : values()) {
+            if (Arrays.equals(wireFormat.headerValue, headerValue)) {
+                return wireFormat;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown Library Event wire format : " + new String(headerValue, StandardCharsets.UTF_8));
+    }
+}
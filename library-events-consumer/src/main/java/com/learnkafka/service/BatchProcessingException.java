@@ -0,0 +1,23 @@
+package com.learnkafka.service;
+
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Map;
+
+/**
+ * Thrown when a batch could not be processed to the end. Carries, per partition, the first offset
+ * that was not processed, so the batch error handler can seek back to it instead of committing the batch.
+ */
+public class BatchProcessingException extends RuntimeException {
+    private final Map<TopicPartition, Long> resumeOffsets;
+
+    public BatchProcessingException(Map<TopicPartition, Long> resumeOffsets, Throwable cause) {
+        super("Library Event batch stopped, resuming at " + resumeOffsets, cause);
+
+        this.resumeOffsets = resumeOffsets;
+    }
+
+    public Map<TopicPartition, Long> getResumeOffsets() {
+        return resumeOffsets;
+    }
+}
@@ -0,0 +1,97 @@
+package com.learnkafka.service;
+
+import com.learnkafka.entity.ConsumerOffset;
+import com.learnkafka.jpa.ConsumerOffsetRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Keeps each partition's next offset in the database, written by the caller inside the transaction that
+ * applies the records, and seeks newly assigned partitions to it. Kafka commits then only serve as a
+ * fallback for partitions the table does not know yet, so the containers commit them lazily.
+ * <p>
+ * Not available in {@code parallel} listener mode, where records of a partition complete out of order.
+ */
+@Component
+@Slf4j
+public class ConsumerOffsetStore implements ConsumerAwareRebalanceListener {
+    @Autowired
+    ConsumerOffsetRepository consumerOffsetRepository;
+
+    @Value("${library-events.consumer.offset-store.enabled:false}")
+    boolean enabled;
+
+    @Value("${library-events.consumer.listener-mode:record}")
+    String listenerMode;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    String groupId;
+
+    @PostConstruct
+    public void init() {
+        if (enabled && "parallel".equals(listenerMode)) {
+            log.warn("event=consumer_offset_store_disabled listener_mode={}, offsets stay in Kafka", listenerMode);
+
+            enabled = false;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records the offset after the given record; must run in the transaction that applied it.
+     */
+    public void store(ConsumerRecord<?, ?> consumerRecord) {
+        if (!enabled) {
+            return;
+        }
+
+        consumerOffsetRepository.advance(groupId, consumerRecord.topic(), consumerRecord.partition(), consumerRecord.offset() + 1);
+    }
+
+    /**
+     * Records the next offset of several partitions; must run in the transaction that applied their records.
+     */
+    public void storeAll(Map<TopicPartition, Long> nextOffsets) {
+        if (!enabled) {
+            return;
+        }
+
+        nextOffsets.forEach((topicPartition, nextOffset) ->
+                consumerOffsetRepository.advance(groupId, topicPartition.topic(), topicPartition.partition(), nextOffset));
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!enabled) {
+            return;
+        }
+
+        for (TopicPartition topicPartition : partitions) {
+            try {
+                consumerOffsetRepository.findById(ConsumerOffset.idOf(groupId, topicPartition.topic(), topicPartition.partition()))
+                        .ifPresent(consumerOffset -> {
+                            consumer.seek(topicPartition, consumerOffset.getNextOffset());
+
+                            log.info("event=consumer_offset_restored topic={} partition={} offset={}", topicPartition.topic(), topicPartition.partition(), consumerOffset.getNextOffset());
+                        });
+            } catch (DataAccessException e) {
+                // the Kafka committed offset is at most one commit interval behind, so this only costs redeliveries
+                log.warn("event=consumer_offset_restore_failed topic={} partition={} error=\"{}\", resuming from the Kafka committed offset", topicPartition.topic(), topicPartition.partition(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.learnkafka.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.function.Supplier;
+
+/**
+ * Guards persistence calls. After {@code failure-threshold} consecutive database failures the
+ * circuit opens and every listener container is paused, so records stay on their partitions
+ * instead of being retried against a struggling database. Once {@code open-duration-ms} has
+ * passed a half-open probe is run; if it succeeds the circuit closes and the containers resume
+ * from the offsets they were paused at.
+ */
+@Component
+@Slf4j
+public class DatabaseCircuitBreaker {
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @Autowired
+    KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Value("${library-events.consumer.circuit-breaker.failure-threshold:5}")
+    int failureThreshold;
+
+    @Value("${library-events.consumer.circuit-breaker.open-duration-ms:10000}")
+    long openDurationMs;
+
+    private volatile State state = State.CLOSED;
+
+    private volatile long openedAt;
+
+    private int consecutiveFailures;
+
+    public void run(Runnable action) {
+        execute(() -> {
+            action.run();
+
+            return null;
+        });
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        if (state != State.CLOSED) {
+            throw new DatabaseUnavailableException("Database circuit is " + state);
+        }
+
+        try {
+            T result = action.get();
+            onSuccess();
+
+            return result;
+        } catch (RuntimeException e) {
+            if (isDatabaseFailure(e)) {
+                onFailure(e);
+            }
+
+            throw e;
+        }
+    }
+
+    public boolean isClosed() {
+        return state == State.CLOSED;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    @Scheduled(fixedDelayString = "${library-events.consumer.circuit-breaker.probe-interval-ms:1000}")
+    public void probe() {
+        if (state != State.OPEN || System.currentTimeMillis() - openedAt < openDurationMs) {
+            return;
+        }
+
+        state = State.HALF_OPEN;
+        try {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+        } catch (DataAccessException e) {
+            log.warn("event=circuit_probe_failed error=\"{}\"", e.getMessage());
+
+            openedAt = System.currentTimeMillis();
+            state = State.OPEN;
+
+            return;
+        }
+
+        close();
+    }
+
+    private synchronized void onSuccess() {
+        consecutiveFailures = 0;
+    }
+
+    private synchronized void onFailure(RuntimeException e) {
+        if (++consecutiveFailures < failureThreshold || state != State.CLOSED) {
+            return;
+        }
+
+        log.error("event=circuit_opened consecutive_failures={} error=\"{}\"", consecutiveFailures, e.getMessage());
+
+        openedAt = System.currentTimeMillis();
+        state = State.OPEN;
+        kafkaListenerEndpointRegistry.getListenerContainers()
+                .forEach(MessageListenerContainer::pause);
+    }
+
+    private synchronized void close() {
+        log.info("event=circuit_closed open_ms={}", System.currentTimeMillis() - openedAt);
+
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+        kafkaListenerEndpointRegistry.getListenerContainers()
+                .forEach(MessageListenerContainer::resume);
+    }
+
+    static boolean isDatabaseFailure(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DatabaseUnavailableException) {
+                return false;
+            }
+
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
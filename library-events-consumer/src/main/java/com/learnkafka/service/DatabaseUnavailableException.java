@@ -0,0 +1,12 @@
+package com.learnkafka.service;
+
+import org.springframework.dao.TransientDataAccessResourceException;
+
+/**
+ * Thrown instead of calling the database while the {@link DatabaseCircuitBreaker} is not closed.
+ */
+public class DatabaseUnavailableException extends TransientDataAccessResourceException {
+    public DatabaseUnavailableException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,191 @@
+package com.learnkafka.service;
+
+import com.learnkafka.entity.LibraryEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ids of recently written Library Events, kept per partition so a batch of UPDATEs can skip the
+ * {@code findAllById} lookup for ids this instance already knows to exist. The cache only stands in
+ * for that read: every update is still written. Each partition holds at most
+ * {@code max-entries-per-partition} entries in LRU order, entries expire after {@code ttl-ms},
+ * and a partition's entries are dropped as soon as it is revoked from this instance, since
+ * another instance may write to those ids from then on.
+ * <p>
+ * Only the batch listener reads the cache, so it stays off in the other listener modes, where it could
+ * never produce a hit.
+ */
+@Component
+@Slf4j
+public class LibraryEventCache implements ConsumerAwareRebalanceListener {
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${library-events.consumer.cache.enabled:true}")
+    boolean enabled;
+
+    @Value("${library-events.consumer.listener-mode:record}")
+    String listenerMode;
+
+    @Value("${library-events.consumer.cache.max-entries-per-partition:10000}")
+    int maxEntriesPerPartition;
+
+    @Value("${library-events.consumer.cache.ttl-ms:300000}")
+    long ttlMs;
+
+    // library event id -> time it was cached
+    private final Map<TopicPartition, Map<Integer, Long>> partitions = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        if (enabled && !"batch".equals(listenerMode)) {
+            log.info("event=library_event_cache_disabled listener_mode={}, only the batch listener reads it", listenerMode);
+
+            enabled = false;
+        }
+
+        if (!enabled) {
+            return;
+        }
+
+        FunctionCounter.builder("library.events.consumer.cache.requests", hits, LongAdder::doubleValue)
+                .description("Saved updates whose lookup was served by the cache or by the database")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("library.events.consumer.cache.requests", misses, LongAdder::doubleValue)
+                .description("Saved updates whose lookup was served by the cache or by the database")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("library.events.consumer.cache.hit.ratio", this, LibraryEventCache::hitRatio)
+                .description("Share of saved updates whose lookup was served from memory")
+                .register(meterRegistry);
+        Gauge.builder("library.events.consumer.cache.size", this, LibraryEventCache::size)
+                .description("Library Events currently cached across all assigned partitions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return true when the id was written through this partition recently enough to be known to exist
+     */
+    public boolean contains(TopicPartition topicPartition, Integer libraryEventId) {
+        return enabled && libraryEventId != null && get(topicPartition, libraryEventId) != null;
+    }
+
+    /**
+     * Counts the lookups of updates that were saved; lookups of updates that rolled back are not counted.
+     */
+    public void recordLookups(int hitCount, int missCount) {
+        hits.add(hitCount);
+        misses.add(missCount);
+    }
+
+    public void put(TopicPartition topicPartition, LibraryEvent libraryEvent) {
+        if (!enabled || libraryEvent.getLibraryEventId() == null) {
+            return;
+        }
+
+        // the same id may have been written through another partition of this instance
+        partitions.forEach((cachedPartition, entries) -> {
+            if (!cachedPartition.equals(topicPartition)) {
+                synchronized (entries) {
+                    entries.remove(libraryEvent.getLibraryEventId());
+                }
+            }
+        });
+
+        Map<Integer, Long> entries = partitions.computeIfAbsent(topicPartition, key -> newPartitionCache());
+        synchronized (entries) {
+            entries.put(libraryEvent.getLibraryEventId(), System.currentTimeMillis());
+        }
+    }
+
+    public void invalidate(Integer libraryEventId) {
+        if (!enabled) {
+            return;
+        }
+
+        partitions.values().forEach(entries -> {
+            synchronized (entries) {
+                entries.remove(libraryEventId);
+            }
+        });
+    }
+
+    public void invalidate(Collection<TopicPartition> topicPartitions) {
+        topicPartitions.forEach(topicPartition -> {
+            Map<Integer, Long> entries = partitions.remove(topicPartition);
+            if (entries != null) {
+                log.info("event=cache_partition_invalidated partition={} entries={}", topicPartition, entries.size());
+            }
+        });
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        invalidate(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        invalidate(partitions);
+    }
+
+    public double hitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public int size() {
+        return partitions.values().stream()
+                .mapToInt(Map::size)
+                .sum();
+    }
+
+    private Long get(TopicPartition topicPartition, Integer libraryEventId) {
+        Map<Integer, Long> entries = partitions.get(topicPartition);
+        if (entries == null) {
+            return null;
+        }
+
+        synchronized (entries) {
+            Long cachedAt = entries.get(libraryEventId);
+            if (cachedAt != null && System.currentTimeMillis() - cachedAt >= ttlMs) {
+                entries.remove(libraryEventId);
+
+                return null;
+            }
+
+            return cachedAt;
+        }
+    }
+
+    private Map<Integer, Long> newPartitionCache() {
+        return new LinkedHashMap<Integer, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Long> eldest) {
+                return size() > maxEntriesPerPartition;
+            }
+        };
+    }
+}
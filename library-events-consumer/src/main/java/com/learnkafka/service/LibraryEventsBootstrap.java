@@ -0,0 +1,397 @@
+package com.learnkafka.service;
+
+import com.learnkafka.entity.LibraryEvent;
+import com.learnkafka.entity.LibraryEventType;
+import com.learnkafka.jpa.LibraryEventsRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Rebuilds the in-memory store from {@code library-events} before the listener containers start, reading every
+ * partition from its beginning to the end offsets seen at startup on its own thread. Once every partition is read,
+ * NEW events are inserted in one global order (record timestamp, then partition, then offset) in chunks of
+ * {@code chunk-size} per transaction, and UPDATEs are applied after them in the same order.
+ * <p>
+ * NEW records carry no id: it comes from the database sequence when the event is first stored, so the rebuilt ids
+ * follow the deterministic insert order rather than the order the listeners happened to store the events in, and
+ * need not match the ids UPDATEs were written against. An UPDATE is therefore only applied when the event with its
+ * id points at the UPDATE's book, so it never lands on an unrelated event. Any other UPDATE is reported as
+ * unresolved, logged as an error and published as {@code library.events.consumer.bootstrap.unresolved.updates}.
+ * <p>
+ * The end offsets are committed for the listener group, stored when the offset store is enabled, and marked in
+ * the {@link RedeliveryDetector}, so the listeners carry on from where the rebuild stopped. Records that cannot be
+ * applied are skipped, not retried, as they already went through the retry topics when first consumed.
+ */
+@Component
+@Slf4j
+public class LibraryEventsBootstrap implements SmartLifecycle {
+    public static final String TOPIC = "library-events";
+
+    private static final Comparator<ConsumerRecord<Object, Object>> RECORD_ORDER = Comparator.comparingLong((ConsumerRecord<Object, Object> consumerRecord) -> consumerRecord.timestamp())
+            .thenComparingInt(ConsumerRecord::partition)
+            .thenComparingLong(ConsumerRecord::offset);
+
+    @Autowired
+    ConsumerFactory<Object, Object> consumerFactory;
+
+    @Autowired
+    LibraryEventsRepository libraryEventsRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    RedeliveryDetector redeliveryDetector;
+
+    @Autowired
+    ConsumerOffsetStore consumerOffsetStore;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${library-events.consumer.bootstrap.enabled:false}")
+    boolean enabled;
+
+    @Value("${library-events.consumer.bootstrap.threads:0}")
+    int threads;
+
+    @Value("${library-events.consumer.bootstrap.chunk-size:1000}")
+    int chunkSize;
+
+    @Value("${library-events.consumer.bootstrap.poll-timeout-ms:500}")
+    long pollTimeoutMs;
+
+    @Value("${library-events.consumer.bootstrap.timeout-ms:600000}")
+    long timeoutMs;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    String groupId;
+
+    private volatile boolean running;
+
+    private volatile Report lastReport;
+
+    @PostConstruct
+    public void init() {
+        TimeGauge.builder("library.events.consumer.bootstrap.duration", this, TimeUnit.MILLISECONDS, bootstrap -> bootstrap.lastReport == null ? 0 : bootstrap.lastReport.getElapsedMs())
+                .description("Time the last startup rebuild took")
+                .register(meterRegistry);
+        Gauge.builder("library.events.consumer.bootstrap.records", this, bootstrap -> bootstrap.lastReport == null ? 0 : bootstrap.lastReport.getRecords())
+                .description("Records read by the last startup rebuild")
+                .register(meterRegistry);
+        Gauge.builder("library.events.consumer.bootstrap.unresolved.updates", this, bootstrap -> bootstrap.lastReport == null ? 0 : bootstrap.lastReport.getUnresolved())
+                .description("UPDATEs the last startup rebuild could not tie to a rebuilt event")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        if (enabled) {
+            rebuild();
+        }
+
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // just before the listener endpoint registry, which starts the containers
+        return AbstractMessageListenerContainer.DEFAULT_PHASE - 1;
+    }
+
+    public Report getLastReport() {
+        return lastReport;
+    }
+
+    public Report rebuild() {
+        long start = System.nanoTime();
+
+        List<TopicPartition> partitions;
+        Map<TopicPartition, Long> beginningOffsets;
+        Map<TopicPartition, Long> endOffsets;
+        try (Consumer<Object, Object> consumer = createConsumer("offsets")) {
+            partitions = consumer.partitionsFor(TOPIC).stream()
+                    .map(partitionInfo -> new TopicPartition(partitionInfo.topic(), partitionInfo.partition()))
+                    .collect(Collectors.toList());
+            beginningOffsets = consumer.beginningOffsets(partitions);
+            endOffsets = consumer.endOffsets(partitions);
+        }
+
+        log.info("event=bootstrap_started topic={} partitions={} end_offsets={}", TOPIC, partitions.size(), endOffsets);
+
+        Counts counts = new Counts();
+        Queue<ConsumerRecord<Object, Object>> newRecords = new ConcurrentLinkedQueue<>();
+        Queue<ConsumerRecord<Object, Object>> updateRecords = new ConcurrentLinkedQueue<>();
+        loadPartitions(partitions, beginningOffsets, endOffsets, newRecords, updateRecords, counts);
+        insertAll(newRecords, counts);
+        applyUpdates(updateRecords, counts);
+        handOver(partitions, beginningOffsets, endOffsets);
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Report report = Report.builder()
+                .partitions(partitions.size())
+                .records(counts.records.sum())
+                .inserted(counts.inserted.sum())
+                .updated(counts.updated.sum())
+                .skipped(counts.skipped.sum())
+                .unresolved(counts.unresolved.sum())
+                .elapsedMs(elapsedMs)
+                .recordsPerSecond(elapsedMs == 0 ? counts.records.sum() : counts.records.sum() * 1000 / elapsedMs)
+                .build();
+        lastReport = report;
+
+        log.info("event=bootstrap_completed partitions={} records={} inserted={} updated={} skipped={} unresolved={} elapsed_ms={} records_per_second={}",
+                report.getPartitions(), report.getRecords(), report.getInserted(), report.getUpdated(), report.getSkipped(), report.getUnresolved(), report.getElapsedMs(), report.getRecordsPerSecond());
+
+        return report;
+    }
+
+    private void loadPartitions(List<TopicPartition> partitions, Map<TopicPartition, Long> beginningOffsets, Map<TopicPartition, Long> endOffsets,
+                                Queue<ConsumerRecord<Object, Object>> newRecords, Queue<ConsumerRecord<Object, Object>> updateRecords, Counts counts) {
+        int poolSize = threads > 0 ? Math.min(threads, partitions.size()) : partitions.size();
+        if (poolSize == 0) {
+            return;
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "library-events-bootstrap-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(partitions.size());
+            for (TopicPartition topicPartition : partitions) {
+                futures.add(executorService.submit(() -> loadPartition(topicPartition, beginningOffsets.get(topicPartition), endOffsets.get(topicPartition), newRecords, updateRecords, counts)));
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            for (Future<?> future : futures) {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("Interrupted while rebuilding the Library Events store.", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Could not rebuild the Library Events store from " + TOPIC + ".", e);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void loadPartition(TopicPartition topicPartition, long beginningOffset, long endOffset,
+                               Queue<ConsumerRecord<Object, Object>> newRecords, Queue<ConsumerRecord<Object, Object>> updateRecords, Counts counts) {
+        if (endOffset <= beginningOffset) {
+            return;
+        }
+
+        try (Consumer<Object, Object> consumer = createConsumer(String.valueOf(topicPartition.partition()))) {
+            consumer.assign(Collections.singletonList(topicPartition));
+            consumer.seek(topicPartition, beginningOffset);
+
+            while (consumer.position(topicPartition) < endOffset) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+
+                for (ConsumerRecord<Object, Object> consumerRecord : consumer.poll(Duration.ofMillis(pollTimeoutMs)).records(topicPartition)) {
+                    if (consumerRecord.offset() >= endOffset) {
+                        break;
+                    }
+
+                    counts.records.increment();
+                    LibraryEvent libraryEvent = consumerRecord.value() instanceof LibraryEvent ? (LibraryEvent) consumerRecord.value() : null;
+                    if (libraryEvent == null || libraryEvent.getBook() == null) {
+                        counts.skipped.increment();
+                    } else if (libraryEvent.getLibraryEventType() == LibraryEventType.NEW) {
+                        newRecords.add(consumerRecord);
+                    } else if (libraryEvent.getLibraryEventType() == LibraryEventType.UPDATE && libraryEvent.getLibraryEventId() != null) {
+                        updateRecords.add(consumerRecord);
+                    } else {
+                        counts.skipped.increment();
+                    }
+                }
+            }
+        }
+
+        log.info("event=bootstrap_partition_loaded topic={} partition={} end_offset={}", topicPartition.topic(), topicPartition.partition(), endOffset);
+    }
+
+    private void insertAll(Queue<ConsumerRecord<Object, Object>> newRecords, Counts counts) {
+        List<LibraryEvent> libraryEvents = sorted(newRecords);
+        for (int from = 0; from < libraryEvents.size(); from += chunkSize) {
+            insert(libraryEvents.subList(from, Math.min(from + chunkSize, libraryEvents.size())), counts);
+        }
+    }
+
+    private void insert(List<LibraryEvent> libraryEvents, Counts counts) {
+        if (libraryEvents.isEmpty()) {
+            return;
+        }
+
+        libraryEvents.forEach(libraryEvent -> libraryEvent.getBook().setLibraryEvent(libraryEvent));
+        try {
+            transactionTemplate.executeWithoutResult(status -> libraryEventsRepository.saveAll(libraryEvents));
+            counts.inserted.add(libraryEvents.size());
+
+            return;
+        } catch (RuntimeException e) {
+            log.warn("event=bootstrap_chunk_failed size={} error=\"{}\", falling back to per record inserts", libraryEvents.size(), e.getMessage());
+        }
+
+        // ids handed out by the rolled back chunk must not leak into the per record inserts
+        libraryEvents.forEach(libraryEvent -> libraryEvent.setLibraryEventId(null));
+        for (LibraryEvent libraryEvent : libraryEvents) {
+            try {
+                libraryEventsRepository.save(libraryEvent);
+                counts.inserted.increment();
+            } catch (RuntimeException e) {
+                libraryEvent.setLibraryEventId(null);
+                counts.skipped.increment();
+            }
+        }
+    }
+
+    private void applyUpdates(Queue<ConsumerRecord<Object, Object>> updateRecords, Counts counts) {
+        List<LibraryEvent> updates = sorted(updateRecords);
+
+        for (int from = 0; from < updates.size(); from += chunkSize) {
+            List<LibraryEvent> chunk = updates.subList(from, Math.min(from + chunkSize, updates.size()));
+            try {
+                Long updated = transactionTemplate.execute(status -> chunk.stream()
+                        .filter(libraryEventsRepository::applyUpdateOfSameBook)
+                        .count());
+                counts.updated.add(updated == null ? 0 : updated);
+                counts.unresolved.add(chunk.size() - (updated == null ? 0 : updated));
+            } catch (RuntimeException e) {
+                log.warn("event=bootstrap_chunk_failed size={} error=\"{}\", falling back to per record updates", chunk.size(), e.getMessage());
+
+                for (LibraryEvent libraryEvent : chunk) {
+                    try {
+                        (libraryEventsRepository.applyUpdateOfSameBook(libraryEvent) ? counts.updated : counts.unresolved).increment();
+                    } catch (RuntimeException recordFailure) {
+                        counts.skipped.increment();
+                    }
+                }
+            }
+        }
+
+        if (counts.unresolved.sum() > 0) {
+            log.error("event=bootstrap_updates_unresolved count={} total={}, these UPDATEs were not applied as no rebuilt event with their id points at their book",
+                    counts.unresolved.sum(), updates.size());
+        }
+    }
+
+    private static List<LibraryEvent> sorted(Queue<ConsumerRecord<Object, Object>> consumerRecords) {
+        return consumerRecords.stream()
+                .sorted(RECORD_ORDER)
+                .map(consumerRecord -> (LibraryEvent) consumerRecord.value())
+                .collect(Collectors.toList());
+    }
+
+    private void handOver(List<TopicPartition> partitions, Map<TopicPartition, Long> beginningOffsets, Map<TopicPartition, Long> endOffsets) {
+        partitions.forEach(topicPartition -> redeliveryDetector.processedRange(topicPartition, beginningOffsets.get(topicPartition), endOffsets.get(topicPartition)));
+
+        if (consumerOffsetStore.isEnabled()) {
+            transactionTemplate.executeWithoutResult(status -> consumerOffsetStore.storeAll(endOffsets));
+        }
+
+        try (Consumer<Object, Object> consumer = createConsumer("commit")) {
+            consumer.commitSync(endOffsets.entrySet().stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, entry -> new OffsetAndMetadata(entry.getValue()))));
+        } catch (KafkaException e) {
+            // typically other instances of the group are already running, the redelivery detector still skips the rebuilt records
+            log.warn("event=bootstrap_commit_failed group={} error=\"{}\"", groupId, e.getMessage());
+        }
+    }
+
+    private Consumer<Object, Object> createConsumer(String clientIdSuffix) {
+        Properties properties = new Properties();
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(chunkSize));
+
+        return consumerFactory.createConsumer(groupId, "library-events-bootstrap", "-" + clientIdSuffix, properties);
+    }
+
+    private static class Counts {
+        private final LongAdder records = new LongAdder();
+
+        private final LongAdder inserted = new LongAdder();
+
+        private final LongAdder updated = new LongAdder();
+
+        private final LongAdder skipped = new LongAdder();
+
+        private final LongAdder unresolved = new LongAdder();
+    }
+
+    @Data
+    @Builder
+    public static class Report {
+        private int partitions;
+
+        private long records;
+
+        private long inserted;
+
+        private long updated;
+
+        private long skipped;
+
+        private long unresolved;
+
+        private long elapsedMs;
+
+        private long recordsPerSecond;
+    }
+}
@@ -1,54 +1,117 @@
 package com.learnkafka.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learnkafka.consumer.LibraryEventConsumerMetrics;
+import com.learnkafka.consumer.LibraryEventsRetryRouter;
 import com.learnkafka.entity.Book;
 import com.learnkafka.entity.LibraryEvent;
 import com.learnkafka.entity.LibraryEventType;
 import com.learnkafka.jpa.LibraryEventsRepository;
+import com.learnkafka.logging.SamplingTurboFilter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.RecoverableDataAccessException;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
-import org.springframework.util.concurrent.ListenableFuture;
-import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.sql.SQLException;
 import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class LibraryEventsService {
     @Autowired
-    private ObjectMapper objectMapper;
+    private LibraryEventsRepository libraryEventsRepository;
 
     @Autowired
-    private LibraryEventsRepository libraryEventsRepository;
+    LibraryEventsRetryRouter libraryEventsRetryRouter;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    DatabaseCircuitBreaker databaseCircuitBreaker;
+
+    @Autowired
+    LibraryEventCache libraryEventCache;
+
+    @Autowired
+    ConsumerOffsetStore consumerOffsetStore;
+
+    @Autowired
+    RedeliveryDetector redeliveryDetector;
 
     @Autowired
-    KafkaTemplate<Integer, String> kafkaTemplate;
+    LibraryEventConsumerMetrics libraryEventConsumerMetrics;
 
-    public void processLibraryEvent(ConsumerRecord<Integer, String> consumerRecord) throws JsonProcessingException {
-        LibraryEvent libraryEvent = objectMapper.readValue(consumerRecord.value(), LibraryEvent.class);
+    /**
+     * @return false when the record was skipped as a redelivery of one already applied
+     */
+    public boolean processLibraryEvent(ConsumerRecord<Integer, LibraryEvent> consumerRecord) {
+        LibraryEvent libraryEvent = consumerRecord.value();
+        if (libraryEvent == null) {
+            throw new IllegalArgumentException("Library Event is null.");
+        }
+
+        if (redeliveryDetector.isDuplicate(consumerRecord)) {
+            return false;
+        }
 
-        log.info("libraryEvent : {}", libraryEvent);
+        log.info(SamplingTurboFilter.SAMPLED, "event=library_event_processing id={} type={} book_id={}", libraryEvent.getLibraryEventId(), libraryEvent.getLibraryEventType(), libraryEvent.getBook() == null ? null : libraryEvent.getBook().getBookId());
 
+        // simulated outage for the demo id, raised outside the circuit breaker so it never counts as a database failure
         if (libraryEvent.getLibraryEventId() != null && libraryEvent.getLibraryEventId() == 000) {
             throw new RecoverableDataAccessException("Temporary network issue");
         }
 
+        TopicPartition topicPartition = new TopicPartition(consumerRecord.topic(), consumerRecord.partition());
+        if (!consumerOffsetStore.isEnabled()) {
+            libraryEventConsumerMetrics.timePersistence("record", () -> databaseCircuitBreaker.run(() -> persist(libraryEvent, topicPartition)));
+            committed(consumerRecord);
+
+            return true;
+        }
+
+        try {
+            // the entity changes and the partition's next offset commit or roll back together
+            libraryEventConsumerMetrics.timePersistence("record", () -> databaseCircuitBreaker.run(() -> transactionTemplate.executeWithoutResult(status -> {
+                persist(libraryEvent, topicPartition);
+                consumerOffsetStore.store(consumerRecord);
+            })));
+            committed(consumerRecord);
+
+            return true;
+        } catch (RuntimeException e) {
+            if (libraryEvent.getLibraryEventId() != null) {
+                libraryEventCache.invalidate(libraryEvent.getLibraryEventId());
+            }
+
+            throw e;
+        }
+    }
+
+    private void persist(LibraryEvent libraryEvent, TopicPartition topicPartition) {
         switch (libraryEvent.getLibraryEventType()) {
             case NEW:
                 save(libraryEvent);
+                libraryEventCache.put(topicPartition, libraryEvent);
 
                 break;
             case UPDATE:
-                update(libraryEvent);
+                update(libraryEvent, topicPartition);
 
                 break;
             default:
@@ -58,73 +121,228 @@ public class LibraryEventsService {
         }
     }
 
-    private void update(LibraryEvent libraryEvent) {
-        if (libraryEvent.getLibraryEventId() == null) {
-            throw new IllegalArgumentException("Library Event Id is null.");
+    public void processLibraryEvents(List<ConsumerRecord<Integer, LibraryEvent>> consumerRecords) {
+        List<ConsumerRecord<Integer, LibraryEvent>> bulkRecords = new ArrayList<>(consumerRecords.size());
+        List<ConsumerRecord<Integer, LibraryEvent>> individualRecords = new ArrayList<>();
+        for (ConsumerRecord<Integer, LibraryEvent> consumerRecord : consumerRecords) {
+            if (redeliveryDetector.isDuplicate(consumerRecord)) {
+                continue;
+            }
+
+            (isBulkEligible(consumerRecord.value()) ? bulkRecords : individualRecords).add(consumerRecord);
+        }
+
+        if (!bulkRecords.isEmpty()) {
+            try {
+                Map<TopicPartition, Long> nextOffsets = nextOffsets(bulkRecords, individualRecords);
+                Set<Integer> cachedIds = cachedUpdateIds(bulkRecords);
+                libraryEventConsumerMetrics.timePersistence("batch", () -> databaseCircuitBreaker.run(() -> transactionTemplate.executeWithoutResult(status -> {
+                    persistAll(bulkRecords, cachedIds);
+                    consumerOffsetStore.storeAll(nextOffsets);
+                })));
+                bulkRecords.forEach(this::committed);
+                cacheAll(bulkRecords, cachedIds);
+
+                log.info(SamplingTurboFilter.SAMPLED, "event=library_event_batch_persisted size={}", bulkRecords.size());
+            } catch (RuntimeException e) {
+                log.warn("event=library_event_batch_failed size={} error=\"{}\", falling back to per record processing", bulkRecords.size(), e.getMessage());
+
+                // ids handed out by the rolled back inserts must not leak into the retries
+                bulkRecords.stream()
+                        .map(ConsumerRecord::value)
+                        .filter(libraryEvent -> libraryEvent.getLibraryEventType() == LibraryEventType.NEW)
+                        .forEach(libraryEvent -> libraryEvent.setLibraryEventId(null));
+
+                individualRecords.addAll(0, bulkRecords);
+            }
         }
 
-        libraryEventsRepository.findById(libraryEvent.getLibraryEventId())
-                .map(record -> {
-                    record.setLibraryEventType(LibraryEventType.UPDATE);
-                    libraryEvent.getBook().setLibraryEvent(record);
-                    record.setBook(libraryEvent.getBook());
+        if (consumerOffsetStore.isEnabled()) {
+            // each stored offset covers everything before it, so a partition's records must complete in order
+            individualRecords.sort(Comparator.comparingLong(ConsumerRecord::offset));
+        }
 
-                    libraryEventsRepository.save(record);
+        for (int i = 0; i < individualRecords.size(); i++) {
+            try {
+                processIndividually(individualRecords.get(i));
+            } catch (RuntimeException e) {
+                throw new BatchProcessingException(resumeOffsets(individualRecords.subList(i, individualRecords.size())), e);
+            }
+        }
+    }
 
-                    return record;
-                })
-                .orElseThrow(() -> new IllegalArgumentException("Library Event Id not found."));
+    /**
+     * The lowest offset per partition among records that were not processed; records after it that were
+     * processed are skipped as redeliveries.
+     */
+    private static Map<TopicPartition, Long> resumeOffsets(List<ConsumerRecord<Integer, LibraryEvent>> unprocessedRecords) {
+        Map<TopicPartition, Long> resumeOffsets = new HashMap<>();
+        unprocessedRecords.forEach(consumerRecord -> resumeOffsets.merge(new TopicPartition(consumerRecord.topic(), consumerRecord.partition()), consumerRecord.offset(), Math::min));
 
-        log.info("Library Event identified by id : {} was successfully updated.", libraryEvent.getLibraryEventId());
+        return resumeOffsets;
     }
 
-    private void save(LibraryEvent libraryEvent) {
-        libraryEvent.getBook().setLibraryEvent(libraryEvent);
+    /**
+     * The offset each partition may move to once the bulk records are committed: past its last bulk record,
+     * but never past a record of the same batch that is still to be processed on its own.
+     */
+    private static Map<TopicPartition, Long> nextOffsets(List<ConsumerRecord<Integer, LibraryEvent>> bulkRecords, List<ConsumerRecord<Integer, LibraryEvent>> individualRecords) {
+        Map<TopicPartition, Long> nextOffsets = new HashMap<>();
+        bulkRecords.forEach(consumerRecord -> nextOffsets.merge(new TopicPartition(consumerRecord.topic(), consumerRecord.partition()), consumerRecord.offset() + 1, Math::max));
+        individualRecords.forEach(consumerRecord -> nextOffsets.computeIfPresent(new TopicPartition(consumerRecord.topic(), consumerRecord.partition()), (topicPartition, nextOffset) -> Math.min(nextOffset, consumerRecord.offset())));
 
-        try {
-            libraryEventsRepository.save(libraryEvent);
+        return nextOffsets;
+    }
 
-            log.info("Successfully persisted the Library Event {} ", libraryEvent);
-        } catch (DataIntegrityViolationException e) {
-            log.error("Book referred to by Id : {} exists already", libraryEvent.getBook().getBookId());
+    private void committed(ConsumerRecord<Integer, LibraryEvent> consumerRecord) {
+        redeliveryDetector.processed(consumerRecord);
+        libraryEventConsumerMetrics.recordCommitted(consumerRecord);
+    }
 
-            throw new DuplicateKeyException(String.format("Book referred to by Id : %d exists already", libraryEvent.getBook().getBookId()));
+    private static boolean isBulkEligible(LibraryEvent libraryEvent) {
+        if (libraryEvent == null || libraryEvent.getBook() == null || libraryEvent.getLibraryEventType() == null) {
+            return false;
         }
+
+        if (libraryEvent.getLibraryEventId() != null && libraryEvent.getLibraryEventId() == 000) {
+            return false;
+        }
+
+        return libraryEvent.getLibraryEventType() == LibraryEventType.NEW || libraryEvent.getLibraryEventId() != null;
+    }
+
+    /**
+     * Ids of the batch's updates that every partition writing them has cached, so they are known to exist.
+     */
+    private Set<Integer> cachedUpdateIds(List<ConsumerRecord<Integer, LibraryEvent>> consumerRecords) {
+        Set<Integer> cachedIds = new HashSet<>();
+        Set<Integer> missedIds = new HashSet<>();
+        for (ConsumerRecord<Integer, LibraryEvent> consumerRecord : consumerRecords) {
+            LibraryEvent libraryEvent = consumerRecord.value();
+            if (libraryEvent.getLibraryEventType() == LibraryEventType.UPDATE) {
+                TopicPartition topicPartition = new TopicPartition(consumerRecord.topic(), consumerRecord.partition());
+                (libraryEventCache.contains(topicPartition, libraryEvent.getLibraryEventId()) ? cachedIds : missedIds).add(libraryEvent.getLibraryEventId());
+            }
+        }
+        cachedIds.removeAll(missedIds);
+
+        return cachedIds;
+    }
+
+    private void cacheAll(List<ConsumerRecord<Integer, LibraryEvent>> consumerRecords, Set<Integer> cachedIds) {
+        int hitCount = 0;
+        int missCount = 0;
+        for (ConsumerRecord<Integer, LibraryEvent> consumerRecord : consumerRecords) {
+            LibraryEvent libraryEvent = consumerRecord.value();
+            libraryEventCache.put(new TopicPartition(consumerRecord.topic(), consumerRecord.partition()), libraryEvent);
+
+            if (libraryEvent.getLibraryEventType() == LibraryEventType.UPDATE) {
+                if (cachedIds.contains(libraryEvent.getLibraryEventId())) {
+                    hitCount++;
+                } else {
+                    missCount++;
+                }
+            }
+        }
+
+        libraryEventCache.recordLookups(hitCount, missCount);
     }
 
-    public void handleRecovery(ConsumerRecord<Integer, String> consumerRecord) {
-        Integer key = consumerRecord.key();
-        String value = consumerRecord.value();
+    private void persistAll(List<ConsumerRecord<Integer, LibraryEvent>> consumerRecords, Set<Integer> cachedIds) {
+        Map<LibraryEventType, List<LibraryEvent>> libraryEventsByType = consumerRecords.stream()
+                .map(ConsumerRecord::value)
+                .collect(Collectors.groupingBy(LibraryEvent::getLibraryEventType, () -> new EnumMap<>(LibraryEventType.class), Collectors.toList()));
+
+        List<LibraryEvent> newLibraryEvents = libraryEventsByType.getOrDefault(LibraryEventType.NEW, Collections.emptyList());
+        if (!newLibraryEvents.isEmpty()) {
+            newLibraryEvents.forEach(libraryEvent -> libraryEvent.getBook().setLibraryEvent(libraryEvent));
+
+            libraryEventsRepository.saveAll(newLibraryEvents);
+        }
+
+        List<LibraryEvent> updatedLibraryEvents = libraryEventsByType.getOrDefault(LibraryEventType.UPDATE, Collections.emptyList());
+        if (!updatedLibraryEvents.isEmpty()) {
+            // cached ids are known to exist and are written without loading them first
+            for (LibraryEvent libraryEvent : updatedLibraryEvents) {
+                if (cachedIds.contains(libraryEvent.getLibraryEventId()) && !libraryEventsRepository.applyUpdate(libraryEvent)) {
+                    libraryEventCache.invalidate(libraryEvent.getLibraryEventId());
+
+                    throw new IllegalArgumentException("Library Event Id not found.");
+                }
+            }
 
-        ListenableFuture<SendResult<Integer, String>> listenableFuture = kafkaTemplate.sendDefault(key, value);
-        listenableFuture.addCallback(new ListenableFutureCallback<SendResult<Integer, String>>() {
-            @Override
-            public void onFailure(Throwable throwable) {
-                handleFailure(throwable, key, value);
+            Set<Integer> libraryEventIds = updatedLibraryEvents.stream()
+                    .map(LibraryEvent::getLibraryEventId)
+                    .filter(libraryEventId -> !cachedIds.contains(libraryEventId))
+                    .collect(Collectors.toSet());
+            if (libraryEventIds.isEmpty()) {
+                return;
             }
 
-            @Override
-            public void onSuccess(SendResult<Integer, String> result) {
-                handleSuccess(key, value, result);
+            Map<Integer, LibraryEvent> records = new HashMap<>();
+            libraryEventsRepository.findAllById(libraryEventIds)
+                    .forEach(record -> records.put(record.getLibraryEventId(), record));
+
+            for (LibraryEvent libraryEvent : updatedLibraryEvents) {
+                if (cachedIds.contains(libraryEvent.getLibraryEventId())) {
+                    continue;
+                }
+
+                LibraryEvent record = records.get(libraryEvent.getLibraryEventId());
+                if (record == null) {
+                    throw new IllegalArgumentException("Library Event Id not found.");
+                }
+
+                record.setLibraryEventType(LibraryEventType.UPDATE);
+                libraryEvent.getBook().setLibraryEvent(record);
+                record.setBook(libraryEvent.getBook());
             }
-        });
+
+            libraryEventsRepository.saveAll(records.values());
+        }
     }
 
-    private void handleSuccess(Integer key, String value, SendResult<Integer, String> result) {
-        log.info(
-                "Message successfully sent for the key : {} and the value is {}, partition is {}",
-                key,
-                value,
-                result.getRecordMetadata()
-                        .partition()
-        );
+    /**
+     * Processes a record and routes a failure to the retry tiers. Throws when the failed record could
+     * not be routed either, or while the database circuit is not closed: the record is then held on its
+     * partition and the caller must not commit past it.
+     */
+    public void processIndividually(ConsumerRecord<Integer, LibraryEvent> consumerRecord) {
+        try {
+            processLibraryEvent(consumerRecord);
+        } catch (RuntimeException e) {
+            if (!databaseCircuitBreaker.isClosed()) {
+                throw e;
+            }
+
+            libraryEventsRetryRouter.accept(consumerRecord, e);
+        }
     }
 
-    private void handleFailure(Throwable ex, Integer key, String value) {
+    private void update(LibraryEvent libraryEvent, TopicPartition topicPartition) {
+        if (libraryEvent.getLibraryEventId() == null) {
+            throw new IllegalArgumentException("Library Event Id is null.");
+        }
+
+        if (!libraryEventsRepository.applyUpdate(libraryEvent)) {
+            throw new IllegalArgumentException("Library Event Id not found.");
+        }
+
+        libraryEventCache.put(topicPartition, libraryEvent);
+        log.info(SamplingTurboFilter.SAMPLED, "event=library_event_updated id={}", libraryEvent.getLibraryEventId());
+    }
+
+    private void save(LibraryEvent libraryEvent) {
+        libraryEvent.getBook().setLibraryEvent(libraryEvent);
+
         try {
-            throw ex;
-        } catch(Throwable throwable) {
-            log.error("Error in onFailure: {}", throwable.getMessage());
+            libraryEventsRepository.save(libraryEvent);
+
+            log.info(SamplingTurboFilter.SAMPLED, "event=library_event_saved id={} book_id={}", libraryEvent.getLibraryEventId(), libraryEvent.getBook().getBookId());
+        } catch (DataIntegrityViolationException e) {
+            log.error("Book referred to by Id : {} exists already", libraryEvent.getBook().getBookId());
+
+            throw new DuplicateKeyException(String.format("Book referred to by Id : %d exists already", libraryEvent.getBook().getBookId()));
         }
     }
 }
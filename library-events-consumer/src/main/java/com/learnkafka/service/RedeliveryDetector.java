@@ -0,0 +1,161 @@
+package com.learnkafka.service;
+
+import com.learnkafka.logging.SamplingTurboFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which offsets of each partition this instance has already applied, so records redelivered after a
+ * rebalance or a seek are dropped before they reach the database. Each partition keeps a watermark below which
+ * every tracked offset was applied, plus a bitmap of at most {@code window-size} applied offsets above it.
+ * <p>
+ * Offsets never marked, such as records routed to the retry topics, hold the watermark back; once the bitmap
+ * would outgrow its window the oldest offsets are forgotten, which only means they are no longer recognised.
+ * State outlives revocation on purpose, since an applied offset stays applied whoever owns the partition next.
+ */
+@Component
+@Slf4j
+public class RedeliveryDetector {
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${library-events.consumer.redelivery.enabled:true}")
+    boolean enabled;
+
+    @Value("${library-events.consumer.redelivery.window-size:8192}")
+    int windowSize;
+
+    private final Map<TopicPartition, PartitionWindow> partitions = new ConcurrentHashMap<>();
+
+    private Counter skippedDuplicates;
+
+    @PostConstruct
+    public void init() {
+        skippedDuplicates = Counter.builder("library.events.consumer.redelivery.skipped")
+                .description("Redelivered records skipped because their offset was already applied")
+                .register(meterRegistry);
+        Gauge.builder("library.events.consumer.redelivery.partitions", partitions, Map::size)
+                .description("Partitions with tracked processed offsets")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return true, counting it as a skipped duplicate, when the record's offset was already applied
+     */
+    public boolean isDuplicate(ConsumerRecord<?, ?> consumerRecord) {
+        if (!enabled) {
+            return false;
+        }
+
+        PartitionWindow partitionWindow = partitions.get(new TopicPartition(consumerRecord.topic(), consumerRecord.partition()));
+        if (partitionWindow == null || !partitionWindow.isProcessed(consumerRecord.offset())) {
+            return false;
+        }
+
+        skippedDuplicates.increment();
+        log.info(SamplingTurboFilter.SAMPLED, "event=library_event_redelivery_skipped topic={} partition={} offset={}", consumerRecord.topic(), consumerRecord.partition(), consumerRecord.offset());
+
+        return true;
+    }
+
+    /**
+     * Marks the record's offset as applied; only call once its changes are committed.
+     */
+    public void processed(ConsumerRecord<?, ?> consumerRecord) {
+        if (!enabled) {
+            return;
+        }
+
+        partitions.computeIfAbsent(new TopicPartition(consumerRecord.topic(), consumerRecord.partition()), topicPartition -> new PartitionWindow(windowSize))
+                .processed(consumerRecord.offset());
+    }
+
+    /**
+     * Marks a whole range of a partition as applied, replacing what was tracked for it.
+     */
+    public void processedRange(TopicPartition topicPartition, long fromOffset, long toOffset) {
+        if (!enabled || toOffset <= fromOffset) {
+            return;
+        }
+
+        partitions.computeIfAbsent(topicPartition, key -> new PartitionWindow(windowSize))
+                .processedRange(fromOffset, toOffset);
+    }
+
+    public double skippedDuplicates() {
+        return skippedDuplicates.count();
+    }
+
+    static class PartitionWindow {
+        private final int windowSize;
+
+        private long start = -1;
+
+        private long watermark;
+
+        // bit i stands for offset watermark + i
+        private BitSet above = new BitSet();
+
+        PartitionWindow(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        synchronized boolean isProcessed(long offset) {
+            if (start < 0 || offset < start) {
+                return false;
+            }
+
+            return offset < watermark || (offset - watermark < windowSize && above.get((int) (offset - watermark)));
+        }
+
+        synchronized void processed(long offset) {
+            if (start < 0 || offset < start) {
+                // nothing is known below the first tracked offset, so tracking restarts from here
+                start = offset;
+                watermark = offset;
+                above = new BitSet();
+            }
+
+            if (offset < watermark) {
+                return;
+            }
+
+            if (offset - watermark >= windowSize) {
+                long forgotten = offset - watermark - windowSize + 1;
+                above = above.get((int) Math.min(forgotten, windowSize), windowSize);
+                watermark += forgotten;
+                start = watermark;
+            }
+
+            above.set((int) (offset - watermark));
+
+            int applied = above.nextClearBit(0);
+            if (applied > 0) {
+                above = above.get(applied, Math.max(applied, above.length()));
+                watermark += applied;
+            }
+        }
+
+        synchronized void processedRange(long fromOffset, long toOffset) {
+            start = fromOffset;
+            watermark = toOffset;
+            above = new BitSet();
+        }
+
+        synchronized long getWatermark() {
+            return watermark;
+        }
+    }
+}
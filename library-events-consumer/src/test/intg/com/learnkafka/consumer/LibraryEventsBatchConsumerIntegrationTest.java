@@ -0,0 +1,121 @@
+package com.learnkafka.consumer;
+
+import com.learnkafka.entity.Book;
+import com.learnkafka.entity.LibraryEvent;
+import com.learnkafka.entity.LibraryEventType;
+import com.learnkafka.jpa.LibraryEventsRepository;
+import com.learnkafka.service.LibraryEventsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+@EmbeddedKafka(topics = {"library-events", "library-events-retry-1s", "library-events-retry-10s", "library-events-retry-60s", "library-events.DLT"}, partitions = 3)
+@TestPropertySource(
+        properties = {
+                "spring.kafka.producer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+                "spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+                "spring.kafka.admin.properties.bootstrap.servers=${spring.embedded.kafka.brokers}",
+                "library-events.consumer.listener-mode=batch"
+        }
+)
+public class LibraryEventsBatchConsumerIntegrationTest {
+    @Autowired
+    EmbeddedKafkaBroker embeddedKafkaBroker;
+
+    @Autowired
+    KafkaTemplate<Integer, LibraryEvent> kafkaTemplate;
+
+    @Autowired
+    KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+    @SpyBean
+    LibraryEventsBatchConsumer libraryEventsBatchConsumerSpy;
+
+    @SpyBean
+    LibraryEventsService libraryEventsServiceSpy;
+
+    @Autowired
+    LibraryEventsRepository libraryEventsRepository;
+
+    @BeforeEach
+    public void setUp() {
+        kafkaListenerEndpointRegistry.getAllListenerContainers()
+                .forEach(
+                        messageListenerContainer -> ContainerTestUtils.waitForAssignment(messageListenerContainer, embeddedKafkaBroker.getPartitionsPerTopic()
+                        )
+                );
+    }
+
+    @AfterEach
+    public void tearDown() {
+        libraryEventsRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Must persist new and updated Library Events received in batches.")
+    public void publishLibraryEventBatchTest() throws Exception {
+        // Given
+        LibraryEvent existing = libraryEventsRepository.save(libraryEvent(null, LibraryEventType.NEW, 999, "Kafka Using SpringBoot"));
+
+        for (int bookId = 1; bookId <= 10; bookId++) {
+            kafkaTemplate.sendDefault(libraryEvent(null, LibraryEventType.NEW, bookId, "Kafka Using SpringBoot"));
+        }
+        kafkaTemplate.sendDefault(existing.getLibraryEventId(), libraryEvent(existing.getLibraryEventId(), LibraryEventType.UPDATE, 999, "Kafka Spring Cloud"))
+                .get();
+
+        // When
+        new CountDownLatch(1)
+                .await(5, TimeUnit.SECONDS);
+
+        // Then
+        verify(libraryEventsBatchConsumerSpy, atLeastOnce())
+                .onMessage(anyList());
+        verify(libraryEventsServiceSpy, atLeastOnce())
+                .processLibraryEvents(anyList());
+
+        List<LibraryEvent> libraryEventList = (List<LibraryEvent>) libraryEventsRepository.findAll();
+        assertEquals(11, libraryEventList.size());
+
+        Optional<LibraryEvent> updated = libraryEventsRepository.findById(existing.getLibraryEventId());
+        assertTrue(updated.isPresent());
+        assertEquals("Kafka Spring Cloud", updated.get().getBook().getBookName());
+        assertEquals(LibraryEventType.UPDATE, updated.get().getLibraryEventType());
+    }
+
+    private static LibraryEvent libraryEvent(Integer libraryEventId, LibraryEventType libraryEventType, int bookId, String bookName) {
+        LibraryEvent libraryEvent = LibraryEvent.builder()
+                .libraryEventId(libraryEventId)
+                .libraryEventType(libraryEventType)
+                .book(Book.builder()
+                        .bookId(bookId)
+                        .bookName(bookName)
+                        .bookAuthor("Dilip")
+                        .build())
+                .build();
+        libraryEvent.getBook().setLibraryEvent(libraryEvent);
+
+        return libraryEvent;
+    }
+}
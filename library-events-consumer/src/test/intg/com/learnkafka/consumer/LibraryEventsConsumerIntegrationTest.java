@@ -33,11 +33,12 @@ import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
-@EmbeddedKafka(topics = {"library-events"}, partitions = 3)
+@EmbeddedKafka(topics = {"library-events", "library-events-retry-1s", "library-events-retry-10s", "library-events-retry-60s", "library-events.DLT"}, partitions = 3)
 @TestPropertySource(
         properties = {
                 "spring.kafka.producer.bootstrap-servers=${spring.embedded.kafka.brokers}",
-                "spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}"
+                "spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+                "spring.kafka.admin.properties.bootstrap.servers=${spring.embedded.kafka.brokers}"
         }
 )
 public class LibraryEventsConsumerIntegrationTest {
@@ -45,7 +46,7 @@ public class LibraryEventsConsumerIntegrationTest {
     EmbeddedKafkaBroker embeddedKafkaBroker;
 
     @Autowired
-    KafkaTemplate<Integer, String> kafkaTemplate;
+    KafkaTemplate<Integer, LibraryEvent> kafkaTemplate;
 
     @Autowired
     KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
@@ -56,6 +57,9 @@ public class LibraryEventsConsumerIntegrationTest {
     @SpyBean
     LibraryEventsService libraryEventsServiceSpy;
 
+    @SpyBean
+    LibraryEventsRetryRouter libraryEventsRetryRouterSpy;
+
     @Autowired
     LibraryEventsRepository libraryEventsRepository;
 
@@ -84,7 +88,7 @@ public class LibraryEventsConsumerIntegrationTest {
         String json = "{\"libraryEventId\":null,\"libraryEventType\":\"NEW\",\"book\":" +
                 "{\"bookId\":456,\"bookName\":\"Kafka Using SpringBoot\",\"bookAuthor\":\"Dilip\"}}";
 
-        kafkaTemplate.sendDefault(json)
+        kafkaTemplate.sendDefault(objectMapper.readValue(json, LibraryEvent.class))
                 .get();
 
         // When
@@ -126,9 +130,8 @@ public class LibraryEventsConsumerIntegrationTest {
                 .build();
         libraryEvent.setLibraryEventType(LibraryEventType.UPDATE);
         libraryEvent.setBook(updatedBook);
-        String updatedJson = objectMapper.writeValueAsString(libraryEvent);
 
-        kafkaTemplate.sendDefault(libraryEvent.getLibraryEventId(), updatedJson).get();
+        kafkaTemplate.sendDefault(libraryEvent.getLibraryEventId(), libraryEvent).get();
 
         // When
         new CountDownLatch(1)
@@ -153,7 +156,7 @@ public class LibraryEventsConsumerIntegrationTest {
         String json = String.format("{\"libraryEventId\": %d,\"libraryEventType\":\"UPDATE\",\"book\":" +
                 "{\"bookId\":123,\"bookName\":\"Kafka Using SpringBoot\",\"bookAuthor\":\"Dilip\"}}", randomId);
 
-        kafkaTemplate.sendDefault(json)
+        kafkaTemplate.sendDefault(objectMapper.readValue(json, LibraryEvent.class))
                 .get();
 
         // When
@@ -170,14 +173,14 @@ public class LibraryEventsConsumerIntegrationTest {
     }
 
     @Test
-    @DisplayName("Must trigger recovery logic whenever passing \"000\" as libraryEventId.")
+    @DisplayName("Must route to the retry topics whenever passing \"000\" as libraryEventId.")
     public void publishUpdate000LibraryEvent() throws ExecutionException, InterruptedException, JsonProcessingException {
         // Given
         int randomId = 000;
         String json = String.format("{\"libraryEventId\": %d,\"libraryEventType\":\"UPDATE\",\"book\":" +
                 "{\"bookId\":123,\"bookName\":\"Kafka Using SpringBoot\",\"bookAuthor\":\"Dilip\"}}", randomId);
 
-        kafkaTemplate.sendDefault(json)
+        kafkaTemplate.sendDefault(objectMapper.readValue(json, LibraryEvent.class))
                 .get();
 
         // When
@@ -189,20 +192,20 @@ public class LibraryEventsConsumerIntegrationTest {
                 .onMessage(isA(ConsumerRecord.class));
         verify(libraryEventsServiceSpy, atLeastOnce())
                 .processLibraryEvent(isA(ConsumerRecord.class));
-        verify(libraryEventsServiceSpy, atLeastOnce())
-                .handleRecovery(isA(ConsumerRecord.class));
+        verify(libraryEventsRetryRouterSpy, atLeastOnce())
+                .accept(isA(ConsumerRecord.class), isA(Exception.class));
 
         assertTrue(libraryEventsRepository.findById(randomId).isEmpty());
     }
 
     @Test
-    @DisplayName("Must throw IllegalArgumentException whenever modifying Library Event with invalid libraryEventId.")
+    @DisplayName("Must reject an update without libraryEventId before it reaches the listener.")
     public void publishUpdateInvalidLibraryEvent() throws JsonProcessingException, InterruptedException, ExecutionException {
         // Given
         String json = "{\"libraryEventId\": null,\"libraryEventType\":\"UPDATE\",\"book\":" +
                 "{\"bookId\":123,\"bookName\":\"Kafka Using SpringBoot\",\"bookAuthor\":\"Dilip\"}}";
 
-        kafkaTemplate.sendDefault(json)
+        kafkaTemplate.sendDefault(objectMapper.readValue(json, LibraryEvent.class))
                 .get();
 
         // When
@@ -210,9 +213,11 @@ public class LibraryEventsConsumerIntegrationTest {
                 .await(3, TimeUnit.SECONDS);
 
         // Then
-        verify(libraryEventsConsumerSpy, atLeast(1))
+        verify(libraryEventsConsumerSpy, never())
                 .onMessage(isA(ConsumerRecord.class));
-        verify(libraryEventsServiceSpy, atLeast(1))
+        verify(libraryEventsServiceSpy, never())
                 .processLibraryEvent(isA(ConsumerRecord.class));
+        verify(libraryEventsRetryRouterSpy, atLeastOnce())
+                .accept(isA(ConsumerRecord.class), isA(Exception.class));
     }
 }
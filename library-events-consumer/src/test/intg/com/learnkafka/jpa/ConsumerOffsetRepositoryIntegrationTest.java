@@ -0,0 +1,30 @@
+package com.learnkafka.jpa;
+
+import com.learnkafka.entity.ConsumerOffset;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+public class ConsumerOffsetRepositoryIntegrationTest {
+    @Autowired
+    ConsumerOffsetRepository consumerOffsetRepository;
+
+    @Test
+    @DisplayName("Must insert a partition's offset and only ever move it forward.")
+    public void advanceTest() {
+        // When
+        consumerOffsetRepository.advance("library-events-listener-group", "library-events", 0, 10L);
+        consumerOffsetRepository.advance("library-events-listener-group", "library-events", 0, 25L);
+        consumerOffsetRepository.advance("library-events-listener-group", "library-events", 0, 20L);
+
+        // Then
+        ConsumerOffset consumerOffset = consumerOffsetRepository.findById(ConsumerOffset.idOf("library-events-listener-group", "library-events", 0)).orElseThrow();
+        assertEquals(25L, consumerOffset.getNextOffset());
+        assertEquals("library-events", consumerOffset.getTopic());
+        assertEquals(0, consumerOffset.getPartitionNumber());
+    }
+}
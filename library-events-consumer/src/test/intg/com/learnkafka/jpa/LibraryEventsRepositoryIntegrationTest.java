@@ -0,0 +1,208 @@
+package com.learnkafka.jpa;
+
+import com.learnkafka.entity.Book;
+import com.learnkafka.entity.LibraryEvent;
+import com.learnkafka.entity.LibraryEventType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+public class LibraryEventsRepositoryIntegrationTest {
+    @Autowired
+    LibraryEventsRepository libraryEventsRepository;
+
+    @Autowired
+    TestEntityManager testEntityManager;
+
+    @Autowired
+    StatementCounter statementCounter;
+
+    private LibraryEvent existing;
+
+    @BeforeEach
+    public void setUp() {
+        existing = libraryEvent(null, LibraryEventType.NEW, 123, "Kafka Using SpringBoot");
+        testEntityManager.persistAndFlush(existing);
+        testEntityManager.clear();
+
+        statementCounter.reset();
+    }
+
+    @Test
+    @DisplayName("Must apply an update with one write per table and no reads.")
+    public void applyUpdateTest() {
+        // Given
+        LibraryEvent update = libraryEvent(existing.getLibraryEventId(), LibraryEventType.UPDATE, 456, "Kafka Spring Cloud");
+
+        // When
+        boolean updated = libraryEventsRepository.applyUpdate(update);
+
+        // Then
+        assertTrue(updated);
+        assertEquals(2, statementCounter.getExecuted().size());
+        assertTrue(statementCounter.getExecuted().stream().noneMatch(sql -> sql.trim().toUpperCase().startsWith("SELECT")));
+
+        LibraryEvent persisted = libraryEventsRepository.findById(existing.getLibraryEventId()).orElseThrow();
+        assertEquals(LibraryEventType.UPDATE, persisted.getLibraryEventType());
+        assertEquals(456, persisted.getBook().getBookId());
+        assertEquals("Kafka Spring Cloud", persisted.getBook().getBookName());
+    }
+
+    @Test
+    @DisplayName("Must report a non existing library event without writing anything.")
+    public void applyUpdateNotFoundTest() {
+        // Given
+        LibraryEvent update = libraryEvent(existing.getLibraryEventId() + 1000, LibraryEventType.UPDATE, 789, "Kafka Spring Cloud");
+
+        // When
+        boolean updated = libraryEventsRepository.applyUpdate(update);
+
+        // Then
+        assertFalse(updated);
+        assertEquals(1, statementCounter.getExecuted().size());
+        assertEquals(null, testEntityManager.find(Book.class, 789));
+    }
+
+    @Test
+    @DisplayName("Must apply an update of the same book only to the event pointing at that book.")
+    public void applyUpdateOfSameBookTest() {
+        // Given
+        LibraryEvent sameBook = libraryEvent(existing.getLibraryEventId(), LibraryEventType.UPDATE, 123, "Kafka Using SpringBoot 2nd Edition");
+        LibraryEvent otherBook = libraryEvent(existing.getLibraryEventId(), LibraryEventType.UPDATE, 456, "Kafka Spring Cloud");
+
+        // When
+        boolean otherBookUpdated = libraryEventsRepository.applyUpdateOfSameBook(otherBook);
+        boolean sameBookUpdated = libraryEventsRepository.applyUpdateOfSameBook(sameBook);
+
+        // Then
+        assertFalse(otherBookUpdated);
+        assertTrue(sameBookUpdated);
+        assertEquals(null, testEntityManager.find(Book.class, 456));
+
+        LibraryEvent persisted = libraryEventsRepository.findById(existing.getLibraryEventId()).orElseThrow();
+        assertEquals(LibraryEventType.UPDATE, persisted.getLibraryEventType());
+        assertEquals("Kafka Using SpringBoot 2nd Edition", persisted.getBook().getBookName());
+    }
+
+    private static LibraryEvent libraryEvent(Integer libraryEventId, LibraryEventType libraryEventType, int bookId, String bookName) {
+        LibraryEvent libraryEvent = LibraryEvent.builder()
+                .libraryEventId(libraryEventId)
+                .libraryEventType(libraryEventType)
+                .book(Book.builder()
+                        .bookId(bookId)
+                        .bookName(bookName)
+                        .bookAuthor("Dilip")
+                        .build())
+                .build();
+        libraryEvent.getBook().setLibraryEvent(libraryEvent);
+
+        return libraryEvent;
+    }
+
+    @TestConfiguration
+    static class StatementCountingConfig {
+        @Bean
+        StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+
+        @Bean
+        static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                    return bean instanceof DataSource ? new StatementCountingDataSource((DataSource) bean) : bean;
+                }
+            };
+        }
+    }
+
+    static class StatementCounter {
+        private static final List<String> EXECUTED = new CopyOnWriteArrayList<>();
+
+        void reset() {
+            EXECUTED.clear();
+        }
+
+        List<String> getExecuted() {
+            return EXECUTED;
+        }
+    }
+
+    static class StatementCountingDataSource extends DelegatingDataSource {
+        StatementCountingDataSource(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return countingConnection(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return countingConnection(super.getConnection(username, password));
+        }
+
+        private static Connection countingConnection(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(
+                    StatementCountingDataSource.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        if (result instanceof PreparedStatement && method.getName().equals("prepareStatement")) {
+                            return countingStatement((PreparedStatement) result, (String) args[0]);
+                        }
+
+                        return result;
+                    }
+            );
+        }
+
+        private static Statement countingStatement(PreparedStatement preparedStatement, String sql) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCountingDataSource.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("execute")) {
+                            StatementCounter.EXECUTED.add(sql);
+                        }
+
+                        return invoke(preparedStatement, method, args);
+                    }
+            );
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.learnkafka.service;
+
+import com.learnkafka.entity.Book;
+import com.learnkafka.entity.LibraryEvent;
+import com.learnkafka.entity.LibraryEventType;
+import com.learnkafka.jpa.LibraryEventsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Doubles as the restart benchmark: run with {@code -Dlibrary-events.bootstrap.benchmark.records=<n>} to
+ * see how long rebuilding a topic of that size takes in the {@code event=bootstrap_completed} log line.
+ */
+@SpringBootTest
+@EmbeddedKafka(topics = {"library-events", "library-events-retry-1s", "library-events-retry-10s", "library-events-retry-60s", "library-events.DLT"}, partitions = 3)
+@TestPropertySource(
+        properties = {
+                "spring.kafka.producer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+                "spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+                "spring.kafka.admin.properties.bootstrap.servers=${spring.embedded.kafka.brokers}",
+                "library-events.consumer.bootstrap.chunk-size=200"
+        }
+)
+public class LibraryEventsBootstrapIntegrationTest {
+    private static final int RECORDS = Integer.getInteger("library-events.bootstrap.benchmark.records", 2000);
+
+    @Autowired
+    KafkaTemplate<Integer, LibraryEvent> kafkaTemplate;
+
+    @Autowired
+    KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+    @Autowired
+    LibraryEventsBootstrap libraryEventsBootstrap;
+
+    @Autowired
+    LibraryEventsRepository libraryEventsRepository;
+
+    @BeforeEach
+    public void setUp() {
+        // the rebuild runs before the listeners start, so they must not consume the records first
+        kafkaListenerEndpointRegistry.stop();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        libraryEventsRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Must rebuild the store from every partition of the topic, skip records that cannot be applied and report unresolved updates.")
+    public void rebuildTest() {
+        // Given
+        for (int bookId = 1; bookId <= RECORDS; bookId++) {
+            kafkaTemplate.sendDefault(libraryEvent(bookId, "Kafka Using SpringBoot"));
+        }
+        kafkaTemplate.sendDefault(libraryEvent(1, "Kafka Using SpringBoot"));
+        LibraryEvent unresolved = libraryEvent(2, "Kafka Using SpringBoot 2nd Edition");
+        unresolved.setLibraryEventId(Integer.MAX_VALUE);
+        unresolved.setLibraryEventType(LibraryEventType.UPDATE);
+        kafkaTemplate.sendDefault(unresolved);
+        kafkaTemplate.flush();
+
+        // When
+        LibraryEventsBootstrap.Report report = libraryEventsBootstrap.rebuild();
+
+        // Then
+        assertEquals(3, report.getPartitions());
+        assertEquals(RECORDS + 2, report.getRecords());
+        assertEquals(RECORDS, report.getInserted());
+        assertEquals(1, report.getSkipped());
+        assertEquals(1, report.getUnresolved());
+        assertEquals(0, report.getUpdated());
+        assertEquals(RECORDS, libraryEventsRepository.count());
+    }
+
+    private static LibraryEvent libraryEvent(int bookId, String bookName) {
+        return LibraryEvent.builder()
+                .libraryEventType(LibraryEventType.NEW)
+                .book(Book.builder()
+                        .bookId(bookId)
+                        .bookName(bookName)
+                        .bookAuthor("Dilip")
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,196 @@
+package com.learnkafka.consumer;
+
+import com.learnkafka.service.DatabaseCircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ConcurrencyAutoscalerUnitTest {
+    @Mock
+    KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+    @Mock
+    ConsumerLagMetrics consumerLagMetrics;
+
+    @Mock
+    DatabaseCircuitBreaker databaseCircuitBreaker;
+
+    @Mock
+    ConcurrentMessageListenerContainer<Object, Object> container;
+
+    @Spy
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    ConcurrencyAutoscaler concurrencyAutoscaler;
+
+    @BeforeEach
+    public void setUp() {
+        concurrencyAutoscaler.listenerId = "library-events-listener";
+        concurrencyAutoscaler.topic = "library-events";
+        concurrencyAutoscaler.minConcurrency = 1;
+        concurrencyAutoscaler.maxConcurrency = 12;
+        concurrencyAutoscaler.targetDrainSeconds = 60;
+        concurrencyAutoscaler.scaleUpSamples = 2;
+        concurrencyAutoscaler.scaleDownSamples = 3;
+        concurrencyAutoscaler.init();
+
+        when(kafkaListenerEndpointRegistry.getListenerContainer("library-events-listener"))
+                .thenReturn(container);
+        when(databaseCircuitBreaker.isClosed())
+                .thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("Must size concurrency from the incoming rate, the lag and the processing time.")
+    public void decideTest() {
+        // 100 records/s arriving, 10 ms each => 1 thread, plus 6000 lagging records to drain in 60 s => 1 more
+        assertEquals(2, concurrencyAutoscaler.decide(3, 6, 6000, 100, 10));
+
+        // never more threads than partitions, never fewer than the minimum
+        assertEquals(6, concurrencyAutoscaler.decide(3, 6, 1_000_000, 100, 10));
+        assertEquals(1, concurrencyAutoscaler.decide(3, 6, 0, 0, 0));
+
+        // no processing time yet but lag is building up => probe one more thread
+        assertEquals(4, concurrencyAutoscaler.decide(3, 6, 500, 0, 0));
+    }
+
+    @Test
+    @DisplayName("Must scale up only after consecutive samples agree.")
+    public void scaleUpTest() {
+        // When
+        concurrencyAutoscaler.onSample(3, 12, 60_000, 500, 10);
+
+        // Then
+        verify(container, never())
+                .stop(any(Runnable.class));
+
+        // When
+        concurrencyAutoscaler.onSample(3, 12, 60_000, 500, 10);
+
+        // Then
+        verify(container)
+                .stop(any(Runnable.class));
+        assertEquals(12, lastDecision().get("to"));
+        assertEquals(1.0, meterRegistry.get("library.events.consumer.autoscaler.decisions").tag("direction", "up").counter().count());
+    }
+
+    @Test
+    @DisplayName("Must scale down one step at a time and ignore flapping samples.")
+    public void scaleDownTest() {
+        // When
+        concurrencyAutoscaler.onSample(3, 3, 0, 0, 0);
+        concurrencyAutoscaler.onSample(3, 3, 0, 0, 0);
+        concurrencyAutoscaler.onSample(3, 3, 60_000, 500, 10);
+        concurrencyAutoscaler.onSample(3, 3, 0, 0, 0);
+        concurrencyAutoscaler.onSample(3, 3, 0, 0, 0);
+
+        // Then
+        verify(container, never())
+                .stop(any(Runnable.class));
+
+        // When
+        concurrencyAutoscaler.onSample(3, 3, 0, 0, 0);
+
+        // Then
+        verify(container)
+                .stop(any(Runnable.class));
+        assertEquals(2, lastDecision().get("to"));
+    }
+
+    @Test
+    @DisplayName("Must not scale while the database circuit is open.")
+    public void circuitOpenTest() {
+        // Given
+        when(databaseCircuitBreaker.isClosed())
+                .thenReturn(false);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            concurrencyAutoscaler.onSample(3, 12, 60_000, 500, 10);
+        }
+
+        // Then
+        verify(container, never())
+                .stop(any(Runnable.class));
+    }
+
+    @Test
+    @DisplayName("Must take the lag from the records-lag of the container's assigned partitions.")
+    public void sampleLagTest() {
+        // Given
+        TopicPartition partition0 = new TopicPartition("library-events", 0);
+        TopicPartition partition1 = new TopicPartition("library-events", 1);
+        TopicPartition partition2 = new TopicPartition("library-events", 2);
+        Map<TopicPartition, Double> lags = new HashMap<>();
+        lags.put(partition0, 40.0);
+        lags.put(partition1, Double.NaN);
+        lags.put(partition2, 2.0);
+        lags.put(new TopicPartition("library-events", 3), 1000.0);
+        when(consumerLagMetrics.getLags())
+                .thenReturn(lags);
+        when(container.isRunning())
+                .thenReturn(true);
+        when(container.getConcurrency())
+                .thenReturn(1);
+        when(container.getAssignedPartitions())
+                .thenReturn(Arrays.asList(partition0, partition1, partition2));
+
+        // When
+        concurrencyAutoscaler.sample();
+
+        // Then
+        Map<String, Object> snapshot = concurrencyAutoscaler.snapshot();
+        assertEquals(42L, snapshot.get("lag"));
+        assertEquals(2, ((Map<String, Long>) snapshot.get("partitionLag")).size());
+    }
+
+    @Test
+    @DisplayName("Must not restart the container again within the cooldown after a change.")
+    public void cooldownTest() {
+        // Given
+        concurrencyAutoscaler.cooldownMs = 60_000;
+        concurrencyAutoscaler.onSample(3, 12, 60_000, 500, 10);
+        concurrencyAutoscaler.onSample(3, 12, 60_000, 500, 10);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            concurrencyAutoscaler.onSample(12, 12, 0, 0, 0);
+        }
+
+        // Then
+        verify(container, times(1))
+                .stop(any(Runnable.class));
+        assertEquals(1, concurrencyAutoscaler.snapshot().get("desired"));
+    }
+
+    private Map<String, Object> lastDecision() {
+        return ((List<Map<String, Object>>) concurrencyAutoscaler.snapshot().get("decisions")).get(0);
+    }
+}
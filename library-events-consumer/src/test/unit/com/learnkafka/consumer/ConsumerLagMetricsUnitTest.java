@@ -0,0 +1,58 @@
+package com.learnkafka.consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConsumerLagMetricsUnitTest {
+    private SimpleMeterRegistry meterRegistry;
+
+    private ConsumerLagMetrics consumerLagMetrics;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        consumerLagMetrics = new ConsumerLagMetrics();
+        consumerLagMetrics.meterRegistry = meterRegistry;
+    }
+
+    @Test
+    @DisplayName("Must publish a lag gauge per assigned partition.")
+    public void updateTest() {
+        // Given
+        Map<TopicPartition, Double> lags = new HashMap<>();
+        lags.put(new TopicPartition("library-events", 0), 12.0);
+        lags.put(new TopicPartition("library-events", 1), 0.0);
+
+        // When
+        consumerLagMetrics.update(lags);
+
+        // Then
+        assertEquals(12.0, meterRegistry.get(ConsumerLagMetrics.LAG).tag("partition", "0").gauge().value());
+        assertEquals(0.0, meterRegistry.get(ConsumerLagMetrics.LAG).tag("partition", "1").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Must report NaN for partitions no longer assigned.")
+    public void revokedPartitionTest() {
+        // Given
+        consumerLagMetrics.update(Collections.singletonMap(new TopicPartition("library-events", 0), 12.0));
+
+        // When
+        consumerLagMetrics.update(Collections.singletonMap(new TopicPartition("library-events", 1), 3.0));
+
+        // Then
+        assertTrue(Double.isNaN(meterRegistry.get(ConsumerLagMetrics.LAG).tag("partition", "0").gauge().value()));
+        assertEquals(3.0, meterRegistry.get(ConsumerLagMetrics.LAG).tag("partition", "1").gauge().value());
+    }
+}
@@ -0,0 +1,88 @@
+package com.learnkafka.consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KeyOrderedExecutorUnitTest {
+    private KeyOrderedExecutor keyOrderedExecutor;
+
+    @BeforeEach
+    public void setUp() {
+        keyOrderedExecutor = new KeyOrderedExecutor("test-worker", 4, 10);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        keyOrderedExecutor.close();
+    }
+
+    @Test
+    @DisplayName("Must run tasks sharing a key in submission order.")
+    public void perKeyOrderTest() throws InterruptedException {
+        // Given
+        int keys = 8;
+        int tasksPerKey = 200;
+        Map<Integer, List<Integer>> executed = new ConcurrentHashMap<>();
+        CountDownLatch latch = new CountDownLatch(keys * tasksPerKey);
+
+        // When
+        for (int sequence = 0; sequence < tasksPerKey; sequence++) {
+            for (int key = 0; key < keys; key++) {
+                int currentKey = key;
+                int currentSequence = sequence;
+                keyOrderedExecutor.execute(key, () -> {
+                    executed.computeIfAbsent(currentKey, k -> Collections.synchronizedList(new ArrayList<>())).add(currentSequence);
+                    latch.countDown();
+                });
+            }
+        }
+
+        // Then
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        List<Integer> expected = IntStream.range(0, tasksPerKey).boxed().collect(Collectors.toList());
+        executed.values().forEach(sequences -> assertEquals(expected, sequences));
+    }
+
+    @Test
+    @DisplayName("Must run different keys on different workers.")
+    public void parallelismTest() throws InterruptedException {
+        // Given
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        CountDownLatch started = new CountDownLatch(4);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // When
+        for (int key = 0; key < 4; key++) {
+            keyOrderedExecutor.execute(key, () -> {
+                threads.add(Thread.currentThread().getName());
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        // Then
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(4, threads.size());
+        release.countDown();
+    }
+}
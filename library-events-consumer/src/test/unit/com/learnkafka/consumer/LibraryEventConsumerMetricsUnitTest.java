@@ -0,0 +1,96 @@
+package com.learnkafka.consumer;
+
+import com.learnkafka.entity.LibraryEvent;
+import com.learnkafka.serialization.LibraryEventDeserializer;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LibraryEventConsumerMetricsUnitTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final LibraryEventConsumerMetrics libraryEventConsumerMetrics = new LibraryEventConsumerMetrics();
+
+    @BeforeEach
+    public void setUp() {
+        libraryEventConsumerMetrics.meterRegistry = meterRegistry;
+
+        // the deserializer is created by the Kafka client, so its timer stays on the global registry
+        Metrics.addRegistry(meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Must record the end to end latency from the record timestamp per topic.")
+    public void recordCommittedTest() {
+        // Given
+        ConsumerRecord<Integer, LibraryEvent> consumerRecord = new ConsumerRecord<>("library-events", 0, 0L, System.currentTimeMillis() - 250, TimestampType.CREATE_TIME, 0L, 0, 0, null, null);
+
+        // When
+        libraryEventConsumerMetrics.recordCommitted(consumerRecord);
+
+        // Then
+        assertEquals(1, meterRegistry.get(LibraryEventConsumerMetrics.END_TO_END_LATENCY).tag("topic", "library-events").timer().count());
+        assertTrue(meterRegistry.get(LibraryEventConsumerMetrics.END_TO_END_LATENCY).tag("topic", "library-events").timer().totalTime(TimeUnit.MILLISECONDS) >= 250);
+    }
+
+    @Test
+    @DisplayName("Must count retries and dead letters by root exception type.")
+    public void retryOutcomeTest() {
+        // Given
+        LibraryEventsRetryRouter libraryEventsRetryRouter = new LibraryEventsRetryRouter();
+        libraryEventsRetryRouter.libraryEventConsumerMetrics = libraryEventConsumerMetrics;
+        ConsumerRecord<Integer, LibraryEvent> consumerRecord = new ConsumerRecord<>("library-events", 0, 0L, null, null);
+
+        // When
+        libraryEventsRetryRouter.destination(consumerRecord, new ListenerExecutionFailedException("Listener failed", new RecoverableDataAccessException("Temporary network issue")));
+        libraryEventsRetryRouter.destination(consumerRecord, new ListenerExecutionFailedException("Listener failed", new IllegalArgumentException("Library Event Id is null.")));
+        libraryEventConsumerMetrics.recordRecovery(RetryTier.RETRY_1S);
+
+        // Then
+        assertEquals(1.0, meterRegistry.get(LibraryEventConsumerMetrics.RETRIES)
+                .tag("tier", RetryTier.RETRY_1S.getTopic())
+                .tag("exception", "RecoverableDataAccessException")
+                .counter()
+                .count());
+        assertEquals(1.0, meterRegistry.get(LibraryEventConsumerMetrics.DEAD_LETTERS)
+                .tag("exception", "IllegalArgumentException")
+                .counter()
+                .count());
+        assertEquals(1.0, meterRegistry.get(LibraryEventConsumerMetrics.RECOVERIES)
+                .tag("tier", RetryTier.RETRY_1S.getTopic())
+                .counter()
+                .count());
+    }
+
+    @Test
+    @DisplayName("Must time library event deserialization per wire format.")
+    public void deserializationTimerTest() {
+        // Given
+        LibraryEventDeserializer libraryEventDeserializer = new LibraryEventDeserializer();
+        byte[] data = "{\"libraryEventId\":null,\"libraryEventType\":\"NEW\",\"book\":{\"bookId\":1,\"bookName\":\"Kafka Streams\",\"bookAuthor\":\"Dilip\"}}".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        libraryEventDeserializer.deserialize("library-events", data);
+
+        // Then
+        assertEquals(1, meterRegistry.get(LibraryEventDeserializer.DESERIALIZATION_TIMER).tag("format", "json").timer().count());
+    }
+}
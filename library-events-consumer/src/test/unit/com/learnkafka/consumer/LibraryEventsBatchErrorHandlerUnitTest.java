@@ -0,0 +1,92 @@
+package com.learnkafka.consumer;
+
+import com.learnkafka.service.BatchProcessingException;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class LibraryEventsBatchErrorHandlerUnitTest {
+    private final LibraryEventsBatchErrorHandler libraryEventsBatchErrorHandler = new LibraryEventsBatchErrorHandler();
+
+    private final Consumer<?, ?> consumer = mock(Consumer.class);
+
+    private final MessageListenerContainer container = mock(MessageListenerContainer.class);
+
+    private final TopicPartition partition0 = new TopicPartition("library-events", 0);
+
+    private final TopicPartition partition1 = new TopicPartition("library-events", 1);
+
+    @Test
+    @DisplayName("Must seek back to the first unprocessed record of each partition without committing the batch.")
+    public void resumeOffsetsTest() {
+        // Given
+        Exception exception = new ListenerExecutionFailedException("Listener failed",
+                new BatchProcessingException(Collections.singletonMap(partition1, 7L), new KafkaException("Failed to publish")));
+
+        // When
+        libraryEventsBatchErrorHandler.handle(exception, consumerRecords(), consumer, container);
+
+        // Then
+        verify(consumer)
+                .seek(partition1, 7L);
+        verify(consumer, never())
+                .seek(partition0, 3L);
+        assertFalse(libraryEventsBatchErrorHandler.isAckAfterHandle());
+    }
+
+    @Test
+    @DisplayName("Must seek every partition back to the start of the batch when the failure carries no position.")
+    public void unknownFailureTest() {
+        // Given
+        Exception exception = new ListenerExecutionFailedException("Listener failed", new IllegalStateException("Unexpected"));
+
+        // When
+        libraryEventsBatchErrorHandler.handle(exception, consumerRecords(), consumer, container);
+
+        // Then
+        verify(consumer)
+                .seek(partition0, 3L);
+        verify(consumer)
+                .seek(partition1, 6L);
+        verify(consumer, never())
+                .seek(partition1, 7L);
+    }
+
+    @Test
+    @DisplayName("Must not fail when the batch records are not available.")
+    public void noRecordsTest() {
+        // When
+        libraryEventsBatchErrorHandler.handle(new IllegalStateException("Unexpected"), null, consumer, container);
+
+        // Then
+        verify(consumer, never())
+                .seek(any(TopicPartition.class), anyLong());
+    }
+
+    private ConsumerRecords<Integer, Object> consumerRecords() {
+        Map<TopicPartition, List<ConsumerRecord<Integer, Object>>> records = new HashMap<>();
+        records.put(partition0, Arrays.asList(new ConsumerRecord<>("library-events", 0, 3L, 1, null), new ConsumerRecord<>("library-events", 0, 4L, 2, null)));
+        records.put(partition1, Arrays.asList(new ConsumerRecord<>("library-events", 1, 6L, 3, null), new ConsumerRecord<>("library-events", 1, 7L, 4, null)));
+
+        return new ConsumerRecords<>(records);
+    }
+}
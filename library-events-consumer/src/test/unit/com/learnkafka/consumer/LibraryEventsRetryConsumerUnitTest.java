@@ -0,0 +1,58 @@
+package com.learnkafka.consumer;
+
+import com.learnkafka.entity.LibraryEvent;
+import com.learnkafka.service.LibraryEventsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class LibraryEventsRetryConsumerUnitTest {
+    @Mock
+    LibraryEventsService libraryEventsService;
+
+    @Spy
+    LibraryEventConsumerMetrics libraryEventConsumerMetrics;
+
+    @InjectMocks
+    LibraryEventsRetryConsumer libraryEventsRetryConsumer;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void setUp() {
+        libraryEventConsumerMetrics.meterRegistry = meterRegistry;
+    }
+
+    @Test
+    @DisplayName("Must count a recovery only when the retried record was persisted.")
+    public void recoveryTest() {
+        // Given
+        ConsumerRecord<Integer, LibraryEvent> persisted = new ConsumerRecord<>(RetryTier.RETRY_1S.getTopic(), 0, 0L, 1, null);
+        ConsumerRecord<Integer, LibraryEvent> redelivered = new ConsumerRecord<>(RetryTier.RETRY_1S.getTopic(), 0, 1L, 2, null);
+        when(libraryEventsService.processLibraryEvent(persisted))
+                .thenReturn(true);
+        when(libraryEventsService.processLibraryEvent(redelivered))
+                .thenReturn(false);
+
+        // When
+        libraryEventsRetryConsumer.onMessage(persisted);
+        libraryEventsRetryConsumer.onMessage(redelivered);
+
+        // Then
+        assertEquals(1.0, meterRegistry.get(LibraryEventConsumerMetrics.RECOVERIES)
+                .tag("tier", RetryTier.RETRY_1S.getTopic())
+                .counter()
+                .count());
+    }
+}
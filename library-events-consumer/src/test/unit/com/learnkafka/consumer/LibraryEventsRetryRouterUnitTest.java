@@ -0,0 +1,128 @@
+package com.learnkafka.consumer;
+
+import com.learnkafka.entity.LibraryEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.header.Headers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LibraryEventsRetryRouterUnitTest {
+    private LibraryEventsRetryRouter libraryEventsRetryRouter;
+
+    @BeforeEach
+    public void setUp() {
+        libraryEventsRetryRouter = new LibraryEventsRetryRouter();
+        libraryEventsRetryRouter.libraryEventConsumerMetrics = new LibraryEventConsumerMetrics();
+        libraryEventsRetryRouter.libraryEventConsumerMetrics.meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Must walk a recoverable failure through every retry tier before the dead letter topic.")
+    public void retryTiersTest() {
+        // Given
+        Exception exception = new ListenerExecutionFailedException("Listener failed", new RecoverableDataAccessException("Temporary network issue"));
+        ConsumerRecord<Integer, LibraryEvent> consumerRecord = consumerRecord("library-events", null);
+
+        // When / Then
+        for (RetryTier tier : RetryTier.values()) {
+            assertEquals(new TopicPartition(tier.getTopic(), -1), libraryEventsRetryRouter.destination(consumerRecord, exception));
+
+            consumerRecord = consumerRecord(tier.getTopic(), libraryEventsRetryRouter.retryHeaders(consumerRecord, exception));
+        }
+
+        assertEquals(new TopicPartition(LibraryEventsRetryRouter.DLT, -1), libraryEventsRetryRouter.destination(consumerRecord, exception));
+        assertEquals(RetryTier.values().length + 1, LibraryEventsRetryRouter.attempt(consumerRecord));
+    }
+
+    @Test
+    @DisplayName("Must send non recoverable failures straight to the dead letter topic.")
+    public void nonRecoverableTest() {
+        // Given
+        Exception exception = new ListenerExecutionFailedException("Listener failed", new IllegalArgumentException("Library Event Id is null."));
+        ConsumerRecord<Integer, LibraryEvent> consumerRecord = consumerRecord("library-events", null);
+
+        // When
+        TopicPartition destination = libraryEventsRetryRouter.destination(consumerRecord, exception);
+        Headers headers = libraryEventsRetryRouter.retryHeaders(consumerRecord, exception);
+
+        // Then
+        assertEquals(LibraryEventsRetryRouter.DLT, destination.topic());
+        assertNull(headers.lastHeader(LibraryEventsRetryRouter.DUE_AT_HEADER));
+        assertEquals(2, ByteBuffer.wrap(headers.lastHeader(LibraryEventsRetryRouter.ATTEMPT_HEADER).value()).getInt());
+    }
+
+    @Test
+    @DisplayName("Must stamp the time the record becomes due for the next tier.")
+    public void dueAtTest() {
+        // Given
+        long before = System.currentTimeMillis();
+        Exception exception = new RecoverableDataAccessException("Temporary network issue");
+
+        // When
+        ConsumerRecord<Integer, LibraryEvent> retried = consumerRecord(RetryTier.RETRY_1S.getTopic(), libraryEventsRetryRouter.retryHeaders(consumerRecord("library-events", null), exception));
+
+        // Then
+        long dueAt = LibraryEventsRetryRouter.dueAt(retried);
+        assertTrue(dueAt >= before + RetryTier.RETRY_1S.getDelayMs());
+        assertTrue(dueAt <= System.currentTimeMillis() + RetryTier.RETRY_1S.getDelayMs());
+    }
+
+    @Test
+    @DisplayName("Must fail the recovery when the retry tier topic does not acknowledge the record.")
+    @SuppressWarnings("unchecked")
+    public void publishFailureTest() {
+        // Given
+        KafkaTemplate<Integer, LibraryEvent> kafkaTemplate = mock(KafkaTemplate.class);
+        SettableListenableFuture<SendResult<Integer, LibraryEvent>> future = new SettableListenableFuture<>();
+        future.setException(new TimeoutException("Expiring 1 record(s)"));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(future);
+
+        libraryEventsRetryRouter.kafkaTemplate = kafkaTemplate;
+        libraryEventsRetryRouter.kafkaProperties = new KafkaProperties();
+        libraryEventsRetryRouter.sendTimeoutMs = 1000;
+        libraryEventsRetryRouter.init();
+
+        ConsumerRecord<Integer, LibraryEvent> consumerRecord = new ConsumerRecord<>("library-events", 0, 0L, 1, LibraryEvent.builder().libraryEventId(1).build());
+        Exception exception = new ListenerExecutionFailedException("Listener failed", new RecoverableDataAccessException("Temporary network issue"));
+
+        try {
+            // When / Then
+            KafkaException kafkaException = assertThrows(KafkaException.class, () -> libraryEventsRetryRouter.accept(consumerRecord, exception));
+            assertTrue(kafkaException.getCause() instanceof TimeoutException);
+        } finally {
+            libraryEventsRetryRouter.destroy();
+        }
+    }
+
+    private static ConsumerRecord<Integer, LibraryEvent> consumerRecord(String topic, Headers headers) {
+        ConsumerRecord<Integer, LibraryEvent> consumerRecord = new ConsumerRecord<>(topic, 0, 0L, 1, null);
+        if (headers != null) {
+            headers.forEach(header -> consumerRecord.headers().add(header));
+        }
+
+        return consumerRecord;
+    }
+}
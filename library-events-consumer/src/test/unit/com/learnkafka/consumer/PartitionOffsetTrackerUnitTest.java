@@ -0,0 +1,141 @@
+package com.learnkafka.consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PartitionOffsetTrackerUnitTest {
+    private PartitionOffsetTracker partitionOffsetTracker;
+
+    @BeforeEach
+    public void setUp() {
+        partitionOffsetTracker = new PartitionOffsetTracker();
+    }
+
+    @Test
+    @DisplayName("Must only commit up to the lowest offset still in flight.")
+    public void contiguousOffsetTest() {
+        // Given
+        for (long offset = 10; offset < 15; offset++) {
+            partitionOffsetTracker.dispatched(offset);
+        }
+
+        // When
+        partitionOffsetTracker.completed(10);
+        partitionOffsetTracker.completed(12);
+        partitionOffsetTracker.completed(13);
+
+        // Then
+        assertEquals(11, partitionOffsetTracker.commit(0));
+        assertEquals(2, partitionOffsetTracker.inFlight());
+
+        // When
+        partitionOffsetTracker.completed(11);
+        partitionOffsetTracker.completed(14);
+
+        // Then
+        assertEquals(15, partitionOffsetTracker.commit(0));
+    }
+
+    @Test
+    @DisplayName("Must not commit the same offset twice.")
+    public void noRepeatedCommitTest() {
+        // Given
+        partitionOffsetTracker.dispatched(0);
+        partitionOffsetTracker.completed(0);
+
+        // When
+        long first = partitionOffsetTracker.commit(0);
+        long second = partitionOffsetTracker.commit(0);
+
+        // Then
+        assertEquals(1, first);
+        assertEquals(-1, second);
+    }
+
+    @Test
+    @DisplayName("Must not commit before anything was dispatched.")
+    public void nothingDispatchedTest() {
+        // Then
+        assertEquals(-1, partitionOffsetTracker.commit(0));
+    }
+
+    @Test
+    @DisplayName("Must honour the commit interval.")
+    public void commitIntervalTest() {
+        // Given
+        partitionOffsetTracker.commit(1_000);
+
+        // Then
+        assertFalse(partitionOffsetTracker.isCommitDue(1_500, 1_000));
+        assertTrue(partitionOffsetTracker.isCommitDue(2_000, 1_000));
+    }
+
+    @Test
+    @DisplayName("Must report when in flight offsets could not be drained.")
+    public void awaitIdleTest() throws InterruptedException {
+        // Given
+        partitionOffsetTracker.dispatched(0);
+
+        // Then
+        assertFalse(partitionOffsetTracker.awaitIdle(20));
+
+        // When
+        partitionOffsetTracker.completed(0);
+
+        // Then
+        assertTrue(partitionOffsetTracker.awaitIdle(20));
+    }
+
+    @Test
+    @DisplayName("Must hold commits at a failed offset and rewind to it once everything before it completed.")
+    public void failedOffsetTest() {
+        // Given
+        for (long offset = 10; offset < 14; offset++) {
+            partitionOffsetTracker.dispatched(offset);
+        }
+        partitionOffsetTracker.completed(10);
+        partitionOffsetTracker.failed(12);
+        partitionOffsetTracker.completed(13);
+
+        // Then
+        assertEquals(-1, partitionOffsetTracker.rewindOffset());
+
+        // When
+        partitionOffsetTracker.completed(11);
+
+        // Then
+        assertEquals(12, partitionOffsetTracker.commit(0));
+        assertEquals(12, partitionOffsetTracker.rewindOffset());
+    }
+
+    @Test
+    @DisplayName("Must drop records from before a rewind until the rewound offset is redelivered.")
+    public void resumingAtTest() {
+        // Given
+        PartitionOffsetTracker resumed = PartitionOffsetTracker.resumingAt(12);
+
+        // Then
+        assertFalse(resumed.accepts(13));
+        assertTrue(resumed.accepts(12));
+        assertTrue(resumed.accepts(13));
+    }
+
+    @Test
+    @DisplayName("Must not wait for failed offsets while draining.")
+    public void awaitIdleFailedTest() throws InterruptedException {
+        // Given
+        partitionOffsetTracker.dispatched(0);
+
+        // When
+        partitionOffsetTracker.failed(0);
+
+        // Then
+        assertTrue(partitionOffsetTracker.awaitIdle(20));
+        assertEquals(0, partitionOffsetTracker.commit(0));
+    }
+}
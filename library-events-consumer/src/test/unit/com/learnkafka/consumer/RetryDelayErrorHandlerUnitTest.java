@@ -0,0 +1,132 @@
+package com.learnkafka.consumer;
+
+import com.learnkafka.service.DatabaseCircuitBreaker;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.kafka.listener.ContainerAwareErrorHandler;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RetryDelayErrorHandlerUnitTest {
+    private ContainerAwareErrorHandler delegate;
+
+    private TaskScheduler taskScheduler;
+
+    private DatabaseCircuitBreaker databaseCircuitBreaker;
+
+    private Consumer<?, ?> consumer;
+
+    private MessageListenerContainer container;
+
+    private RetryDelayErrorHandler retryDelayErrorHandler;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = mock(ContainerAwareErrorHandler.class);
+        taskScheduler = mock(TaskScheduler.class);
+        databaseCircuitBreaker = mock(DatabaseCircuitBreaker.class);
+        consumer = mock(Consumer.class);
+        container = mock(MessageListenerContainer.class);
+
+        retryDelayErrorHandler = new RetryDelayErrorHandler(delegate, taskScheduler, databaseCircuitBreaker);
+    }
+
+    @Test
+    @DisplayName("Must seek back and pause the tier until its head record is due, without committing it.")
+    public void retryNotDueTest() {
+        // Given
+        long dueAt = System.currentTimeMillis() + 10_000;
+        Exception exception = new ListenerExecutionFailedException("Listener failed", new RetryNotDueException("library-events-retry-10s", dueAt));
+        List<ConsumerRecord<?, ?>> records = Arrays.asList(
+                new ConsumerRecord<>("library-events-retry-10s", 0, 5L, 1, null),
+                new ConsumerRecord<>("library-events-retry-10s", 0, 6L, 2, null),
+                new ConsumerRecord<>("library-events-retry-10s", 1, 9L, 3, null)
+        );
+        when(databaseCircuitBreaker.isClosed())
+                .thenReturn(true);
+
+        // When
+        retryDelayErrorHandler.handle(exception, records, consumer, container);
+
+        // Then
+        verify(consumer)
+                .seek(new TopicPartition("library-events-retry-10s", 0), 5L);
+        verify(consumer)
+                .seek(new TopicPartition("library-events-retry-10s", 1), 9L);
+        verify(container)
+                .pause();
+        verify(delegate, never())
+                .handle(any(), any(), any(), any());
+        assertFalse(retryDelayErrorHandler.isAckAfterHandle());
+
+        // When
+        ArgumentCaptor<Runnable> resume = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler)
+                .schedule(resume.capture(), eq(Instant.ofEpochMilli(dueAt)));
+        resume.getValue().run();
+
+        // Then
+        verify(container)
+                .resume();
+    }
+
+    @Test
+    @DisplayName("Must leave the tier paused when the database circuit opened while it was waiting.")
+    public void retryNotDueCircuitOpenTest() {
+        // Given
+        Exception exception = new RetryNotDueException("library-events-retry-1s", System.currentTimeMillis() + 1_000);
+        when(databaseCircuitBreaker.isClosed())
+                .thenReturn(false);
+
+        // When
+        retryDelayErrorHandler.handle(exception, Arrays.asList(new ConsumerRecord<>("library-events-retry-1s", 0, 5L, 1, null)), consumer, container);
+        ArgumentCaptor<Runnable> resume = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler)
+                .schedule(resume.capture(), any(Instant.class));
+        resume.getValue().run();
+
+        // Then
+        verify(container, never())
+                .resume();
+    }
+
+    @Test
+    @DisplayName("Must hand any other failure to the delegate.")
+    public void delegateTest() {
+        // Given
+        Exception exception = new ListenerExecutionFailedException("Listener failed", new RecoverableDataAccessException("Temporary network issue"));
+        List<ConsumerRecord<?, ?>> records = Arrays.asList(new ConsumerRecord<>("library-events-retry-1s", 0, 5L, 1, null));
+        when(delegate.isAckAfterHandle())
+                .thenReturn(true);
+
+        // When
+        retryDelayErrorHandler.handle(exception, records, consumer, container);
+
+        // Then
+        verify(delegate)
+                .handle(exception, records, consumer, container);
+        verify(container, never())
+                .pause();
+        assertTrue(retryDelayErrorHandler.isAckAfterHandle());
+    }
+}
@@ -0,0 +1,181 @@
+package com.learnkafka.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learnkafka.entity.Book;
+import com.learnkafka.entity.LibraryEvent;
+import com.learnkafka.entity.LibraryEventType;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LibraryEventDeserializerUnitTest {
+    private final LibraryEventDeserializer libraryEventDeserializer = new LibraryEventDeserializer();
+
+    @Test
+    @DisplayName("Must deserialize library event straight from UTF-8 JSON bytes.")
+    public void deserializeTest() {
+        // Given
+        String json = "{\"libraryEventId\":1,\"libraryEventType\":\"UPDATE\",\"book\":" +
+                "{\"bookId\":456,\"bookName\":\"Kafka Using SpringBoot\",\"bookAuthor\":\"Dilip\"}}";
+
+        // When
+        LibraryEvent libraryEvent = libraryEventDeserializer.deserialize("library-events", json.getBytes(StandardCharsets.UTF_8));
+
+        // Then
+        assertEquals(1, libraryEvent.getLibraryEventId());
+        assertEquals(LibraryEventType.UPDATE, libraryEvent.getLibraryEventType());
+        assertEquals(456, libraryEvent.getBook().getBookId());
+    }
+
+    @Test
+    @DisplayName("Must round trip library event through the serializer.")
+    public void roundTripTest() {
+        // Given
+        String json = "{\"libraryEventId\":null,\"libraryEventType\":\"NEW\",\"book\":" +
+                "{\"bookId\":456,\"bookName\":\"Kafka Using SpringBoot\",\"bookAuthor\":\"Dilip\"}}";
+        LibraryEvent libraryEvent = libraryEventDeserializer.deserialize("library-events", json.getBytes(StandardCharsets.UTF_8));
+        libraryEvent.getBook().setLibraryEvent(libraryEvent);
+
+        // When
+        byte[] bytes = new LibraryEventSerializer().serialize("library-events", libraryEvent);
+
+        // Then
+        assertEquals(json, new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Must reject malformed payloads.")
+    public void deserializeMalformedTest() {
+        byte[] bytes = "{\"libraryEventId\":".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(SerializationException.class, () -> libraryEventDeserializer.deserialize("library-events", bytes));
+    }
+
+    @Test
+    @DisplayName("Must deserialize null payload as null.")
+    public void deserializeNullTest() {
+        assertNull(libraryEventDeserializer.deserialize("library-events", null));
+    }
+
+    @Test
+    @DisplayName("Must pick the binary decoder from the event-format header.")
+    public void deserializeBinaryTest() {
+        // Given
+        LibraryEvent libraryEvent = LibraryEvent.builder()
+                .libraryEventId(1)
+                .libraryEventType(LibraryEventType.UPDATE)
+                .book(Book.builder()
+                        .bookId(456)
+                        .bookName("Kafka Using SpringBoot")
+                        .bookAuthor("Dilip")
+                        .build())
+                .build();
+
+        Headers headers = new RecordHeaders();
+        byte[] bytes = new LibraryEventSerializer(new ObjectMapper(), LibraryEventWireFormat.BINARY_V1)
+                .serialize("library-events", headers, libraryEvent);
+
+        // When
+        LibraryEvent deserialized = libraryEventDeserializer.deserialize("library-events", headers, bytes);
+
+        // Then
+        assertEquals(1, deserialized.getLibraryEventId());
+        assertEquals(LibraryEventType.UPDATE, deserialized.getLibraryEventType());
+        assertEquals(456, deserialized.getBook().getBookId());
+        assertEquals("Kafka Using SpringBoot", deserialized.getBook().getBookName());
+        assertEquals("Dilip", deserialized.getBook().getBookAuthor());
+    }
+
+    @Test
+    @DisplayName("Must fall back to JSON whenever the event-format header is missing.")
+    public void deserializeWithoutHeaderTest() {
+        // Given
+        String json = "{\"libraryEventId\":1,\"libraryEventType\":\"UPDATE\",\"book\":" +
+                "{\"bookId\":456,\"bookName\":\"Kafka Using SpringBoot\",\"bookAuthor\":\"Dilip\"}}";
+
+        // When
+        LibraryEvent libraryEvent = libraryEventDeserializer.deserialize("library-events", new RecordHeaders(), json.getBytes(StandardCharsets.UTF_8));
+
+        // Then
+        assertEquals(456, libraryEvent.getBook().getBookId());
+    }
+
+    @Test
+    @DisplayName("Must reject unknown wire formats.")
+    public void deserializeUnknownWireFormatTest() {
+        Headers headers = new RecordHeaders();
+        headers.add(LibraryEventWireFormat.HEADER, "avro".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(SerializationException.class, () -> libraryEventDeserializer.deserialize("library-events", headers, new byte[]{1, 0}));
+    }
+
+    @Test
+    @DisplayName("Must reject truncated binary payloads.")
+    public void deserializeTruncatedBinaryTest() {
+        Headers headers = new RecordHeaders();
+        headers.add(LibraryEventWireFormat.HEADER, LibraryEventWireFormat.BINARY_V1.getHeaderValue());
+
+        assertThrows(SerializationException.class, () -> libraryEventDeserializer.deserialize("library-events", headers, new byte[]{1, 1, 0}));
+    }
+
+    @Test
+    @DisplayName("Must read the routing fields wherever they appear in the JSON object.")
+    public void routingFieldsOrderTest() {
+        // Given
+        String json = "{\"book\":{\"bookId\":456,\"bookName\":\"Kafka Using SpringBoot\",\"bookAuthor\":\"Dilip\"}," +
+                "\"libraryEventType\":\"UPDATE\",\"libraryEventId\":1}";
+
+        // When
+        LibraryEvent libraryEvent = libraryEventDeserializer.deserialize("library-events", json.getBytes(StandardCharsets.UTF_8));
+
+        // Then
+        assertEquals(1, libraryEvent.getLibraryEventId());
+        assertEquals(456, libraryEvent.getBook().getBookId());
+    }
+
+    @Test
+    @DisplayName("Must reject unknown or missing library event types before binding.")
+    public void deserializeInvalidTypeTest() {
+        byte[] unknownType = "{\"libraryEventId\":1,\"libraryEventType\":\"DELETE\",\"book\":{}}".getBytes(StandardCharsets.UTF_8);
+        byte[] missingType = "{\"libraryEventId\":1,\"book\":{}}".getBytes(StandardCharsets.UTF_8);
+        byte[] notAnObject = "[1, 2]".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(SerializationException.class, () -> libraryEventDeserializer.deserialize("library-events", unknownType));
+        assertThrows(SerializationException.class, () -> libraryEventDeserializer.deserialize("library-events", missingType));
+        assertThrows(SerializationException.class, () -> libraryEventDeserializer.deserialize("library-events", notAnObject));
+    }
+
+    @Test
+    @DisplayName("Must reject updates without libraryEventId in both wire formats.")
+    public void deserializeUpdateWithoutIdTest() {
+        // Given
+        byte[] json = "{\"libraryEventId\":null,\"libraryEventType\":\"UPDATE\",\"book\":{\"bookId\":456}}".getBytes(StandardCharsets.UTF_8);
+
+        Headers headers = new RecordHeaders();
+        byte[] binary = new LibraryEventSerializer(new ObjectMapper(), LibraryEventWireFormat.BINARY_V1)
+                .serialize("library-events", headers, LibraryEvent.builder()
+                        .libraryEventType(LibraryEventType.UPDATE)
+                        .build());
+
+        // Then
+        assertThrows(SerializationException.class, () -> libraryEventDeserializer.deserialize("library-events", json));
+        assertThrows(SerializationException.class, () -> libraryEventDeserializer.deserialize("library-events", headers, binary));
+    }
+
+    @Test
+    @DisplayName("Must reject unknown binary type codes.")
+    public void deserializeUnknownBinaryTypeTest() {
+        Headers headers = new RecordHeaders();
+        headers.add(LibraryEventWireFormat.HEADER, LibraryEventWireFormat.BINARY_V1.getHeaderValue());
+
+        assertThrows(SerializationException.class, () -> libraryEventDeserializer.deserialize("library-events", headers, new byte[]{1, 2, 9}));
+    }
+}
@@ -0,0 +1,107 @@
+package com.learnkafka.service;
+
+import com.learnkafka.entity.ConsumerOffset;
+import com.learnkafka.jpa.ConsumerOffsetRepository;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConsumerOffsetStoreUnitTest {
+    private ConsumerOffsetRepository consumerOffsetRepository;
+
+    private ConsumerOffsetStore consumerOffsetStore;
+
+    @BeforeEach
+    public void setUp() {
+        consumerOffsetRepository = mock(ConsumerOffsetRepository.class);
+
+        consumerOffsetStore = new ConsumerOffsetStore();
+        consumerOffsetStore.consumerOffsetRepository = consumerOffsetRepository;
+        consumerOffsetStore.enabled = true;
+        consumerOffsetStore.listenerMode = "record";
+        consumerOffsetStore.groupId = "library-events-listener-group";
+        consumerOffsetStore.init();
+    }
+
+    @Test
+    @DisplayName("Must store the offset after the processed record.")
+    public void storeTest() {
+        // When
+        consumerOffsetStore.store(new ConsumerRecord<>("library-events", 2, 41L, null, null));
+
+        // Then
+        verify(consumerOffsetRepository)
+                .advance("library-events-listener-group", "library-events", 2, 42L);
+    }
+
+    @Test
+    @DisplayName("Must seek assigned partitions to their stored offsets and leave unknown ones to Kafka.")
+    public void onPartitionsAssignedTest() {
+        // Given
+        TopicPartition stored = new TopicPartition("library-events", 0);
+        TopicPartition unknown = new TopicPartition("library-events", 1);
+        when(consumerOffsetRepository.findById(ConsumerOffset.idOf("library-events-listener-group", "library-events", 0)))
+                .thenReturn(Optional.of(ConsumerOffset.builder().nextOffset(17L).build()));
+        when(consumerOffsetRepository.findById(ConsumerOffset.idOf("library-events-listener-group", "library-events", 1)))
+                .thenReturn(Optional.empty());
+        Consumer<?, ?> consumer = mock(Consumer.class);
+
+        // When
+        consumerOffsetStore.onPartitionsAssigned(consumer, Arrays.asList(stored, unknown));
+
+        // Then
+        verify(consumer)
+                .seek(stored, 17L);
+        verify(consumer, never())
+                .seek(unknown, 0L);
+    }
+
+    @Test
+    @DisplayName("Must fall back to the Kafka committed offset when the database cannot be read.")
+    public void onPartitionsAssignedDatabaseFailureTest() {
+        // Given
+        when(consumerOffsetRepository.findById(anyString()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+        Consumer<?, ?> consumer = mock(Consumer.class);
+
+        // When
+        consumerOffsetStore.onPartitionsAssigned(consumer, Arrays.asList(new TopicPartition("library-events", 0)));
+
+        // Then
+        verify(consumer, never())
+                .seek(any(TopicPartition.class), anyLong());
+    }
+
+    @Test
+    @DisplayName("Must stay disabled in parallel listener mode.")
+    public void parallelListenerModeTest() {
+        // Given
+        consumerOffsetStore.listenerMode = "parallel";
+
+        // When
+        consumerOffsetStore.init();
+        consumerOffsetStore.store(new ConsumerRecord<>("library-events", 0, 0L, null, null));
+
+        // Then
+        assertFalse(consumerOffsetStore.isEnabled());
+        verify(consumerOffsetRepository, never())
+                .advance(anyString(), anyString(), anyInt(), anyLong());
+    }
+}
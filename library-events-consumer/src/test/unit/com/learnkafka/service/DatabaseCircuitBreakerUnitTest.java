@@ -0,0 +1,124 @@
+package com.learnkafka.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class DatabaseCircuitBreakerUnitTest {
+    @Mock
+    KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    DatabaseCircuitBreaker databaseCircuitBreaker;
+
+    private MessageListenerContainer messageListenerContainer;
+
+    @BeforeEach
+    public void setUp() {
+        messageListenerContainer = mock(MessageListenerContainer.class);
+        lenient().when(kafkaListenerEndpointRegistry.getListenerContainers())
+                .thenReturn(Collections.singletonList(messageListenerContainer));
+
+        databaseCircuitBreaker.failureThreshold = 3;
+        databaseCircuitBreaker.openDurationMs = 0;
+    }
+
+    @Test
+    @DisplayName("Must pause the listener containers after consecutive database failures.")
+    public void tripTest() {
+        // When
+        fail(3);
+
+        // Then
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, databaseCircuitBreaker.getState());
+        verify(messageListenerContainer)
+                .pause();
+        assertThrows(DatabaseUnavailableException.class, () -> databaseCircuitBreaker.run(() -> {
+        }));
+    }
+
+    @Test
+    @DisplayName("Must not trip on failures that are not caused by the database or are interleaved with successes.")
+    public void noTripTest() {
+        // When
+        fail(2);
+        databaseCircuitBreaker.run(() -> {
+        });
+        fail(2);
+        for (int i = 0; i < 5; i++) {
+            assertThrows(IllegalArgumentException.class, () -> databaseCircuitBreaker.run(() -> {
+                throw new IllegalArgumentException("Library Event Id is null.");
+            }));
+        }
+
+        // Then
+        assertEquals(DatabaseCircuitBreaker.State.CLOSED, databaseCircuitBreaker.getState());
+        verify(messageListenerContainer, never())
+                .pause();
+    }
+
+    @Test
+    @DisplayName("Must resume the listener containers once the half-open probe succeeds.")
+    public void probeSuccessTest() {
+        // Given
+        fail(3);
+        when(jdbcTemplate.queryForObject("SELECT 1", Integer.class))
+                .thenReturn(1);
+
+        // When
+        databaseCircuitBreaker.probe();
+
+        // Then
+        assertEquals(DatabaseCircuitBreaker.State.CLOSED, databaseCircuitBreaker.getState());
+        verify(messageListenerContainer)
+                .resume();
+    }
+
+    @Test
+    @DisplayName("Must stay open when the half-open probe fails.")
+    public void probeFailureTest() {
+        // Given
+        fail(3);
+        when(jdbcTemplate.queryForObject("SELECT 1", Integer.class))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        // When
+        databaseCircuitBreaker.probe();
+
+        // Then
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, databaseCircuitBreaker.getState());
+        verify(messageListenerContainer, never())
+                .resume();
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertThrows(CannotAcquireLockException.class, () -> databaseCircuitBreaker.run(() -> {
+                throw new CannotAcquireLockException("Lock wait timeout");
+            }));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.learnkafka.service;
+
+import com.learnkafka.entity.Book;
+import com.learnkafka.entity.LibraryEvent;
+import com.learnkafka.entity.LibraryEventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LibraryEventCacheUnitTest {
+    private static final TopicPartition PARTITION_0 = new TopicPartition("library-events", 0);
+
+    private static final TopicPartition PARTITION_1 = new TopicPartition("library-events", 1);
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private LibraryEventCache libraryEventCache;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        libraryEventCache = new LibraryEventCache();
+        libraryEventCache.meterRegistry = meterRegistry;
+        libraryEventCache.enabled = true;
+        libraryEventCache.listenerMode = "batch";
+        libraryEventCache.maxEntriesPerPartition = 2;
+        libraryEventCache.ttlMs = 60_000;
+        libraryEventCache.init();
+    }
+
+    @Test
+    @DisplayName("Must report the ids written through a partition as cached.")
+    public void containsTest() {
+        // Given
+        libraryEventCache.put(PARTITION_0, libraryEvent(1, LibraryEventType.NEW, "Kafka Using SpringBoot"));
+
+        // Then
+        assertTrue(libraryEventCache.contains(PARTITION_0, 1));
+        assertFalse(libraryEventCache.contains(PARTITION_1, 1));
+        assertFalse(libraryEventCache.contains(PARTITION_0, 2));
+        assertFalse(libraryEventCache.contains(PARTITION_0, null));
+    }
+
+    @Test
+    @DisplayName("Must derive the hit ratio from the recorded lookups only.")
+    public void hitRatioTest() {
+        // Given
+        libraryEventCache.put(PARTITION_0, libraryEvent(1, LibraryEventType.UPDATE, "Kafka Using SpringBoot"));
+        libraryEventCache.contains(PARTITION_0, 1);
+        libraryEventCache.contains(PARTITION_0, 2);
+
+        // When
+        libraryEventCache.recordLookups(2, 1);
+
+        // Then
+        assertEquals(2.0 / 3, libraryEventCache.hitRatio(), 0.001);
+        assertEquals(2, meterRegistry.get("library.events.consumer.cache.requests").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("library.events.consumer.cache.requests").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Must evict the least recently used entry of a full partition.")
+    public void sizeEvictionTest() {
+        // Given
+        libraryEventCache.put(PARTITION_0, libraryEvent(1, LibraryEventType.UPDATE, "Kafka Using SpringBoot"));
+        libraryEventCache.put(PARTITION_0, libraryEvent(2, LibraryEventType.UPDATE, "Kafka Using SpringBoot"));
+        libraryEventCache.contains(PARTITION_0, 1);
+
+        // When
+        libraryEventCache.put(PARTITION_0, libraryEvent(3, LibraryEventType.UPDATE, "Kafka Using SpringBoot"));
+
+        // Then
+        assertEquals(2, libraryEventCache.size());
+        assertTrue(libraryEventCache.contains(PARTITION_0, 1));
+        assertFalse(libraryEventCache.contains(PARTITION_0, 2));
+    }
+
+    @Test
+    @DisplayName("Must expire entries after the time to live.")
+    public void ttlEvictionTest() {
+        // Given
+        libraryEventCache.ttlMs = 0;
+        libraryEventCache.put(PARTITION_0, libraryEvent(1, LibraryEventType.UPDATE, "Kafka Using SpringBoot"));
+
+        // Then
+        assertFalse(libraryEventCache.contains(PARTITION_0, 1));
+        assertEquals(0, libraryEventCache.size());
+    }
+
+    @Test
+    @DisplayName("Must drop the entries of revoked partitions and ids written through another partition.")
+    public void invalidationTest() {
+        // Given
+        libraryEventCache.put(PARTITION_0, libraryEvent(1, LibraryEventType.UPDATE, "Kafka Using SpringBoot"));
+        libraryEventCache.put(PARTITION_1, libraryEvent(2, LibraryEventType.UPDATE, "Kafka Using SpringBoot"));
+
+        // When
+        libraryEventCache.put(PARTITION_1, libraryEvent(1, LibraryEventType.UPDATE, "Kafka Streams"));
+        libraryEventCache.onPartitionsRevokedAfterCommit(null, Collections.singletonList(PARTITION_1));
+
+        // Then
+        assertEquals(0, libraryEventCache.size());
+        assertFalse(libraryEventCache.contains(PARTITION_0, 1));
+    }
+
+    @Test
+    @DisplayName("Must stay off outside the batch listener mode, where nothing reads it.")
+    public void recordModeTest() {
+        // Given
+        SimpleMeterRegistry recordModeRegistry = new SimpleMeterRegistry();
+        LibraryEventCache recordModeCache = new LibraryEventCache();
+        recordModeCache.meterRegistry = recordModeRegistry;
+        recordModeCache.enabled = true;
+        recordModeCache.listenerMode = "record";
+        recordModeCache.maxEntriesPerPartition = 2;
+        recordModeCache.ttlMs = 60_000;
+        recordModeCache.init();
+
+        // When
+        recordModeCache.put(PARTITION_0, libraryEvent(1, LibraryEventType.NEW, "Kafka Using SpringBoot"));
+
+        // Then
+        assertEquals(0, recordModeCache.size());
+        assertFalse(recordModeCache.contains(PARTITION_0, 1));
+        assertTrue(recordModeRegistry.getMeters().isEmpty());
+    }
+
+    private static LibraryEvent libraryEvent(Integer libraryEventId, LibraryEventType libraryEventType, String bookName) {
+        return LibraryEvent.builder()
+                .libraryEventId(libraryEventId)
+                .libraryEventType(libraryEventType)
+                .book(Book.builder()
+                        .bookId(123)
+                        .bookName(bookName)
+                        .bookAuthor("Dilip")
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,428 @@
+package com.learnkafka.service;
+
+import com.learnkafka.consumer.LibraryEventConsumerMetrics;
+import com.learnkafka.consumer.LibraryEventsRetryRouter;
+import com.learnkafka.entity.Book;
+import com.learnkafka.entity.LibraryEvent;
+import com.learnkafka.entity.LibraryEventType;
+import com.learnkafka.jpa.LibraryEventsRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.kafka.KafkaException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class LibraryEventsServiceUnitTest {
+    @Mock
+    LibraryEventsRepository libraryEventsRepository;
+
+    @Mock
+    LibraryEventsRetryRouter libraryEventsRetryRouter;
+
+    @Mock
+    TransactionTemplate transactionTemplate;
+
+    @Spy
+    DatabaseCircuitBreaker databaseCircuitBreaker;
+
+    @Mock
+    LibraryEventCache libraryEventCache;
+
+    @Mock
+    ConsumerOffsetStore consumerOffsetStore;
+
+    @Mock
+    RedeliveryDetector redeliveryDetector;
+
+    @Mock
+    LibraryEventConsumerMetrics libraryEventConsumerMetrics;
+
+    @InjectMocks
+    LibraryEventsService libraryEventsService;
+
+    @BeforeEach
+    public void setUp() {
+        databaseCircuitBreaker.failureThreshold = 5;
+
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+
+            return null;
+        }).when(libraryEventConsumerMetrics).timePersistence(any(), any());
+    }
+
+    @Test
+    @DisplayName("Must persist a batch of new and updated library events with one saveAll per type.")
+    public void processLibraryEventsTest() {
+        // Given
+        LibraryEvent existing = libraryEvent(7, LibraryEventType.NEW, 123, "Kafka Using SpringBoot");
+        when(libraryEventsRepository.findAllById(anyIterable()))
+                .thenReturn(Collections.singletonList(existing));
+
+        List<ConsumerRecord<Integer, LibraryEvent>> consumerRecords = Arrays.asList(
+                consumerRecord(0, libraryEvent(null, LibraryEventType.NEW, 1, "Kafka Streams")),
+                consumerRecord(1, libraryEvent(null, LibraryEventType.NEW, 2, "Kafka Connect")),
+                consumerRecord(2, libraryEvent(7, LibraryEventType.UPDATE, 123, "Kafka Using SpringBoot 2nd Edition"))
+        );
+
+        // When
+        libraryEventsService.processLibraryEvents(consumerRecords);
+
+        // Then
+        ArgumentCaptor<Iterable<LibraryEvent>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(libraryEventsRepository, times(2))
+                .saveAll(saved.capture());
+        assertEquals(2, ((List<LibraryEvent>) saved.getAllValues().get(0)).size());
+        assertEquals(LibraryEventType.UPDATE, existing.getLibraryEventType());
+        assertEquals("Kafka Using SpringBoot 2nd Edition", existing.getBook().getBookName());
+        verify(libraryEventsRepository, never())
+                .save(isA(LibraryEvent.class));
+    }
+
+    @Test
+    @DisplayName("Must fall back to per record processing whenever the bulk write fails.")
+    public void processLibraryEventsFallbackTest() {
+        // Given
+        when(libraryEventsRepository.findAllById(anyIterable()))
+                .thenReturn(Collections.emptyList());
+        when(libraryEventsRepository.applyUpdate(isA(LibraryEvent.class)))
+                .thenReturn(false);
+
+        LibraryEvent newLibraryEvent = libraryEvent(null, LibraryEventType.NEW, 1, "Kafka Streams");
+        List<ConsumerRecord<Integer, LibraryEvent>> consumerRecords = Arrays.asList(
+                consumerRecord(0, newLibraryEvent),
+                consumerRecord(1, libraryEvent(99, LibraryEventType.UPDATE, 123, "Kafka Using SpringBoot"))
+        );
+
+        // When
+        libraryEventsService.processLibraryEvents(consumerRecords);
+
+        // Then
+        verify(libraryEventsRepository)
+                .save(newLibraryEvent);
+        verify(libraryEventsRepository)
+                .applyUpdate(isA(LibraryEvent.class));
+    }
+
+    @Test
+    @DisplayName("Must process undecodable and invalid records one by one without failing the batch.")
+    public void processLibraryEventsInvalidRecordsTest() {
+        // Given
+        List<ConsumerRecord<Integer, LibraryEvent>> consumerRecords = Arrays.asList(
+                consumerRecord(0, null),
+                consumerRecord(1, libraryEvent(null, LibraryEventType.UPDATE, 123, "Kafka Using SpringBoot")),
+                consumerRecord(2, libraryEvent(null, LibraryEventType.NEW, 1, "Kafka Streams"))
+        );
+
+        // When
+        libraryEventsService.processLibraryEvents(consumerRecords);
+
+        // Then
+        ArgumentCaptor<Iterable<LibraryEvent>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(libraryEventsRepository)
+                .saveAll(saved.capture());
+        assertEquals(1, ((List<LibraryEvent>) saved.getValue()).size());
+        assertNull(((List<LibraryEvent>) saved.getValue()).get(0).getLibraryEventId());
+        verify(libraryEventsRetryRouter)
+                .accept(eq(consumerRecords.get(0)), any(IllegalArgumentException.class));
+        verify(libraryEventsRetryRouter)
+                .accept(eq(consumerRecords.get(1)), any(IllegalArgumentException.class));
+    }
+
+    @Test
+    @DisplayName("Must stop the batch at a record that could not be routed and resume from it.")
+    public void processLibraryEventsRoutingFailureTest() {
+        // Given
+        List<ConsumerRecord<Integer, LibraryEvent>> consumerRecords = Arrays.asList(
+                consumerRecord(0, libraryEvent(null, LibraryEventType.NEW, 1, "Kafka Streams")),
+                consumerRecord(1, null),
+                consumerRecord(2, null)
+        );
+        doThrow(new KafkaException("Failed to publish Library Event to library-events.DLT"))
+                .when(libraryEventsRetryRouter)
+                .accept(eq(consumerRecords.get(1)), any());
+
+        // When
+        BatchProcessingException batchProcessingException = assertThrows(BatchProcessingException.class, () -> libraryEventsService.processLibraryEvents(consumerRecords));
+
+        // Then
+        assertEquals(Collections.singletonMap(new TopicPartition("library-events", 0), 1L), batchProcessingException.getResumeOffsets());
+        verify(libraryEventsRetryRouter, never())
+                .accept(eq(consumerRecords.get(2)), any());
+    }
+
+    @Test
+    @DisplayName("Must hold a failed record on its partition instead of routing it while the database circuit is not closed.")
+    public void processIndividuallyCircuitOpenTest() {
+        // Given
+        ConsumerRecord<Integer, LibraryEvent> consumerRecord = consumerRecord(4, null);
+        doReturn(false)
+                .when(databaseCircuitBreaker)
+                .isClosed();
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> libraryEventsService.processIndividually(consumerRecord));
+        verify(libraryEventsRetryRouter, never())
+                .accept(any(), any());
+    }
+
+    @Test
+    @DisplayName("Must not count the simulated \"000\" outage as a database failure.")
+    public void processSimulatedOutageTest() {
+        // Given
+        databaseCircuitBreaker.failureThreshold = 1;
+        LibraryEvent libraryEvent = libraryEvent(000, LibraryEventType.UPDATE, 123, "Kafka Using SpringBoot");
+
+        // When
+        assertThrows(RecoverableDataAccessException.class, () -> libraryEventsService.processLibraryEvent(consumerRecord(0, libraryEvent)));
+
+        // Then
+        assertTrue(databaseCircuitBreaker.isClosed());
+    }
+
+    private static ConsumerRecord<Integer, LibraryEvent> consumerRecord(long offset, LibraryEvent libraryEvent) {
+        return new ConsumerRecord<>("library-events", 0, offset, libraryEvent == null ? null : libraryEvent.getLibraryEventId(), libraryEvent);
+    }
+
+    private static LibraryEvent libraryEvent(Integer libraryEventId, LibraryEventType libraryEventType, int bookId, String bookName) {
+        return LibraryEvent.builder()
+                .libraryEventId(libraryEventId)
+                .libraryEventType(libraryEventType)
+                .book(Book.builder()
+                        .bookId(bookId)
+                        .bookName(bookName)
+                        .bookAuthor("Dilip")
+                        .build())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Must apply an update through the single-statement repository path.")
+    public void processUpdateLibraryEventTest() {
+        // Given
+        LibraryEvent libraryEvent = libraryEvent(7, LibraryEventType.UPDATE, 123, "Kafka Using SpringBoot 2nd Edition");
+        when(libraryEventsRepository.applyUpdate(libraryEvent))
+                .thenReturn(true);
+
+        // When
+        libraryEventsService.processLibraryEvent(consumerRecord(0, libraryEvent));
+
+        // Then
+        verify(libraryEventsRepository)
+                .applyUpdate(libraryEvent);
+        verify(libraryEventsRepository, never())
+                .findById(7);
+    }
+
+    @Test
+    @DisplayName("Must reject an update of a non existing library event.")
+    public void processUpdateNonExistingLibraryEventTest() {
+        // Given
+        LibraryEvent libraryEvent = libraryEvent(7, LibraryEventType.UPDATE, 123, "Kafka Using SpringBoot 2nd Edition");
+        when(libraryEventsRepository.applyUpdate(libraryEvent))
+                .thenReturn(false);
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> libraryEventsService.processLibraryEvent(consumerRecord(0, libraryEvent)));
+    }
+
+    @Test
+    @DisplayName("Must always write an update, whatever the cache holds.")
+    public void processCachedLibraryEventTest() {
+        // Given
+        LibraryEvent libraryEvent = libraryEvent(7, LibraryEventType.UPDATE, 123, "Kafka Using SpringBoot");
+        when(libraryEventCache.contains(new TopicPartition("library-events", 0), 7))
+                .thenReturn(true);
+        when(libraryEventsRepository.applyUpdate(libraryEvent))
+                .thenReturn(true);
+
+        // When
+        libraryEventsService.processLibraryEvent(consumerRecord(0, libraryEvent));
+
+        // Then
+        verify(libraryEventsRepository)
+                .applyUpdate(libraryEvent);
+        verify(libraryEventCache)
+                .put(new TopicPartition("library-events", 0), libraryEvent);
+    }
+
+    @Test
+    @DisplayName("Must skip the batch lookup of cached ids and count the hits once the batch is saved.")
+    public void processLibraryEventsCacheHitTest() {
+        // Given
+        TopicPartition topicPartition = new TopicPartition("library-events", 0);
+        when(libraryEventCache.contains(topicPartition, 7))
+                .thenReturn(true);
+        when(libraryEventsRepository.applyUpdate(isA(LibraryEvent.class)))
+                .thenReturn(true);
+        LibraryEvent existing = libraryEvent(8, LibraryEventType.NEW, 124, "Kafka Streams");
+        when(libraryEventsRepository.findAllById(anyIterable()))
+                .thenReturn(Collections.singletonList(existing));
+
+        LibraryEvent cached = libraryEvent(7, LibraryEventType.UPDATE, 123, "Kafka Using SpringBoot 2nd Edition");
+        List<ConsumerRecord<Integer, LibraryEvent>> consumerRecords = Arrays.asList(
+                consumerRecord(0, cached),
+                consumerRecord(1, libraryEvent(8, LibraryEventType.UPDATE, 124, "Kafka Streams 2nd Edition"))
+        );
+
+        // When
+        libraryEventsService.processLibraryEvents(consumerRecords);
+
+        // Then
+        verify(libraryEventsRepository)
+                .applyUpdate(cached);
+        verify(libraryEventsRepository)
+                .findAllById(Collections.singleton(8));
+        assertEquals("Kafka Streams 2nd Edition", existing.getBook().getBookName());
+        verify(libraryEventCache)
+                .recordLookups(1, 1);
+    }
+
+    @Test
+    @DisplayName("Must not count cache hits of a batch that rolled back.")
+    public void processLibraryEventsCacheRollbackTest() {
+        // Given
+        when(libraryEventCache.contains(new TopicPartition("library-events", 0), 7))
+                .thenReturn(true);
+        when(libraryEventsRepository.applyUpdate(isA(LibraryEvent.class)))
+                .thenReturn(false);
+
+        List<ConsumerRecord<Integer, LibraryEvent>> consumerRecords = Collections.singletonList(
+                consumerRecord(0, libraryEvent(7, LibraryEventType.UPDATE, 123, "Kafka Using SpringBoot 2nd Edition"))
+        );
+
+        // When
+        libraryEventsService.processLibraryEvents(consumerRecords);
+
+        // Then
+        verify(libraryEventCache, never())
+                .recordLookups(anyInt(), anyInt());
+        verify(libraryEventCache)
+                .invalidate(7);
+    }
+
+    @Test
+    @DisplayName("Must store the next offset in the transaction that applies the record.")
+    public void processLibraryEventOffsetStoreTest() {
+        // Given
+        when(consumerOffsetStore.isEnabled())
+                .thenReturn(true);
+
+        LibraryEvent libraryEvent = libraryEvent(null, LibraryEventType.NEW, 1, "Kafka Streams");
+        ConsumerRecord<Integer, LibraryEvent> consumerRecord = consumerRecord(5, libraryEvent);
+
+        // When
+        libraryEventsService.processLibraryEvent(consumerRecord);
+
+        // Then
+        verify(transactionTemplate)
+                .executeWithoutResult(any());
+        verify(libraryEventsRepository)
+                .save(libraryEvent);
+        verify(consumerOffsetStore)
+                .store(consumerRecord);
+    }
+
+    @Test
+    @DisplayName("Must not store a batch offset past a record still to be processed on its own.")
+    public void processLibraryEventsOffsetStoreTest() {
+        // Given
+        when(consumerOffsetStore.isEnabled())
+                .thenReturn(true);
+
+        List<ConsumerRecord<Integer, LibraryEvent>> consumerRecords = Arrays.asList(
+                consumerRecord(0, libraryEvent(null, LibraryEventType.NEW, 1, "Kafka Streams")),
+                consumerRecord(1, null),
+                consumerRecord(2, libraryEvent(null, LibraryEventType.NEW, 2, "Kafka Connect"))
+        );
+
+        // When
+        libraryEventsService.processLibraryEvents(consumerRecords);
+
+        // Then
+        verify(consumerOffsetStore)
+                .storeAll(Collections.singletonMap(new TopicPartition("library-events", 0), 1L));
+        verify(libraryEventsRetryRouter)
+                .accept(eq(consumerRecords.get(1)), any(IllegalArgumentException.class));
+    }
+
+    @Test
+    @DisplayName("Must skip a redelivered record before it reaches the database.")
+    public void processRedeliveredLibraryEventTest() {
+        // Given
+        LibraryEvent libraryEvent = libraryEvent(null, LibraryEventType.NEW, 1, "Kafka Streams");
+        ConsumerRecord<Integer, LibraryEvent> consumerRecord = consumerRecord(3, libraryEvent);
+        when(redeliveryDetector.isDuplicate(consumerRecord))
+                .thenReturn(true);
+
+        // When
+        boolean persisted = libraryEventsService.processLibraryEvent(consumerRecord);
+        libraryEventsService.processLibraryEvents(Collections.singletonList(consumerRecord));
+
+        // Then
+        assertFalse(persisted);
+        verify(libraryEventsRepository, never())
+                .save(isA(LibraryEvent.class));
+        verify(libraryEventsRepository, never())
+                .saveAll(anyIterable());
+        verify(redeliveryDetector, never())
+                .processed(consumerRecord);
+    }
+
+    @Test
+    @DisplayName("Must mark a record as processed once it is applied.")
+    public void processLibraryEventMarksProcessedTest() {
+        // Given
+        ConsumerRecord<Integer, LibraryEvent> consumerRecord = consumerRecord(3, libraryEvent(null, LibraryEventType.NEW, 1, "Kafka Streams"));
+
+        // When
+        libraryEventsService.processLibraryEvent(consumerRecord);
+
+        // Then
+        verify(redeliveryDetector)
+                .processed(consumerRecord);
+    }
+}
@@ -0,0 +1,112 @@
+package com.learnkafka.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RedeliveryDetectorUnitTest {
+    private RedeliveryDetector redeliveryDetector;
+
+    @BeforeEach
+    public void setUp() {
+        redeliveryDetector = new RedeliveryDetector();
+        redeliveryDetector.meterRegistry = new SimpleMeterRegistry();
+        redeliveryDetector.enabled = true;
+        redeliveryDetector.windowSize = 8;
+        redeliveryDetector.init();
+    }
+
+    @Test
+    @DisplayName("Must skip processed offsets and count them as duplicates.")
+    public void isDuplicateTest() {
+        // Given
+        redeliveryDetector.processed(consumerRecord(0, 10));
+        redeliveryDetector.processed(consumerRecord(0, 11));
+        redeliveryDetector.processed(consumerRecord(0, 13));
+
+        // Then
+        assertTrue(redeliveryDetector.isDuplicate(consumerRecord(0, 10)));
+        assertTrue(redeliveryDetector.isDuplicate(consumerRecord(0, 13)));
+        assertFalse(redeliveryDetector.isDuplicate(consumerRecord(0, 12)));
+        assertFalse(redeliveryDetector.isDuplicate(consumerRecord(0, 9)));
+        assertFalse(redeliveryDetector.isDuplicate(consumerRecord(1, 10)));
+        assertEquals(2, redeliveryDetector.skippedDuplicates());
+    }
+
+    @Test
+    @DisplayName("Must advance the watermark over contiguous offsets completed out of order.")
+    public void watermarkTest() {
+        // Given
+        RedeliveryDetector.PartitionWindow partitionWindow = new RedeliveryDetector.PartitionWindow(8);
+
+        // When
+        partitionWindow.processed(0);
+        partitionWindow.processed(2);
+        partitionWindow.processed(3);
+        long beforeGap = partitionWindow.getWatermark();
+        partitionWindow.processed(1);
+
+        // Then
+        assertEquals(1, beforeGap);
+        assertEquals(4, partitionWindow.getWatermark());
+        assertTrue(partitionWindow.isProcessed(3));
+        assertFalse(partitionWindow.isProcessed(4));
+    }
+
+    @Test
+    @DisplayName("Must forget the oldest offsets instead of growing past the window.")
+    public void windowOverflowTest() {
+        // Given
+        RedeliveryDetector.PartitionWindow partitionWindow = new RedeliveryDetector.PartitionWindow(8);
+        partitionWindow.processed(0);
+        partitionWindow.processed(2);
+        partitionWindow.processed(5);
+
+        // When
+        partitionWindow.processed(12);
+
+        // Then
+        assertEquals(6, partitionWindow.getWatermark());
+        assertFalse(partitionWindow.isProcessed(0));
+        assertFalse(partitionWindow.isProcessed(2));
+        assertTrue(partitionWindow.isProcessed(5));
+        assertTrue(partitionWindow.isProcessed(12));
+        assertFalse(partitionWindow.isProcessed(11));
+    }
+
+    @Test
+    @DisplayName("Must treat a range rebuilt at startup as applied.")
+    public void processedRangeTest() {
+        // When
+        redeliveryDetector.processedRange(new TopicPartition("library-events", 0), 0, 100);
+
+        // Then
+        assertTrue(redeliveryDetector.isDuplicate(consumerRecord(0, 0)));
+        assertTrue(redeliveryDetector.isDuplicate(consumerRecord(0, 99)));
+        assertFalse(redeliveryDetector.isDuplicate(consumerRecord(0, 100)));
+    }
+
+    @Test
+    @DisplayName("Must not skip anything when disabled.")
+    public void disabledTest() {
+        // Given
+        redeliveryDetector.enabled = false;
+
+        // When
+        redeliveryDetector.processed(consumerRecord(0, 10));
+
+        // Then
+        assertFalse(redeliveryDetector.isDuplicate(consumerRecord(0, 10)));
+    }
+
+    private static ConsumerRecord<Integer, String> consumerRecord(int partition, long offset) {
+        return new ConsumerRecord<>("library-events", partition, offset, null, null);
+    }
+}
@@ -0,0 +1,86 @@
+package com.learnkafka.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate-samples log events carrying the {@link #SAMPLED} marker: only 1 in {@code sampleRate} is kept,
+ * capped at {@code maxPerSecond}. WARN and ERROR events, and events without the marker, always pass.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+    public static final Marker SAMPLED = MarkerFactory.getMarker("SAMPLED");
+
+    private final AtomicLong counter = new AtomicLong();
+
+    private final AtomicLong currentSecond = new AtomicLong();
+
+    private final AtomicInteger loggedInSecond = new AtomicInteger();
+
+    private final AtomicLong suppressed = new AtomicLong();
+
+    private int sampleRate = 1;
+
+    private int maxPerSecond;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (marker == null || !marker.contains(SAMPLED) || level == null || level.isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.DENY;
+        }
+
+        if (sampleRate > 1 && counter.incrementAndGet() % sampleRate != 0) {
+            suppressed.incrementAndGet();
+
+            return FilterReply.DENY;
+        }
+
+        if (maxPerSecond > 0 && !withinSecondCap()) {
+            suppressed.incrementAndGet();
+
+            return FilterReply.DENY;
+        }
+
+        return FilterReply.NEUTRAL;
+    }
+
+    private boolean withinSecondCap() {
+        long second = System.currentTimeMillis() / 1000;
+        long previous = currentSecond.get();
+        if (second != previous && currentSecond.compareAndSet(previous, second)) {
+            loggedInSecond.set(0);
+        }
+
+        return loggedInSecond.incrementAndGet() <= maxPerSecond;
+    }
+
+    public long getSuppressed() {
+        return suppressed.get();
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    public int getMaxPerSecond() {
+        return maxPerSecond;
+    }
+
+    public void setMaxPerSecond(int maxPerSecond) {
+        this.maxPerSecond = Math.max(0, maxPerSecond);
+    }
+}
@@ -0,0 +1,78 @@
+package com.learnkafka.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SamplingTurboFilterUnitTest {
+    private Logger logger;
+
+    private SamplingTurboFilter samplingTurboFilter;
+
+    @BeforeEach
+    public void setUp() {
+        logger = new LoggerContext().getLogger("library-events");
+        logger.setLevel(Level.INFO);
+
+        samplingTurboFilter = new SamplingTurboFilter();
+    }
+
+    @Test
+    @DisplayName("Must keep 1 in N sampled events.")
+    public void sampleRateTest() {
+        // Given
+        samplingTurboFilter.setSampleRate(10);
+
+        // When
+        int logged = countLogged(Level.INFO, 1000);
+
+        // Then
+        assertEquals(100, logged);
+        assertEquals(900, samplingTurboFilter.getSuppressed());
+    }
+
+    @Test
+    @DisplayName("Must cap sampled events per second.")
+    public void maxPerSecondTest() {
+        // Given
+        samplingTurboFilter.setMaxPerSecond(5);
+
+        // When
+        int logged = countLogged(Level.INFO, 100);
+
+        // Then
+        assertEquals(5, logged, 1);
+    }
+
+    @Test
+    @DisplayName("Must never drop warnings, errors or unmarked events.")
+    public void alwaysLoggedTest() {
+        // Given
+        samplingTurboFilter.setSampleRate(1000);
+        samplingTurboFilter.setMaxPerSecond(1);
+
+        // Then
+        assertEquals(100, countLogged(Level.WARN, 100));
+        assertEquals(100, countLogged(Level.ERROR, 100));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(FilterReply.NEUTRAL, samplingTurboFilter.decide(null, logger, Level.INFO, "event=test", null, null));
+        }
+    }
+
+    private int countLogged(Level level, int events) {
+        int logged = 0;
+        for (int i = 0; i < events; i++) {
+            if (samplingTurboFilter.decide(SamplingTurboFilter.SAMPLED, logger, level, "event=test", null, null) == FilterReply.NEUTRAL) {
+                logged++;
+            }
+        }
+
+        return logged;
+    }
+}
@@ -0,0 +1,34 @@
+package com.learnkafka.libraryeventsproducer.config;
+
+import com.learnkafka.libraryeventsproducer.spool.LibraryEventSpool;
+import com.learnkafka.libraryeventsproducer.spool.SpoolFsyncPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+@Configuration
+@ConditionalOnProperty(name = "library-events.producer.spool.enabled", havingValue = "true")
+public class LibraryEventSpoolConfig {
+    @Bean(destroyMethod = "close")
+    public LibraryEventSpool libraryEventSpool(
+            @Value("${library-events.producer.spool.directory:${java.io.tmpdir}/library-events-spool}") String directory,
+            @Value("${library-events.producer.spool.max-size:64MB}") DataSize maxSize,
+            @Value("${library-events.producer.spool.fsync-policy:INTERVAL}") SpoolFsyncPolicy fsyncPolicy,
+            MeterRegistry meterRegistry) throws IOException {
+        // a single memory-mapped segment is addressed with int positions
+        if (maxSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("library-events.producer.spool.max-size must be below 2GB, got " + maxSize);
+        }
+
+        LibraryEventSpool libraryEventSpool = new LibraryEventSpool(Paths.get(directory), Math.toIntExact(maxSize.toBytes()), fsyncPolicy);
+        libraryEventSpool.bindTo(meterRegistry);
+
+        return libraryEventSpool;
+    }
+}
@@ -0,0 +1,76 @@
+package com.learnkafka.libraryeventsproducer.config;
+
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import com.learnkafka.libraryeventsproducer.producer.SwitchableProducerFactory;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+
+@Configuration
+public class LibraryEventsProducerConfig {
+    @Autowired
+    KafkaProperties kafkaProperties;
+
+    @Bean
+    @Primary
+    public SwitchableProducerFactory<Integer, LibraryEvent> kafkaProducerFactory(
+            ObjectProvider<DefaultKafkaProducerFactoryCustomizer> customizers,
+            @Value("${library-events.producer.adaptive-batching.close-delay-ms:5000}") long closeDelayMs,
+            @Value("${library-events.producer.max-block-ms:2000}") long maxBlockMs) {
+        // Only request threads send through this factory; they must fail fast instead of waiting for buffer space
+        Map<String, Object> configs = kafkaProperties.buildProducerProperties();
+        configs.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMs);
+
+        DefaultKafkaProducerFactory<Integer, LibraryEvent> producerFactory = new DefaultKafkaProducerFactory<>(configs);
+        customizers.orderedStream()
+                .forEach(customizer -> customizer.customize(producerFactory));
+
+        return new SwitchableProducerFactory<>(producerFactory, Duration.ofMillis(closeDelayMs));
+    }
+
+    @Bean
+    @Primary
+    public KafkaTemplate<Integer, LibraryEvent> kafkaTemplate(SwitchableProducerFactory<Integer, LibraryEvent> kafkaProducerFactory) {
+        KafkaTemplate<Integer, LibraryEvent> kafkaTemplate = new KafkaTemplate<>(kafkaProducerFactory);
+        kafkaTemplate.setDefaultTopic(kafkaProperties.getTemplate().getDefaultTopic());
+
+        return kafkaTemplate;
+    }
+
+    @Bean
+    public DefaultKafkaProducerFactory<Integer, LibraryEvent> transactionalKafkaProducerFactory(
+            ObjectProvider<DefaultKafkaProducerFactoryCustomizer> customizers,
+            @Value("${library-events.producer.transaction-id-prefix:library-events-tx-}") String transactionIdPrefix) {
+        Map<String, Object> configs = kafkaProperties.buildProducerProperties();
+        configs.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configs.put(ProducerConfig.ACKS_CONFIG, "all");
+
+        DefaultKafkaProducerFactory<Integer, LibraryEvent> producerFactory = new DefaultKafkaProducerFactory<>(configs);
+        producerFactory.setTransactionIdPrefix(transactionIdPrefix);
+        customizers.orderedStream()
+                .forEach(customizer -> customizer.customize(producerFactory));
+
+        return producerFactory;
+    }
+
+    @Bean
+    public KafkaTemplate<Integer, LibraryEvent> transactionalKafkaTemplate(
+            @Qualifier("transactionalKafkaProducerFactory") DefaultKafkaProducerFactory<Integer, LibraryEvent> transactionalKafkaProducerFactory) {
+        KafkaTemplate<Integer, LibraryEvent> kafkaTemplate = new KafkaTemplate<>(transactionalKafkaProducerFactory);
+        kafkaTemplate.setDefaultTopic(kafkaProperties.getTemplate().getDefaultTopic());
+
+        return kafkaTemplate;
+    }
+}
@@ -0,0 +1,30 @@
+package com.learnkafka.libraryeventsproducer.config;
+
+import com.learnkafka.libraryeventsproducer.controller.AdmissionControlInterceptor;
+import com.learnkafka.libraryeventsproducer.producer.ProducerAdmissionControl;
+import com.learnkafka.libraryeventsproducer.spool.LibraryEventSpool;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    @Autowired
+    ProducerAdmissionControl producerAdmissionControl;
+
+    @Autowired(required = false)
+    LibraryEventSpool libraryEventSpool;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        InterceptorRegistration registration = registry.addInterceptor(new AdmissionControlInterceptor(producerAdmissionControl))
+                .addPathPatterns("/api/v1/libraryevent/**");
+
+        if (libraryEventSpool != null) {
+            // fire-and-forget writes are spooled instead of shed
+            registration.excludePathPatterns("/api/v1/libraryevent");
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.learnkafka.libraryeventsproducer.controller;
+
+import com.learnkafka.libraryeventsproducer.producer.ProducerAdmissionControl;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+    private final ProducerAdmissionControl producerAdmissionControl;
+
+    public AdmissionControlInterceptor(ProducerAdmissionControl producerAdmissionControl) {
+        this.producerAdmissionControl = producerAdmissionControl;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The async re-dispatch of an already admitted request only renders the completed future
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+
+        producerAdmissionControl.checkAdmission();
+
+        return true;
+    }
+}
@@ -1,7 +1,11 @@
 package com.learnkafka.libraryeventsproducer.controller;
 
+import com.learnkafka.libraryeventsproducer.producer.ProducerOverloadedException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.KafkaException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -27,4 +31,21 @@ public class LibraryEventControllerAdvice {
         return ResponseEntity.badRequest()
                 .body(errorMessage);
     }
+
+    @ExceptionHandler(KafkaException.class)
+    public ResponseEntity<?> handleSendFailure(KafkaException e) {
+        log.error("Library Event was not acknowledged by the broker: {}", e.getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body("Library Event was not acknowledged by the broker.");
+    }
+
+    @ExceptionHandler(ProducerOverloadedException.class)
+    public ResponseEntity<?> handleOverload(ProducerOverloadedException e) {
+        log.warn("{}", e.getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
 }
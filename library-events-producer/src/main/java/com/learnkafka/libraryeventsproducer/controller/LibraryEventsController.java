@@ -1,9 +1,12 @@
 package com.learnkafka.libraryeventsproducer.controller;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEventBatchResult;
 import com.learnkafka.libraryeventsproducer.domain.LibraryEventType;
+import com.learnkafka.libraryeventsproducer.producer.LibraryEventCoalescer;
 import com.learnkafka.libraryeventsproducer.producer.LibraryEventProducer;
+import com.learnkafka.libraryeventsproducer.service.LibraryEventBatchService;
+import com.learnkafka.logging.SamplingTurboFilter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -14,30 +17,39 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.print.attribute.standard.Media;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 @RestController
 @RequestMapping("/api/v1/libraryevent")
 @Slf4j
 public class LibraryEventsController {
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
     @Autowired
     LibraryEventProducer libraryEventProducer;
 
+    @Autowired
+    LibraryEventBatchService libraryEventBatchService;
+
+    @Autowired(required = false)
+    LibraryEventCoalescer libraryEventCoalescer;
+
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<LibraryEvent> postLibraryEvent(@RequestBody @Valid LibraryEvent libraryEvent) throws JsonProcessingException, ExecutionException, InterruptedException {
-        log.info("before sendLibraryEvent");
+    public ResponseEntity<LibraryEvent> postLibraryEvent(@RequestBody @Valid LibraryEvent libraryEvent) throws ExecutionException, InterruptedException {
+        log.info(SamplingTurboFilter.SAMPLED, "event=library_event_received type=NEW book_id={}", libraryEvent.getBook().getBookId());
 
         libraryEvent.setLibraryEventType(LibraryEventType.NEW);
-        libraryEventProducer.sendLibraryEvent(libraryEvent);
-
-        log.info("after sendLibraryEvent");
+        libraryEventProducer.publishLibraryEvent(libraryEvent);
 
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(libraryEvent);
     }
 
     @PutMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<?> putLibraryEvent(@RequestBody @Valid LibraryEvent libraryEvent) throws JsonProcessingException {
+    public ResponseEntity<?> putLibraryEvent(@RequestBody @Valid LibraryEvent libraryEvent) {
         if (libraryEvent.getLibraryEventId() == null) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body("Please, provide libraryEventId.");
@@ -45,8 +57,54 @@ public class LibraryEventsController {
 
         libraryEvent.setLibraryEventType(LibraryEventType.UPDATE);
 
-        libraryEventProducer.sendLibraryEvent(libraryEvent);
+        if (libraryEventCoalescer != null) {
+            libraryEventCoalescer.submit(libraryEvent);
+        } else {
+            libraryEventProducer.publishLibraryEvent(libraryEvent);
+        }
 
         return ResponseEntity.ok(libraryEvent);
     }
+
+    @PostMapping(path = "/acknowledged", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<LibraryEvent>> postLibraryEventAcknowledged(@RequestBody @Valid LibraryEvent libraryEvent) {
+        libraryEvent.setLibraryEventType(LibraryEventType.NEW);
+
+        return libraryEventProducer.sendLibraryEvent(libraryEvent)
+                .completable()
+                .thenApply(sendResult -> ResponseEntity.status(HttpStatus.CREATED)
+                        .body(libraryEvent));
+    }
+
+    @PutMapping(path = "/acknowledged", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<?>> putLibraryEventAcknowledged(@RequestBody @Valid LibraryEvent libraryEvent) {
+        if (libraryEvent.getLibraryEventId() == null) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                            .body("Please, provide libraryEventId.")
+            );
+        }
+
+        libraryEvent.setLibraryEventType(LibraryEventType.UPDATE);
+
+        return libraryEventProducer.sendLibraryEvent(libraryEvent)
+                .completable()
+                .thenApply(sendResult -> ResponseEntity.ok(libraryEvent));
+    }
+
+    @PostMapping(path = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON_VALUE}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<LibraryEventBatchResult> postLibraryEventBatch(InputStream body) throws IOException {
+        LibraryEventBatchResult libraryEventBatchResult = libraryEventBatchService.sendLibraryEventBatch(body);
+
+        log.info(
+                "Library Event batch of {} processed: {} accepted, {} invalid, {} failed",
+                libraryEventBatchResult.getTotal(),
+                libraryEventBatchResult.getAccepted(),
+                libraryEventBatchResult.getInvalid(),
+                libraryEventBatchResult.getFailed()
+        );
+
+        return ResponseEntity.status(libraryEventBatchResult.isFullyAccepted() ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS)
+                .body(libraryEventBatchResult);
+    }
 }
@@ -0,0 +1,24 @@
+package com.learnkafka.libraryeventsproducer.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LibraryEventBatchItemResult {
+    private int index;
+
+    private Integer libraryEventId;
+
+    private LibraryEventBatchItemStatus status;
+
+    private Integer partition;
+
+    private Long offset;
+
+    private String error;
+}
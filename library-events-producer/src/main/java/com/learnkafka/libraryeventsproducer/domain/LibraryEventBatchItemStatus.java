@@ -0,0 +1,7 @@
+package com.learnkafka.libraryeventsproducer.domain;
+
+public enum LibraryEventBatchItemStatus {
+    ACCEPTED,
+    INVALID,
+    FAILED
+}
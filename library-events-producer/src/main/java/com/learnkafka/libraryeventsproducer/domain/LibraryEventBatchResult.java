@@ -0,0 +1,28 @@
+package com.learnkafka.libraryeventsproducer.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LibraryEventBatchResult {
+    private int total;
+
+    private int accepted;
+
+    private int invalid;
+
+    private int failed;
+
+    private List<LibraryEventBatchItemResult> items;
+
+    public boolean isFullyAccepted() {
+        return accepted == total;
+    }
+}
@@ -0,0 +1,150 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Component
+@ConditionalOnProperty(name = "library-events.producer.adaptive-batching.enabled", havingValue = "true")
+@Slf4j
+public class AdaptiveBatchingManager {
+    @Autowired
+    SwitchableProducerFactory<?, ?> producerFactory;
+
+    @Autowired
+    KafkaTemplate<Integer, LibraryEvent> kafkaTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${library-events.producer.adaptive-batching.upper-send-rate:1000}")
+    double upperSendRate;
+
+    @Value("${library-events.producer.adaptive-batching.lower-send-rate:200}")
+    double lowerSendRate;
+
+    @Value("${library-events.producer.adaptive-batching.upper-fill-ratio:0.6}")
+    double upperFillRatio;
+
+    @Value("${library-events.producer.adaptive-batching.lower-fill-ratio:0.2}")
+    double lowerFillRatio;
+
+    @Value("${library-events.producer.adaptive-batching.required-samples:3}")
+    int requiredSamples;
+
+    private final Map<BatchingProfile, Counter> profileSwitches = new EnumMap<>(BatchingProfile.class);
+
+    private volatile BatchingProfile profile = BatchingProfile.LATENCY;
+
+    private volatile double sendRate;
+
+    private volatile double fillRatio;
+
+    private volatile double queueTimeAvg;
+
+    private BatchingProfile candidate;
+
+    private int candidateSamples;
+
+    @PostConstruct
+    public void init() {
+        producerFactory.updateConfigs(profile.toProducerConfigs());
+
+        for (BatchingProfile batchingProfile : BatchingProfile.values()) {
+            Gauge.builder("library.events.producer.batching.profile", this, manager -> manager.profile == batchingProfile ? 1 : 0)
+                    .description("1 for the batching profile currently applied to the producer")
+                    .tag("profile", batchingProfile.name().toLowerCase())
+                    .register(meterRegistry);
+
+            profileSwitches.put(batchingProfile, Counter.builder("library.events.producer.batching.switches")
+                    .description("Number of switches into a batching profile")
+                    .tag("profile", batchingProfile.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+
+        Gauge.builder("library.events.producer.batching.send.rate", this, manager -> manager.sendRate)
+                .description("Records sent per second at the last sample")
+                .register(meterRegistry);
+        Gauge.builder("library.events.producer.batching.fill.ratio", this, manager -> manager.fillRatio)
+                .description("Average batch size over the configured batch.size at the last sample")
+                .register(meterRegistry);
+        Gauge.builder("library.events.producer.batching.queue.time", this, manager -> manager.queueTimeAvg)
+                .description("Average milliseconds records spent in the send buffer at the last sample")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${library-events.producer.adaptive-batching.sample-interval-ms:5000}")
+    public void sample() {
+        Map<MetricName, ? extends Metric> metrics = kafkaTemplate.metrics();
+
+        onSample(
+                KafkaMetricValues.producerMetric(metrics, "record-send-rate"),
+                KafkaMetricValues.producerMetric(metrics, "batch-size-avg"),
+                KafkaMetricValues.producerMetric(metrics, "record-queue-time-avg")
+        );
+    }
+
+    synchronized void onSample(double sendRate, double batchSizeAvg, double queueTimeAvg) {
+        this.sendRate = sendRate;
+        this.fillRatio = batchSizeAvg / profile.getBatchSize();
+        this.queueTimeAvg = queueTimeAvg;
+
+        BatchingProfile next = decide(profile, this.sendRate, this.fillRatio);
+        if (next == profile) {
+            candidate = null;
+            candidateSamples = 0;
+
+            return;
+        }
+
+        candidateSamples = next == candidate ? candidateSamples + 1 : 1;
+        candidate = next;
+
+        if (candidateSamples >= requiredSamples) {
+            switchTo(next);
+        }
+    }
+
+    BatchingProfile decide(BatchingProfile current, double sendRate, double fillRatio) {
+        if (current == BatchingProfile.LATENCY && (sendRate >= upperSendRate || fillRatio >= upperFillRatio)) {
+            return BatchingProfile.THROUGHPUT;
+        }
+
+        if (current == BatchingProfile.THROUGHPUT && sendRate <= lowerSendRate && fillRatio <= lowerFillRatio) {
+            return BatchingProfile.LATENCY;
+        }
+
+        return current;
+    }
+
+    private void switchTo(BatchingProfile next) {
+        log.info("Switching producer batching profile from {} to {} (send rate {}/s, fill ratio {})", profile, next, sendRate, fillRatio);
+
+        // sends in flight finish on the previous producer, which is only closed once they had time to hand over
+        producerFactory.switchConfigs(next.toProducerConfigs());
+
+        profile = next;
+        candidate = null;
+        candidateSamples = 0;
+        profileSwitches.get(next).increment();
+    }
+
+    public BatchingProfile getProfile() {
+        return profile;
+    }
+}
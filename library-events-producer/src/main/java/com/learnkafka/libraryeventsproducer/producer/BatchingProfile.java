@@ -0,0 +1,45 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public enum BatchingProfile {
+    LATENCY(0, 16384, "none"),
+    THROUGHPUT(20, 131072, "lz4");
+
+    private final int lingerMs;
+
+    private final int batchSize;
+
+    private final String compressionType;
+
+    BatchingProfile(int lingerMs, int batchSize, String compressionType) {
+        this.lingerMs = lingerMs;
+        this.batchSize = batchSize;
+        this.compressionType = compressionType;
+    }
+
+    public int getLingerMs() {
+        return lingerMs;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public String getCompressionType() {
+        return compressionType;
+    }
+
+    public Map<String, Object> toProducerConfigs() {
+        Map<String, Object> configs = new HashMap<>();
+
+        configs.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configs.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configs.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+
+        return configs;
+    }
+}
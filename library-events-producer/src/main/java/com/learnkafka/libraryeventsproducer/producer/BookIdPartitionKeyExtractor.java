@@ -0,0 +1,10 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+
+public class BookIdPartitionKeyExtractor implements LibraryEventPartitionKeyExtractor {
+    @Override
+    public Object extractPartitionKey(LibraryEvent libraryEvent) {
+        return libraryEvent.getBook() == null ? null : libraryEvent.getBook().getBookId();
+    }
+}
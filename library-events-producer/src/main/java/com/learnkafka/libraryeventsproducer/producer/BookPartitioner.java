@@ -0,0 +1,72 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.clients.producer.internals.DefaultPartitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.utils.Utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+public class BookPartitioner implements Partitioner {
+    public static final String KEY_EXTRACTOR_CONFIG = "library-events.partitioner.key-extractor";
+
+    private final DefaultPartitioner defaultPartitioner = new DefaultPartitioner();
+
+    private LibraryEventPartitionKeyExtractor keyExtractor = new BookIdPartitionKeyExtractor();
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        defaultPartitioner.configure(configs);
+
+        Object keyExtractor = configs.get(KEY_EXTRACTOR_CONFIG);
+        if (keyExtractor != null) {
+            this.keyExtractor = Utils.newInstance(toClass(keyExtractor), LibraryEventPartitionKeyExtractor.class);
+        }
+    }
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        Object partitionKey = value instanceof LibraryEvent ? keyExtractor.extractPartitionKey((LibraryEvent) value) : null;
+        if (partitionKey == null) {
+            return defaultPartitioner.partition(topic, key, keyBytes, value, valueBytes, cluster);
+        }
+
+        int numPartitions = cluster.partitionsForTopic(topic).size();
+
+        return Utils.toPositive(Utils.murmur2(toBytes(partitionKey))) % numPartitions;
+    }
+
+    @Override
+    public void onNewBatch(String topic, Cluster cluster, int prevPartition) {
+        defaultPartitioner.onNewBatch(topic, cluster, prevPartition);
+    }
+
+    @Override
+    public void close() {
+        defaultPartitioner.close();
+    }
+
+    static byte[] toBytes(Object partitionKey) {
+        if (partitionKey instanceof Integer) {
+            return ByteBuffer.allocate(Integer.BYTES).putInt((Integer) partitionKey).array();
+        }
+
+        return partitionKey.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Class<?> toClass(Object keyExtractor) {
+        if (keyExtractor instanceof Class) {
+            return (Class<?>) keyExtractor;
+        }
+
+        try {
+            return Utils.loadClass(keyExtractor.toString().trim(), Object.class);
+        } catch (ClassNotFoundException e) {
+            throw new KafkaException("Library Event partition key extractor class not found : " + keyExtractor, e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+
+import java.util.Map;
+
+public final class KafkaMetricValues {
+    public static final String PRODUCER_METRICS = "producer-metrics";
+
+    private KafkaMetricValues() {
+    }
+
+    public static double producerMetric(Map<MetricName, ? extends Metric> metrics, String name) {
+        for (Map.Entry<MetricName, ? extends Metric> entry : metrics.entrySet()) {
+            MetricName metricName = entry.getKey();
+            if (metricName.name().equals(name) && metricName.group().equals(PRODUCER_METRICS)) {
+                Object value = entry.getValue().metricValue();
+
+                return value instanceof Number && !Double.isNaN(((Number) value).doubleValue())
+                        ? ((Number) value).doubleValue()
+                        : 0.0;
+            }
+        }
+
+        return 0.0;
+    }
+}
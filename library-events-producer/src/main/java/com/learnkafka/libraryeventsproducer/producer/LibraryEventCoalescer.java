@@ -0,0 +1,97 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@ConditionalOnProperty(name = "library-events.producer.coalescing.enabled", havingValue = "true")
+@Slf4j
+public class LibraryEventCoalescer {
+    @Autowired
+    LibraryEventProducer libraryEventProducer;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${library-events.producer.coalescing.window-ms:50}")
+    long windowMs;
+
+    private final Map<Integer, LibraryEvent> pendingLibraryEvents = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private Counter submitted;
+
+    private Counter collapsed;
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "library-event-coalescer");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        submitted = Counter.builder("library.events.producer.coalescing.submitted")
+                .description("Library Event updates submitted to the coalescing window")
+                .register(meterRegistry);
+        collapsed = Counter.builder("library.events.producer.coalescing.collapsed")
+                .description("Library Event updates superseded by a later update within the window")
+                .register(meterRegistry);
+        Gauge.builder("library.events.producer.coalescing.pending", pendingLibraryEvents, Map::size)
+                .description("Library Events waiting for their coalescing window to close")
+                .register(meterRegistry);
+    }
+
+    public void submit(LibraryEvent libraryEvent) {
+        Integer libraryEventId = libraryEvent.getLibraryEventId();
+        submitted.increment();
+
+        if (pendingLibraryEvents.put(libraryEventId, libraryEvent) != null) {
+            collapsed.increment();
+
+            return;
+        }
+
+        scheduler.schedule(() -> flush(libraryEventId), windowMs, TimeUnit.MILLISECONDS);
+    }
+
+    void flush(Integer libraryEventId) {
+        LibraryEvent libraryEvent = pendingLibraryEvents.remove(libraryEventId);
+        if (libraryEvent == null) {
+            return;
+        }
+
+        try {
+            libraryEventProducer.publishLibraryEvent(libraryEvent);
+        } catch (RuntimeException e) {
+            log.error("Error publishing coalesced Library Event for the key : {} and the exception is {}", libraryEventId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+
+        for (Integer libraryEventId : new ArrayList<>(pendingLibraryEvents.keySet())) {
+            flush(libraryEventId);
+        }
+    }
+}
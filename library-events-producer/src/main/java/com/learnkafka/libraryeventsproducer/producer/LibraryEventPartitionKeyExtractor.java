@@ -0,0 +1,8 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+
+@FunctionalInterface
+public interface LibraryEventPartitionKeyExtractor {
+    Object extractPartitionKey(LibraryEvent libraryEvent);
+}
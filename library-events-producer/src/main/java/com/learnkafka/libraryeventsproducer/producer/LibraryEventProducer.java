@@ -1,41 +1,73 @@
 package com.learnkafka.libraryeventsproducer.producer;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import com.learnkafka.libraryeventsproducer.spool.LibraryEventSpool;
+import com.learnkafka.logging.SamplingTurboFilter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.header.internals.RecordHeader;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 import org.springframework.util.concurrent.ListenableFuture;
-import org.springframework.util.concurrent.ListenableFutureCallback;
 
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 @Component
 @Slf4j
 public class LibraryEventProducer {
-    private static final String TOPIC = "library-events";
+    static final String TOPIC = "library-events";
+
+    private static final List<Header> RECORD_HEADERS = Collections.singletonList(new RecordHeader("event-source", "scanner".getBytes(StandardCharsets.UTF_8)));
+
+    @Autowired
+    KafkaTemplate<Integer, LibraryEvent> kafkaTemplate;
+
+    @Autowired
+    @Qualifier("transactionalKafkaTemplate")
+    KafkaTemplate<Integer, LibraryEvent> transactionalKafkaTemplate;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    Executor transactionExecutor;
+
+    @Autowired(required = false)
+    LibraryEventSpool libraryEventSpool;
 
     @Autowired
-    KafkaTemplate<Integer, String> kafkaTemplate;
+    ProducerAdmissionControl producerAdmissionControl;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    LibraryEventSendCallback libraryEventSendCallback;
 
-    public SendResult<Integer, String> sendLibraryEventSynchronously(LibraryEvent libraryEvent) throws JsonProcessingException, ExecutionException, InterruptedException {
+    @Autowired
+    LibraryEventProducerMetrics libraryEventProducerMetrics;
+
+    private SpoolingSendCallback spoolingSendCallback;
+
+    @PostConstruct
+    public void init() {
+        if (libraryEventSpool != null) {
+            spoolingSendCallback = new SpoolingSendCallback(libraryEventSpool, libraryEventSendCallback);
+        }
+    }
+
+    public SendResult<Integer, LibraryEvent> sendLibraryEventSynchronously(LibraryEvent libraryEvent) throws ExecutionException, InterruptedException {
         Integer key = libraryEvent.getLibraryEventId();
-        String value = objectMapper.writeValueAsString(libraryEvent);
 
-        SendResult<Integer, String> sendResult = null;
+        SendResult<Integer, LibraryEvent> sendResult = null;
         try {
-            sendResult = kafkaTemplate.sendDefault(key, value)
+            sendResult = kafkaTemplate.sendDefault(key, libraryEvent)
                     .get();
         } catch (InterruptedException | ExecutionException e) {
             log.error("InterruptedException/ExecutionException sending message and the exception is {}", e.getMessage());
@@ -48,12 +80,11 @@ public class LibraryEventProducer {
         return sendResult;
     }
 
-    public SendResult<Integer, String> sendLibraryEventSynchronouslyApproach2(LibraryEvent libraryEvent) throws JsonProcessingException, ExecutionException, InterruptedException {
+    public SendResult<Integer, LibraryEvent> sendLibraryEventSynchronouslyApproach2(LibraryEvent libraryEvent) throws ExecutionException, InterruptedException {
         Integer key = libraryEvent.getLibraryEventId();
-        String value = objectMapper.writeValueAsString(libraryEvent);
 
-        ProducerRecord<Integer, String> producerRecord = buildProducerRecord(key, value, TOPIC);
-        SendResult<Integer, String> sendResult = null;
+        ProducerRecord<Integer, LibraryEvent> producerRecord = buildProducerRecord(key, libraryEvent, TOPIC);
+        SendResult<Integer, LibraryEvent> sendResult = null;
         try {
             sendResult = kafkaTemplate.send(producerRecord)
                     .get();
@@ -68,51 +99,61 @@ public class LibraryEventProducer {
         return sendResult;
     }
 
-    private static ProducerRecord<Integer, String> buildProducerRecord(Integer key, String value, String topic) {
-        List<Header> recordHeaders = Collections.singletonList(new RecordHeader("event-source", "scanner".getBytes()));
-
-        return new ProducerRecord<>(topic, null, key, value, recordHeaders);
+    static ProducerRecord<Integer, LibraryEvent> buildProducerRecord(Integer key, LibraryEvent value, String topic) {
+        return new ProducerRecord<>(topic, null, key, value, RECORD_HEADERS);
     }
 
-    public ListenableFuture<SendResult<Integer, String>> sendLibraryEvent(LibraryEvent libraryEvent) throws JsonProcessingException {
+    public ListenableFuture<SendResult<Integer, LibraryEvent>> sendLibraryEvent(LibraryEvent libraryEvent) {
         Integer key = libraryEvent.getLibraryEventId();
-        String value = objectMapper.writeValueAsString(libraryEvent);
 
-        ProducerRecord<Integer, String> producerRecord = buildProducerRecord(key, value, TOPIC);
+        ProducerRecord<Integer, LibraryEvent> producerRecord = buildProducerRecord(key, libraryEvent, TOPIC);
 
-        ListenableFuture<SendResult<Integer, String>> listenableFuture = kafkaTemplate.send(producerRecord);
-        listenableFuture.addCallback(new ListenableFutureCallback<SendResult<Integer, String>>() {
-            @Override
-            public void onFailure(Throwable throwable) {
-                handleFailure(key, value, throwable);
-            }
-
-            @Override
-            public void onSuccess(SendResult<Integer, String> integerStringSendResult) {
-                handleSuccess(key, value, integerStringSendResult);
-            }
-        });
+        ListenableFuture<SendResult<Integer, LibraryEvent>> listenableFuture = kafkaTemplate.send(producerRecord);
+        listenableFuture.addCallback(libraryEventSendCallback);
 
         return listenableFuture;
     }
 
-    private void handleFailure(Integer key, String value, Throwable throwable) {
-        log.error("Error sending message and the exception is {}", throwable.getMessage());
+    public void publishLibraryEvent(LibraryEvent libraryEvent) {
+        if (libraryEventSpool == null) {
+            sendLibraryEvent(libraryEvent);
 
-        try {
-            throw throwable;
-        } catch (Throwable t) {
-            log.error("Error in OnFailure: {}", t.getMessage());
+            return;
+        }
+
+        if (libraryEventSpool.hasPending() || producerAdmissionControl.isOverloaded()) {
+            spoolLibraryEvent(libraryEvent);
+
+            return;
         }
+
+        kafkaTemplate.send(buildProducerRecord(libraryEvent.getLibraryEventId(), libraryEvent, TOPIC))
+                .addCallback(spoolingSendCallback);
     }
 
-    private void handleSuccess(Integer key, String value, SendResult<Integer, String> integerStringSendResult) {
-        log.info(
-                "Message successfully sent for the key : {} and the value is {}, partition is {}",
-                key,
-                value,
-                integerStringSendResult.getRecordMetadata()
-                        .partition()
-        );
+    private void spoolLibraryEvent(LibraryEvent libraryEvent) {
+        if (!libraryEventSpool.append(libraryEvent)) {
+            throw new ProducerOverloadedException("Library Event rejected: producer spool is full", 1);
+        }
+    }
+
+    public CompletableFuture<List<SendResult<Integer, LibraryEvent>>> sendLibraryEvents(List<LibraryEvent> libraryEvents) {
+        return CompletableFuture.supplyAsync(
+                () -> transactionalKafkaTemplate.executeInTransaction(operations -> libraryEvents.stream()
+                        .map(libraryEvent -> operations.send(buildProducerRecord(libraryEvent.getLibraryEventId(), libraryEvent, TOPIC)))
+                        .collect(Collectors.toList())),
+                transactionExecutor
+        ).thenApply(listenableFutures -> listenableFutures.stream()
+                .map(listenableFuture -> listenableFuture.completable().join())
+                .collect(Collectors.toList())
+        ).whenComplete((sendResults, throwable) -> {
+            if (throwable != null) {
+                libraryEventProducerMetrics.recordFailure(throwable);
+                log.error("Error sending transactional batch of {} Library Events and the exception is {}", libraryEvents.size(), throwable.getMessage());
+            } else {
+                sendResults.forEach(libraryEventProducerMetrics::recordSuccess);
+                log.info(SamplingTurboFilter.SAMPLED, "event=library_event_batch_committed size={}", sendResults.size());
+            }
+        });
     }
 }
@@ -0,0 +1,78 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Send outcome and acknowledgement latency meters shared by the send callback and the transactional batch send.
+ */
+@Component
+class LibraryEventProducerMetrics {
+    public static final String ACK_LATENCY = "library.events.producer.ack.latency";
+
+    public static final String SENDS = "library.events.producer.sends";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Integer, Timer> ackLatencyTimers = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> sendCounters = new ConcurrentHashMap<>();
+
+    // Resolved once so the success path does not build a lookup key per acknowledgement
+    private final Counter successCounter;
+
+    LibraryEventProducerMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.successCounter = sendCounter("success", "none");
+    }
+
+    long recordSuccess(SendResult<Integer, LibraryEvent> sendResult) {
+        RecordMetadata recordMetadata = sendResult.getRecordMetadata();
+        successCounter.increment();
+
+        if (!recordMetadata.hasTimestamp()) {
+            return -1;
+        }
+
+        long latencyMs = Math.max(0, System.currentTimeMillis() - recordMetadata.timestamp());
+        ackLatencyTimers.computeIfAbsent(recordMetadata.partition(), this::ackLatencyTimer)
+                .record(latencyMs, TimeUnit.MILLISECONDS);
+
+        return latencyMs;
+    }
+
+    void recordFailure(Throwable throwable) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(throwable);
+
+        sendCounter("failure", cause.getClass().getSimpleName()).increment();
+    }
+
+    private Timer ackLatencyTimer(Integer partition) {
+        return Timer.builder(ACK_LATENCY)
+                .description("Time from send until the broker acknowledged the Library Event")
+                .tag("partition", String.valueOf(partition))
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
+
+    private Counter sendCounter(String outcome, String exception) {
+        return sendCounters.computeIfAbsent(outcome + ':' + exception, key -> Counter.builder(SENDS)
+                .description("Library Event sends by outcome")
+                .tag("outcome", outcome)
+                .tag("exception", exception)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,66 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import com.learnkafka.logging.SamplingTurboFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+@Component
+@Slf4j
+class LibraryEventSendCallback implements ListenableFutureCallback<SendResult<Integer, LibraryEvent>> {
+    private final LibraryEventProducerMetrics libraryEventProducerMetrics;
+
+    private final long slowThresholdMs;
+
+    LibraryEventSendCallback(LibraryEventProducerMetrics libraryEventProducerMetrics,
+                             @Value("${library-events.logging.slow-threshold-ms:1000}") long slowThresholdMs) {
+        this.libraryEventProducerMetrics = libraryEventProducerMetrics;
+        this.slowThresholdMs = slowThresholdMs;
+    }
+
+    @Override
+    public void onFailure(Throwable throwable) {
+        libraryEventProducerMetrics.recordFailure(throwable);
+
+        if (throwable instanceof KafkaProducerException) {
+            ProducerRecord<?, ?> failedProducerRecord = ((KafkaProducerException) throwable).getFailedProducerRecord();
+            log.error("event=library_event_send_failed key={} error=\"{}\"", failedProducerRecord.key(), throwable.getMessage());
+
+            return;
+        }
+
+        log.error("event=library_event_send_failed error=\"{}\"", throwable.getMessage());
+    }
+
+    @Override
+    public void onSuccess(SendResult<Integer, LibraryEvent> sendResult) {
+        long latencyMs = libraryEventProducerMetrics.recordSuccess(sendResult);
+
+        ProducerRecord<Integer, LibraryEvent> producerRecord = sendResult.getProducerRecord();
+        if (latencyMs >= slowThresholdMs) {
+            log.warn(
+                    "event=slow_ack key={} partition={} offset={} latency_ms={}",
+                    producerRecord.key(),
+                    sendResult.getRecordMetadata().partition(),
+                    sendResult.getRecordMetadata().offset(),
+                    latencyMs
+            );
+
+            return;
+        }
+
+        log.info(
+                SamplingTurboFilter.SAMPLED,
+                "event=library_event_sent key={} partition={} offset={} latency_ms={}",
+                producerRecord.key(),
+                sendResult.getRecordMetadata().partition(),
+                sendResult.getRecordMetadata().offset(),
+                latencyMs
+        );
+    }
+}
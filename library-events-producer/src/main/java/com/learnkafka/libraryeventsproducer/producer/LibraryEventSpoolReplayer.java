@@ -0,0 +1,80 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import com.learnkafka.libraryeventsproducer.spool.LibraryEventSpool;
+import com.learnkafka.libraryeventsproducer.spool.SpoolFsyncPolicy;
+import com.learnkafka.libraryeventsproducer.spool.SpooledLibraryEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Component
+@ConditionalOnProperty(name = "library-events.producer.spool.enabled", havingValue = "true")
+@Slf4j
+public class LibraryEventSpoolReplayer {
+    @Autowired
+    LibraryEventSpool libraryEventSpool;
+
+    @Autowired
+    KafkaTemplate<Integer, LibraryEvent> kafkaTemplate;
+
+    @Value("${library-events.producer.spool.replay-batch-size:500}")
+    int replayBatchSize;
+
+    @Value("${library-events.producer.spool.replay-timeout-ms:10000}")
+    long replayTimeoutMs;
+
+    @Scheduled(fixedDelayString = "${library-events.producer.spool.replay-interval-ms:1000}")
+    public void replay() {
+        long replayed = 0;
+
+        List<SpooledLibraryEvent> spooledLibraryEvents;
+        while (!(spooledLibraryEvents = libraryEventSpool.peek(replayBatchSize)).isEmpty()) {
+            List<ListenableFuture<SendResult<Integer, LibraryEvent>>> futures = new ArrayList<>(spooledLibraryEvents.size());
+            for (SpooledLibraryEvent spooledLibraryEvent : spooledLibraryEvents) {
+                LibraryEvent libraryEvent = spooledLibraryEvent.getLibraryEvent();
+                futures.add(kafkaTemplate.send(LibraryEventProducer.buildProducerRecord(libraryEvent.getLibraryEventId(), libraryEvent, LibraryEventProducer.TOPIC)));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get(replayTimeoutMs, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+
+                    return;
+                } catch (ExecutionException | TimeoutException e) {
+                    log.warn("Replay of spooled Library Events paused after {} records, broker still unavailable: {}", replayed, e.getMessage());
+
+                    return;
+                }
+
+                libraryEventSpool.commit(spooledLibraryEvents.get(i));
+                replayed++;
+            }
+        }
+
+        if (replayed > 0) {
+            log.info("Replayed {} spooled Library Events", replayed);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${library-events.producer.spool.fsync-interval-ms:1000}")
+    public void fsync() {
+        if (libraryEventSpool.getFsyncPolicy() == SpoolFsyncPolicy.INTERVAL) {
+            libraryEventSpool.force();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+
+@Component
+@Slf4j
+public class ProducerAdmissionControl {
+    @Autowired
+    KafkaTemplate<Integer, LibraryEvent> kafkaTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${library-events.producer.admission-control.enabled:true}")
+    boolean enabled;
+
+    @Value("${library-events.producer.admission-control.min-buffer-available-ratio:0.1}")
+    double minBufferAvailableRatio;
+
+    @Value("${library-events.producer.admission-control.max-record-queue-time-ms:1000}")
+    double maxRecordQueueTimeMs;
+
+    @Value("${library-events.producer.admission-control.max-requests-in-flight:50}")
+    double maxRequestsInFlight;
+
+    @Value("${library-events.producer.admission-control.retry-after-seconds:1}")
+    long retryAfterSeconds;
+
+    private Counter rejections;
+
+    private volatile String overloadReason;
+
+    @PostConstruct
+    public void init() {
+        rejections = Counter.builder("library.events.producer.admission.rejected")
+                .description("Requests rejected because the producer had no capacity left")
+                .register(meterRegistry);
+
+        Gauge.builder("library.events.producer.admission.overloaded", this, admissionControl -> admissionControl.overloadReason == null ? 0 : 1)
+                .description("1 while requests are being shed")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${library-events.producer.admission-control.sample-interval-ms:250}")
+    public void sample() {
+        Map<MetricName, ? extends Metric> metrics = kafkaTemplate.metrics();
+
+        onSample(
+                KafkaMetricValues.producerMetric(metrics, "buffer-available-bytes"),
+                KafkaMetricValues.producerMetric(metrics, "buffer-total-bytes"),
+                KafkaMetricValues.producerMetric(metrics, "record-queue-time-avg"),
+                KafkaMetricValues.producerMetric(metrics, "requests-in-flight")
+        );
+    }
+
+    void onSample(double bufferAvailableBytes, double bufferTotalBytes, double recordQueueTimeAvg, double requestsInFlight) {
+        String reason = null;
+        if (bufferTotalBytes > 0 && bufferAvailableBytes / bufferTotalBytes < minBufferAvailableRatio) {
+            reason = "producer buffer exhausted";
+        } else if (recordQueueTimeAvg > maxRecordQueueTimeMs) {
+            reason = "producer record queue time too high";
+        } else if (requestsInFlight > maxRequestsInFlight) {
+            reason = "too many requests in flight to the brokers";
+        }
+
+        if (reason != null && overloadReason == null) {
+            log.warn(
+                    "Shedding Library Event requests: {} (buffer available {}/{} bytes, queue time {} ms, in flight {})",
+                    reason,
+                    bufferAvailableBytes,
+                    bufferTotalBytes,
+                    recordQueueTimeAvg,
+                    requestsInFlight
+            );
+        } else if (reason == null && overloadReason != null) {
+            log.info("Producer capacity recovered, admitting Library Event requests again");
+        }
+
+        overloadReason = reason;
+    }
+
+    public void checkAdmission() {
+        String reason = overloadReason;
+        if (!enabled || reason == null) {
+            return;
+        }
+
+        rejections.increment();
+
+        throw new ProducerOverloadedException("Library Event rejected: " + reason, retryAfterSeconds);
+    }
+
+    public boolean isOverloaded() {
+        return overloadReason != null;
+    }
+}
@@ -0,0 +1,14 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+public class ProducerOverloadedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ProducerOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
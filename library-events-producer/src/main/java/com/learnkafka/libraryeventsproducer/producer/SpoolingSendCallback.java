@@ -0,0 +1,48 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import com.learnkafka.libraryeventsproducer.spool.LibraryEventSpool;
+import com.learnkafka.logging.SamplingTurboFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+@Slf4j
+final class SpoolingSendCallback implements ListenableFutureCallback<SendResult<Integer, LibraryEvent>> {
+    private final LibraryEventSpool libraryEventSpool;
+
+    private final LibraryEventSendCallback libraryEventSendCallback;
+
+    SpoolingSendCallback(LibraryEventSpool libraryEventSpool, LibraryEventSendCallback libraryEventSendCallback) {
+        this.libraryEventSpool = libraryEventSpool;
+        this.libraryEventSendCallback = libraryEventSendCallback;
+    }
+
+    @Override
+    public void onFailure(Throwable throwable) {
+        libraryEventSendCallback.onFailure(throwable);
+
+        if (!(throwable instanceof KafkaProducerException)) {
+            return;
+        }
+
+        // runs on the producer I/O thread, so the write and fsync happen on the spool's own thread
+        LibraryEvent libraryEvent = (LibraryEvent) ((KafkaProducerException) throwable).getFailedProducerRecord().value();
+        libraryEventSpool.appendAsync(libraryEvent)
+                .whenComplete((appended, appendFailure) -> {
+                    if (appendFailure != null) {
+                        log.error("Library Event for the key : {} lost, producer spool write failed : {}", libraryEvent.getLibraryEventId(), appendFailure.getMessage());
+                    } else if (appended) {
+                        log.info(SamplingTurboFilter.SAMPLED, "event=library_event_spooled key={}", libraryEvent.getLibraryEventId());
+                    } else {
+                        log.error("Library Event for the key : {} lost, producer spool is full", libraryEvent.getLibraryEventId());
+                    }
+                });
+    }
+
+    @Override
+    public void onSuccess(SendResult<Integer, LibraryEvent> sendResult) {
+        libraryEventSendCallback.onSuccess(sendResult);
+    }
+}
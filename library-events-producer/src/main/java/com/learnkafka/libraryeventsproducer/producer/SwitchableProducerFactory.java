@@ -0,0 +1,108 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Non-transactional producer factory whose configuration can change while sends are in flight. A switch builds a
+ * new delegate and swaps it in atomically, so new sends use it straight away, and only closes the previous one
+ * after {@code closeDelay}: long enough for a send that already holds the old producer to hand its record over,
+ * after which the close flushes whatever that producer still has buffered.
+ */
+@Slf4j
+public class SwitchableProducerFactory<K, V> implements ProducerFactory<K, V>, DisposableBean {
+    private final AtomicReference<DefaultKafkaProducerFactory<K, V>> delegate;
+
+    private final Duration closeDelay;
+
+    private final ScheduledExecutorService closer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "library-events-producer-factory-closer");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    public SwitchableProducerFactory(DefaultKafkaProducerFactory<K, V> delegate, Duration closeDelay) {
+        this.delegate = new AtomicReference<>(delegate);
+        this.closeDelay = closeDelay;
+    }
+
+    /**
+     * Replaces the delegate with one built from its configuration plus the given overrides.
+     */
+    public synchronized void switchConfigs(Map<String, Object> overrides) {
+        DefaultKafkaProducerFactory<K, V> current = delegate.get();
+
+        Map<String, Object> configs = new HashMap<>(current.getConfigurationProperties());
+        configs.putAll(overrides);
+
+        DefaultKafkaProducerFactory<K, V> next = new DefaultKafkaProducerFactory<>(configs, current.getKeySerializerSupplier(), current.getValueSerializerSupplier());
+        next.setPhysicalCloseTimeout((int) current.getPhysicalCloseTimeout().getSeconds());
+        current.getListeners().forEach(next::addListener);
+        current.getPostProcessors().forEach(next::addPostProcessor);
+
+        delegate.set(next);
+        closer.schedule(current::destroy, closeDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Producer<K, V> createProducer() {
+        return delegate.get().createProducer();
+    }
+
+    @Override
+    public void updateConfigs(Map<String, Object> updates) {
+        delegate.get().updateConfigs(updates);
+    }
+
+    @Override
+    public void reset() {
+        delegate.get().reset();
+    }
+
+    @Override
+    public Map<String, Object> getConfigurationProperties() {
+        return delegate.get().getConfigurationProperties();
+    }
+
+    @Override
+    public Supplier<Serializer<K>> getKeySerializerSupplier() {
+        return delegate.get().getKeySerializerSupplier();
+    }
+
+    @Override
+    public Supplier<Serializer<V>> getValueSerializerSupplier() {
+        return delegate.get().getValueSerializerSupplier();
+    }
+
+    @Override
+    public Duration getPhysicalCloseTimeout() {
+        return delegate.get().getPhysicalCloseTimeout();
+    }
+
+    @Override
+    public List<Listener<K, V>> getListeners() {
+        return delegate.get().getListeners();
+    }
+
+    @Override
+    public void destroy() {
+        // previous delegates still waiting for their delay are closed now, their sends get the close timeout to finish
+        closer.shutdownNow().forEach(Runnable::run);
+        delegate.get().destroy();
+    }
+}
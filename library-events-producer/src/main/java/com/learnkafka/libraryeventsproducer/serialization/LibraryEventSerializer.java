@@ -0,0 +1,89 @@
+package com.learnkafka.libraryeventsproducer.serialization;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class LibraryEventSerializer implements Serializer<LibraryEvent> {
+    public static final String SERIALIZATION_TIMER = "library.events.producer.serialization";
+
+    private final ObjectWriter objectWriter;
+
+    private final Map<LibraryEventWireFormat, Timer> serializationTimers = new EnumMap<>(LibraryEventWireFormat.class);
+
+    private LibraryEventWireFormat wireFormat = LibraryEventWireFormat.JSON;
+
+    public LibraryEventSerializer() {
+        this(new ObjectMapper());
+    }
+
+    public LibraryEventSerializer(ObjectMapper objectMapper) {
+        this.objectWriter = objectMapper.writerFor(LibraryEvent.class);
+
+        for (LibraryEventWireFormat wireFormat : LibraryEventWireFormat.values()) {
+            serializationTimers.put(wireFormat, Timer.builder(SERIALIZATION_TIMER)
+                    .description("Time spent encoding a Library Event")
+                    .tag("format", wireFormat.getValue())
+                    .register(Metrics.globalRegistry));
+        }
+    }
+
+    public LibraryEventSerializer(ObjectMapper objectMapper, LibraryEventWireFormat wireFormat) {
+        this(objectMapper);
+        this.wireFormat = wireFormat;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object wireFormat = configs.get(LibraryEventWireFormat.CONFIG);
+        if (wireFormat != null) {
+            this.wireFormat = LibraryEventWireFormat.fromValue(wireFormat.toString());
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, LibraryEvent libraryEvent) {
+        return serialize(topic, libraryEvent, LibraryEventWireFormat.JSON);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, LibraryEvent libraryEvent) {
+        if (libraryEvent == null) {
+            return null;
+        }
+
+        headers.remove(LibraryEventWireFormat.HEADER);
+        headers.add(LibraryEventWireFormat.HEADER, wireFormat.getHeaderValue());
+
+        return serialize(topic, libraryEvent, wireFormat);
+    }
+
+    private byte[] serialize(String topic, LibraryEvent libraryEvent, LibraryEventWireFormat wireFormat) {
+        if (libraryEvent == null) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (wireFormat == LibraryEventWireFormat.BINARY_V1) {
+                return LibraryEventBinaryCodec.encode(libraryEvent);
+            }
+
+            return objectWriter.writeValueAsBytes(libraryEvent);
+        } catch (JsonProcessingException e) {
+            throw new SerializationException("Error serializing Library Event for topic " + topic, e);
+        } finally {
+            serializationTimers.get(wireFormat).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
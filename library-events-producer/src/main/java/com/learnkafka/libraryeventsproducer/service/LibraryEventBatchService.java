@@ -0,0 +1,184 @@
+package com.learnkafka.libraryeventsproducer.service;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEventBatchItemResult;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEventBatchItemStatus;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEventBatchResult;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEventType;
+import com.learnkafka.libraryeventsproducer.producer.LibraryEventProducer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class LibraryEventBatchService {
+    @Autowired
+    private LibraryEventProducer libraryEventProducer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    public LibraryEventBatchResult sendLibraryEventBatch(InputStream body) throws IOException {
+        List<LibraryEventBatchItemResult> items = new ArrayList<>();
+        List<CompletableFuture<LibraryEventBatchItemResult>> pendingItems = new ArrayList<>();
+
+        try (MappingIterator<LibraryEvent> libraryEvents = objectMapper.readerFor(LibraryEvent.class).readValues(body)) {
+            int index = 0;
+            while (hasNextLibraryEvent(libraryEvents, index, items)) {
+                LibraryEvent libraryEvent;
+                try {
+                    libraryEvent = libraryEvents.nextValue();
+                } catch (JsonMappingException e) {
+                    items.add(invalid(index++, null, e.getOriginalMessage()));
+
+                    continue;
+                }
+
+                if (libraryEvent == null) {
+                    items.add(invalid(index++, null, "Library Event must not be null."));
+
+                    continue;
+                }
+
+                LibraryEventBatchItemResult item = sendLibraryEvent(index++, libraryEvent, pendingItems);
+                if (item != null) {
+                    items.add(item);
+                }
+            }
+        }
+
+        CompletableFuture.allOf(pendingItems.toArray(new CompletableFuture<?>[0]))
+                .exceptionally(throwable -> null)
+                .join();
+
+        pendingItems.forEach(pendingItem -> items.add(pendingItem.join()));
+
+        return summarize(items);
+    }
+
+    private boolean hasNextLibraryEvent(MappingIterator<LibraryEvent> libraryEvents, int index, List<LibraryEventBatchItemResult> items) {
+        try {
+            return libraryEvents.hasNextValue();
+        } catch (IOException e) {
+            log.info("Stopped reading Library Event batch at index {}: {}", index, e.getMessage());
+
+            items.add(invalid(index, null, "Malformed batch body: " + e.getMessage()));
+
+            return false;
+        }
+    }
+
+    private LibraryEventBatchItemResult sendLibraryEvent(int index, LibraryEvent libraryEvent, List<CompletableFuture<LibraryEventBatchItemResult>> pendingItems) {
+        if (libraryEvent.getLibraryEventType() == null) {
+            libraryEvent.setLibraryEventType(LibraryEventType.NEW);
+        }
+
+        String errorMessage = validate(libraryEvent);
+        if (errorMessage != null) {
+            return invalid(index, libraryEvent.getLibraryEventId(), errorMessage);
+        }
+
+        try {
+            pendingItems.add(
+                    libraryEventProducer.sendLibraryEvent(libraryEvent)
+                            .completable()
+                            .handle((sendResult, throwable) -> throwable == null
+                                    ? accepted(index, libraryEvent, sendResult)
+                                    : failed(index, libraryEvent, throwable))
+            );
+        } catch (KafkaException e) {
+            return failed(index, libraryEvent, e);
+        }
+
+        return null;
+    }
+
+    private String validate(LibraryEvent libraryEvent) {
+        if (libraryEvent.getLibraryEventType() == LibraryEventType.UPDATE && libraryEvent.getLibraryEventId() == null) {
+            return "Please, provide libraryEventId.";
+        }
+
+        Set<ConstraintViolation<LibraryEvent>> violations = validator.validate(libraryEvent);
+        if (violations.isEmpty()) {
+            return null;
+        }
+
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " - " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static LibraryEventBatchResult summarize(List<LibraryEventBatchItemResult> items) {
+        items.sort((left, right) -> Integer.compare(left.getIndex(), right.getIndex()));
+
+        return LibraryEventBatchResult.builder()
+                .total(items.size())
+                .accepted(count(items, LibraryEventBatchItemStatus.ACCEPTED))
+                .invalid(count(items, LibraryEventBatchItemStatus.INVALID))
+                .failed(count(items, LibraryEventBatchItemStatus.FAILED))
+                .items(items)
+                .build();
+    }
+
+    private static int count(List<LibraryEventBatchItemResult> items, LibraryEventBatchItemStatus status) {
+        return (int) items.stream()
+                .filter(item -> item.getStatus() == status)
+                .count();
+    }
+
+    private static LibraryEventBatchItemResult accepted(int index, LibraryEvent libraryEvent, SendResult<Integer, LibraryEvent> sendResult) {
+        RecordMetadata recordMetadata = sendResult.getRecordMetadata();
+
+        return LibraryEventBatchItemResult.builder()
+                .index(index)
+                .libraryEventId(libraryEvent.getLibraryEventId())
+                .status(LibraryEventBatchItemStatus.ACCEPTED)
+                .partition(recordMetadata.partition())
+                .offset(recordMetadata.offset())
+                .build();
+    }
+
+    private static LibraryEventBatchItemResult invalid(int index, Integer libraryEventId, String error) {
+        return LibraryEventBatchItemResult.builder()
+                .index(index)
+                .libraryEventId(libraryEventId)
+                .status(LibraryEventBatchItemStatus.INVALID)
+                .error(error)
+                .build();
+    }
+
+    private static LibraryEventBatchItemResult failed(int index, LibraryEvent libraryEvent, Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause()
+                : throwable;
+
+        return LibraryEventBatchItemResult.builder()
+                .index(index)
+                .libraryEventId(libraryEvent.getLibraryEventId())
+                .status(LibraryEventBatchItemStatus.FAILED)
+                .error(cause.getMessage())
+                .build();
+    }
+}
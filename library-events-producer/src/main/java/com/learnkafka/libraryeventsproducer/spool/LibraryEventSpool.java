@@ -0,0 +1,296 @@
+package com.learnkafka.libraryeventsproducer.spool;
+
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import com.learnkafka.libraryeventsproducer.serialization.LibraryEventBinaryCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead spool backed by a single memory-mapped segment file.
+ * <p>
+ * Layout: an 8 byte header holding the replay checkpoint, followed by records of
+ * {@code [int length][int crc32][LibraryEventBinaryCodec payload]}. A zero length marks the
+ * end of the log, so the write position is recovered on startup by scanning from the checkpoint.
+ * <p>
+ * {@link #appendAsync} runs the write and any fsync on the spool's own thread, for callers such as
+ * producer callbacks that must not block on disk I/O.
+ */
+@Slf4j
+public class LibraryEventSpool implements AutoCloseable {
+    public static final String SEGMENT_FILE = "library-events.spool";
+
+    static final int HEADER_SIZE = Long.BYTES;
+
+    static final int RECORD_OVERHEAD = Integer.BYTES * 2;
+
+    private final Path segmentPath;
+
+    private final int capacity;
+
+    private final SpoolFsyncPolicy fsyncPolicy;
+
+    private final FileChannel fileChannel;
+
+    private final MappedByteBuffer segment;
+
+    private final ExecutorService appender = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "library-event-spool");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    private long readPosition;
+
+    private long writePosition;
+
+    private long pendingRecords;
+
+    // bytes dropped from the front by compaction, keeps positions handed out by peek stable
+    private long compactedBytes;
+
+    private boolean dirty;
+
+    private Counter appended;
+
+    private Counter replayed;
+
+    private Counter rejected;
+
+    public LibraryEventSpool(Path directory, int capacity, SpoolFsyncPolicy fsyncPolicy) throws IOException {
+        Files.createDirectories(directory);
+
+        this.segmentPath = directory.resolve(SEGMENT_FILE);
+        this.capacity = capacity;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fileChannel = FileChannel.open(segmentPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.segment = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+        recover();
+    }
+
+    public void bindTo(MeterRegistry meterRegistry) {
+        appended = Counter.builder("library.events.producer.spool.appended")
+                .description("Library Events written to the local spool")
+                .register(meterRegistry);
+        replayed = Counter.builder("library.events.producer.spool.replayed")
+                .description("Spooled Library Events replayed to the broker")
+                .register(meterRegistry);
+        rejected = Counter.builder("library.events.producer.spool.rejected")
+                .description("Library Events rejected because the spool was full")
+                .register(meterRegistry);
+
+        Gauge.builder("library.events.producer.spool.pending.records", this, LibraryEventSpool::getPendingRecords)
+                .description("Library Events waiting in the spool to be replayed")
+                .register(meterRegistry);
+        Gauge.builder("library.events.producer.spool.pending.bytes", this, LibraryEventSpool::getPendingBytes)
+                .description("Bytes waiting in the spool to be replayed")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("library.events.producer.spool.capacity", this, spool -> spool.capacity)
+                .description("Maximum size of the spool segment")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public synchronized boolean append(LibraryEvent libraryEvent) {
+        byte[] payload = LibraryEventBinaryCodec.encode(libraryEvent);
+
+        if (writePosition + RECORD_OVERHEAD + payload.length + Integer.BYTES > capacity) {
+            increment(rejected);
+
+            return false;
+        }
+
+        int position = (int) writePosition;
+        int nextPosition = position + RECORD_OVERHEAD + payload.length;
+
+        write(position + RECORD_OVERHEAD, payload);
+        segment.putInt(position + Integer.BYTES, crc(payload));
+        segment.putInt(nextPosition, 0);
+        segment.putInt(position, payload.length);
+
+        writePosition = nextPosition;
+        pendingRecords++;
+        dirty = true;
+        increment(appended);
+
+        if (fsyncPolicy == SpoolFsyncPolicy.ALWAYS) {
+            force();
+        }
+
+        return true;
+    }
+
+    public CompletableFuture<Boolean> appendAsync(LibraryEvent libraryEvent) {
+        return CompletableFuture.supplyAsync(() -> append(libraryEvent), appender);
+    }
+
+    public synchronized List<SpooledLibraryEvent> peek(int maxRecords) {
+        List<SpooledLibraryEvent> spooledLibraryEvents = new ArrayList<>();
+
+        long position = readPosition;
+        while (position < writePosition && spooledLibraryEvents.size() < maxRecords) {
+            byte[] payload = new byte[segment.getInt((int) position)];
+            read((int) position + RECORD_OVERHEAD, payload);
+
+            long nextPosition = position + RECORD_OVERHEAD + payload.length;
+            spooledLibraryEvents.add(new SpooledLibraryEvent(LibraryEventBinaryCodec.decode(payload), compactedBytes + position, compactedBytes + nextPosition));
+            position = nextPosition;
+        }
+
+        return spooledLibraryEvents;
+    }
+
+    public synchronized void commit(SpooledLibraryEvent spooledLibraryEvent) {
+        if (spooledLibraryEvent.getPosition() != compactedBytes + readPosition) {
+            throw new IllegalStateException("Spooled Library Event at " + spooledLibraryEvent.getPosition() + " is not the next one to replay");
+        }
+
+        readPosition = spooledLibraryEvent.getNextPosition() - compactedBytes;
+        pendingRecords--;
+        increment(replayed);
+
+        if (readPosition == writePosition) {
+            compactedBytes += readPosition - HEADER_SIZE;
+            readPosition = HEADER_SIZE;
+            writePosition = HEADER_SIZE;
+            segment.putInt(HEADER_SIZE, 0);
+        } else if (readPosition > capacity / 2) {
+            compact();
+        }
+
+        segment.putLong(0, readPosition);
+        dirty = true;
+
+        if (fsyncPolicy == SpoolFsyncPolicy.ALWAYS) {
+            force();
+        }
+    }
+
+    public synchronized void force() {
+        if (dirty) {
+            segment.force();
+            dirty = false;
+        }
+    }
+
+    public synchronized boolean hasPending() {
+        return pendingRecords > 0;
+    }
+
+    public synchronized long getPendingRecords() {
+        return pendingRecords;
+    }
+
+    public synchronized long getPendingBytes() {
+        return writePosition - readPosition;
+    }
+
+    public SpoolFsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    @Override
+    public void close() throws IOException {
+        appender.shutdown();
+        try {
+            if (!appender.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Library Event spool {} closed with appends still queued", segmentPath);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            segment.force();
+            fileChannel.close();
+        }
+    }
+
+    private void recover() {
+        readPosition = segment.getLong(0);
+        if (readPosition < HEADER_SIZE || readPosition >= capacity) {
+            readPosition = HEADER_SIZE;
+        }
+
+        long position = readPosition;
+        while (position + RECORD_OVERHEAD <= capacity) {
+            int length = segment.getInt((int) position);
+            if (length <= 0 || position + RECORD_OVERHEAD + length > capacity) {
+                break;
+            }
+
+            byte[] payload = new byte[length];
+            read((int) position + RECORD_OVERHEAD, payload);
+            if (segment.getInt((int) position + Integer.BYTES) != crc(payload)) {
+                log.warn("Discarding torn Library Event spool record at {} in {}", position, segmentPath);
+                break;
+            }
+
+            position += RECORD_OVERHEAD + length;
+            pendingRecords++;
+        }
+
+        writePosition = position;
+        if (position + Integer.BYTES <= capacity) {
+            segment.putInt((int) position, 0);
+        }
+
+        log.info("Library Event spool {} opened with {} pending records ({} bytes)", segmentPath, pendingRecords, writePosition - readPosition);
+    }
+
+    private void compact() {
+        int length = (int) (writePosition - readPosition);
+        byte[] pending = new byte[length];
+        read((int) readPosition, pending);
+        write(HEADER_SIZE, pending);
+        segment.putInt(HEADER_SIZE + length, 0);
+
+        compactedBytes += readPosition - HEADER_SIZE;
+        readPosition = HEADER_SIZE;
+        writePosition = HEADER_SIZE + length;
+    }
+
+    private void read(int position, byte[] destination) {
+        ByteBuffer view = segment.duplicate();
+        view.position(position);
+        view.get(destination);
+    }
+
+    private void write(int position, byte[] source) {
+        ByteBuffer view = segment.duplicate();
+        view.position(position);
+        view.put(source);
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(payload, 0, payload.length);
+
+        return (int) crc32.getValue();
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.learnkafka.libraryeventsproducer.spool;
+
+public enum SpoolFsyncPolicy {
+    ALWAYS,
+    INTERVAL,
+    NONE
+}
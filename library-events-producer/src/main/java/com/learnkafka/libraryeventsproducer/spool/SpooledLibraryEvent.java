@@ -0,0 +1,15 @@
+package com.learnkafka.libraryeventsproducer.spool;
+
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SpooledLibraryEvent {
+    private LibraryEvent libraryEvent;
+
+    private long position;
+
+    private long nextPosition;
+}
@@ -4,7 +4,14 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.learnkafka.libraryeventsproducer.domain.Book;
 import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEventBatchResult;
 import com.learnkafka.libraryeventsproducer.producer.LibraryEventProducer;
+import com.learnkafka.libraryeventsproducer.producer.ProducerAdmissionControl;
+import com.learnkafka.libraryeventsproducer.producer.ProducerOverloadedException;
+import com.learnkafka.libraryeventsproducer.service.LibraryEventBatchService;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,20 +21,29 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.test.web.client.match.MockRestRequestMatchers;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.ResultMatcher;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.io.InputStream;
+import java.util.Collections;
 
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 
 @ExtendWith(MockitoExtension.class)
 @WebMvcTest(LibraryEventsController.class)
@@ -39,6 +55,12 @@ public class LibraryEventControllerUnitTest {
     @MockBean
     LibraryEventProducer libraryEventProducer;
 
+    @MockBean
+    LibraryEventBatchService libraryEventBatchService;
+
+    @MockBean
+    ProducerAdmissionControl producerAdmissionControl;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Test
@@ -56,9 +78,6 @@ public class LibraryEventControllerUnitTest {
                 .book(book)
                 .build();
 
-        when(libraryEventProducer.sendLibraryEvent(isA(LibraryEvent.class)))
-                .thenReturn(null);
-
         // When
         RequestBuilder request = post("/api/v1/libraryevent")
                 .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -69,7 +88,7 @@ public class LibraryEventControllerUnitTest {
                 .andExpect(status().isCreated());
 
         verify(libraryEventProducer)
-                .sendLibraryEvent(isA(LibraryEvent.class));
+                .publishLibraryEvent(isA(LibraryEvent.class));
     }
 
     @Test
@@ -87,9 +106,6 @@ public class LibraryEventControllerUnitTest {
                 .book(book)
                 .build();
 
-        when(libraryEventProducer.sendLibraryEvent(isA(LibraryEvent.class)))
-                .thenReturn(null);
-
         // When
         RequestBuilder request = post("/api/v1/libraryevent")
                 .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -118,9 +134,6 @@ public class LibraryEventControllerUnitTest {
                 .book(book)
                 .build();
 
-        when(libraryEventProducer.sendLibraryEvent(isA(LibraryEvent.class)))
-                .thenReturn(null);
-
         // When
         MockHttpServletRequestBuilder request = put("/api/v1/libraryevent")
                 .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -132,7 +145,7 @@ public class LibraryEventControllerUnitTest {
                 .andExpect(status().isOk());
 
         verify(libraryEventProducer)
-                .sendLibraryEvent(isA(LibraryEvent.class));
+                .publishLibraryEvent(isA(LibraryEvent.class));
     }
 
     @Test
@@ -150,9 +163,6 @@ public class LibraryEventControllerUnitTest {
                 .book(book)
                 .build();
 
-        when(libraryEventProducer.sendLibraryEvent(isA(LibraryEvent.class)))
-                .thenReturn(null);
-
         // When
         MockHttpServletRequestBuilder request = put("/api/v1/libraryevent")
                 .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -165,6 +175,187 @@ public class LibraryEventControllerUnitTest {
         .andExpect(content().string("Please, provide libraryEventId."));
 
         verify(libraryEventProducer, never())
-                .sendLibraryEvent(isA(LibraryEvent.class));
+                .publishLibraryEvent(isA(LibraryEvent.class));
+    }
+
+    @Test
+    @DisplayName("Must answer once the library event is acknowledged.")
+    public void postLibraryEventAcknowledgedTest() throws Exception {
+        // Given
+        Book book = Book.builder()
+                .bookId(123)
+                .bookAuthor("Dilip")
+                .bookName("Kafka Using SpringBoot")
+                .build();
+
+        LibraryEvent libraryEvent = LibraryEvent.builder()
+                .libraryEventId(null)
+                .book(book)
+                .build();
+
+        SettableListenableFuture<SendResult<Integer, LibraryEvent>> future = new SettableListenableFuture<>();
+        future.set(new SendResult<>(
+                new ProducerRecord<>("library-events", null, libraryEvent),
+                new RecordMetadata(new TopicPartition("library-events", 1), 1, 1, System.currentTimeMillis(), 1L, 1, 2)
+        ));
+
+        when(libraryEventProducer.sendLibraryEvent(isA(LibraryEvent.class)))
+                .thenReturn(future);
+
+        // When
+        RequestBuilder request = post("/api/v1/libraryevent/acknowledged")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .accept(MediaType.APPLICATION_JSON_VALUE)
+                .content(objectMapper.writeValueAsString(libraryEvent));
+
+        MvcResult mvcResult = mvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    @DisplayName("Must not shed the async dispatch of an already admitted library event.")
+    public void postLibraryEventAcknowledgedOverloadedAfterAdmissionTest() throws Exception {
+        // Given
+        Book book = Book.builder()
+                .bookId(123)
+                .bookAuthor("Dilip")
+                .bookName("Kafka Using SpringBoot")
+                .build();
+
+        LibraryEvent libraryEvent = LibraryEvent.builder()
+                .libraryEventId(null)
+                .book(book)
+                .build();
+
+        SettableListenableFuture<SendResult<Integer, LibraryEvent>> future = new SettableListenableFuture<>();
+        future.set(new SendResult<>(
+                new ProducerRecord<>("library-events", null, libraryEvent),
+                new RecordMetadata(new TopicPartition("library-events", 1), 1, 1, System.currentTimeMillis(), 1L, 1, 2)
+        ));
+
+        when(libraryEventProducer.sendLibraryEvent(isA(LibraryEvent.class)))
+                .thenReturn(future);
+
+        RequestBuilder request = post("/api/v1/libraryevent/acknowledged")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .accept(MediaType.APPLICATION_JSON_VALUE)
+                .content(objectMapper.writeValueAsString(libraryEvent));
+
+        MvcResult mvcResult = mvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // When
+        doThrow(new ProducerOverloadedException("Library Event rejected: producer buffer exhausted", 1))
+                .when(producerAdmissionControl)
+                .checkAdmission();
+
+        // Then
+        mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isCreated());
+
+        verify(producerAdmissionControl, times(1))
+                .checkAdmission();
+    }
+
+    @Test
+    @DisplayName("Must return 503 whenever the library event is not acknowledged.")
+    public void postLibraryEventAcknowledgedFailureTest() throws Exception {
+        // Given
+        Book book = Book.builder()
+                .bookId(123)
+                .bookAuthor("Dilip")
+                .bookName("Kafka Using SpringBoot")
+                .build();
+
+        LibraryEvent libraryEvent = LibraryEvent.builder()
+                .libraryEventId(null)
+                .book(book)
+                .build();
+
+        SettableListenableFuture<SendResult<Integer, LibraryEvent>> future = new SettableListenableFuture<>();
+        future.setException(new KafkaProducerException(new ProducerRecord<>("library-events", null, libraryEvent), "Failed to send", new RuntimeException()));
+
+        when(libraryEventProducer.sendLibraryEvent(isA(LibraryEvent.class)))
+                .thenReturn(future);
+
+        // When
+        RequestBuilder request = post("/api/v1/libraryevent/acknowledged")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .accept(MediaType.APPLICATION_JSON_VALUE)
+                .content(objectMapper.writeValueAsString(libraryEvent));
+
+        MvcResult mvcResult = mvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @DisplayName("Must post library event batch.")
+    public void postLibraryEventBatchTest() throws Exception {
+        // Given
+        LibraryEventBatchResult libraryEventBatchResult = LibraryEventBatchResult.builder()
+                .total(0)
+                .items(Collections.emptyList())
+                .build();
+
+        when(libraryEventBatchService.sendLibraryEventBatch(isA(InputStream.class)))
+                .thenReturn(libraryEventBatchResult);
+
+        // When
+        RequestBuilder request = post("/api/v1/libraryevent/batch")
+                .contentType("application/x-ndjson")
+                .accept(MediaType.APPLICATION_JSON_VALUE)
+                .content("");
+
+        // Then
+        mvc.perform(request)
+                .andExpect(status().isCreated());
+
+        verify(libraryEventBatchService)
+                .sendLibraryEventBatch(isA(InputStream.class));
+    }
+
+    @Test
+    @DisplayName("Must shed library events with 503 and Retry-After whenever the producer is overloaded.")
+    public void postLibraryEventOverloadedTest() throws Exception {
+        // Given
+        Book book = Book.builder()
+                .bookId(123)
+                .bookAuthor("Dilip")
+                .bookName("Kafka Using SpringBoot")
+                .build();
+
+        LibraryEvent libraryEvent = LibraryEvent.builder()
+                .libraryEventId(null)
+                .book(book)
+                .build();
+
+        doThrow(new ProducerOverloadedException("Library Event rejected: producer buffer exhausted", 1))
+                .when(producerAdmissionControl)
+                .checkAdmission();
+
+        // When
+        RequestBuilder request = post("/api/v1/libraryevent")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .accept(MediaType.APPLICATION_JSON_VALUE)
+                .content(objectMapper.writeValueAsString(libraryEvent));
+
+        // Then
+        mvc.perform(request)
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.header().string("Retry-After", "1"));
+
+        verify(libraryEventProducer, never())
+                .publishLibraryEvent(isA(LibraryEvent.class));
     }
 }
@@ -0,0 +1,94 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class AdaptiveBatchingManagerUnitTest {
+    @Mock
+    SwitchableProducerFactory<?, ?> producerFactory;
+
+    @Mock
+    KafkaTemplate<Integer, LibraryEvent> kafkaTemplate;
+
+    @Spy
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    AdaptiveBatchingManager adaptiveBatchingManager;
+
+    @BeforeEach
+    public void setUp() {
+        adaptiveBatchingManager.upperSendRate = 1000;
+        adaptiveBatchingManager.lowerSendRate = 200;
+        adaptiveBatchingManager.upperFillRatio = 0.6;
+        adaptiveBatchingManager.lowerFillRatio = 0.2;
+        adaptiveBatchingManager.requiredSamples = 3;
+        adaptiveBatchingManager.init();
+    }
+
+    @Test
+    @DisplayName("Must switch to the throughput profile after consecutive busy samples.")
+    public void switchToThroughputTest() {
+        // When
+        adaptiveBatchingManager.onSample(1500, 4000, 1);
+        adaptiveBatchingManager.onSample(1500, 4000, 1);
+        adaptiveBatchingManager.onSample(1500, 4000, 1);
+
+        // Then
+        assertEquals(BatchingProfile.THROUGHPUT, adaptiveBatchingManager.getProfile());
+        verify(producerFactory).switchConfigs(BatchingProfile.THROUGHPUT.toProducerConfigs());
+        verify(producerFactory, never()).reset();
+        assertEquals(1.0, meterRegistry.get("library.events.producer.batching.profile").tag("profile", "throughput").gauge().value());
+        assertEquals(1.0, meterRegistry.get("library.events.producer.batching.switches").tag("profile", "throughput").counter().count());
+    }
+
+    @Test
+    @DisplayName("Must not flap whenever busy and quiet samples interleave.")
+    public void hysteresisTest() {
+        // When
+        adaptiveBatchingManager.onSample(1500, 4000, 1);
+        adaptiveBatchingManager.onSample(1500, 4000, 1);
+        adaptiveBatchingManager.onSample(10, 100, 1);
+        adaptiveBatchingManager.onSample(1500, 4000, 1);
+        adaptiveBatchingManager.onSample(1500, 4000, 1);
+
+        // Then
+        assertEquals(BatchingProfile.LATENCY, adaptiveBatchingManager.getProfile());
+        verify(producerFactory, never()).switchConfigs(anyMap());
+    }
+
+    @Test
+    @DisplayName("Must switch back to the latency profile once traffic is quiet and batches are sparse.")
+    public void switchBackToLatencyTest() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            adaptiveBatchingManager.onSample(1500, 12000, 1);
+        }
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            adaptiveBatchingManager.onSample(50, 2000, 1);
+        }
+
+        // Then
+        assertEquals(BatchingProfile.LATENCY, adaptiveBatchingManager.getProfile());
+        verify(producerFactory, times(2)).switchConfigs(anyMap());
+    }
+}
@@ -0,0 +1,112 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import com.learnkafka.libraryeventsproducer.domain.Book;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEventType;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BookPartitionerUnitTest {
+    private static final String TOPIC = "library-events";
+
+    private final Node node = new Node(0, "localhost", 9092);
+
+    private Cluster cluster;
+
+    private BookPartitioner bookPartitioner;
+
+    @BeforeEach
+    public void setUp() {
+        List<PartitionInfo> partitions = IntStream.range(0, 3)
+                .mapToObj(partition -> new PartitionInfo(TOPIC, partition, node, new Node[]{node}, new Node[]{node}))
+                .collect(Collectors.toList());
+        cluster = new Cluster("cluster", Collections.singletonList(node), partitions, Collections.emptySet(), Collections.emptySet());
+
+        bookPartitioner = new BookPartitioner();
+        bookPartitioner.configure(Collections.emptyMap());
+    }
+
+    @Test
+    @DisplayName("Must route NEW and UPDATE events of the same book to the same partition.")
+    public void sameBookSamePartitionTest() {
+        for (int bookId = 0; bookId < 100; bookId++) {
+            LibraryEvent newEvent = libraryEvent(null, LibraryEventType.NEW, bookId);
+            LibraryEvent updateEvent = libraryEvent(bookId + 1000, LibraryEventType.UPDATE, bookId);
+
+            int newPartition = bookPartitioner.partition(TOPIC, null, null, newEvent, null, cluster);
+            int updatePartition = bookPartitioner.partition(TOPIC, updateEvent.getLibraryEventId(), null, updateEvent, null, cluster);
+
+            assertEquals(newPartition, updatePartition);
+            assertTrue(newPartition >= 0 && newPartition < 3);
+        }
+    }
+
+    @Test
+    @DisplayName("Must spread distinct books across every partition.")
+    public void spreadBooksTest() {
+        long partitionsUsed = IntStream.range(0, 100)
+                .map(bookId -> bookPartitioner.partition(TOPIC, null, null, libraryEvent(null, LibraryEventType.NEW, bookId), null, cluster))
+                .distinct()
+                .count();
+
+        assertEquals(3, partitionsUsed);
+    }
+
+    @Test
+    @DisplayName("Must use the configured key extractor.")
+    public void configuredKeyExtractorTest() {
+        bookPartitioner.configure(Map.of(BookPartitioner.KEY_EXTRACTOR_CONFIG, AuthorPartitionKeyExtractor.class.getName()));
+
+        LibraryEvent first = libraryEvent(null, LibraryEventType.NEW, 1);
+        LibraryEvent second = libraryEvent(null, LibraryEventType.NEW, 2);
+
+        assertEquals(
+                bookPartitioner.partition(TOPIC, null, null, first, null, cluster),
+                bookPartitioner.partition(TOPIC, null, null, second, null, cluster)
+        );
+    }
+
+    @Test
+    @DisplayName("Must fall back to the default partitioner whenever there is no partition key.")
+    public void fallbackTest() {
+        LibraryEvent libraryEvent = LibraryEvent.builder()
+                .libraryEventType(LibraryEventType.NEW)
+                .build();
+
+        int partition = bookPartitioner.partition(TOPIC, null, null, libraryEvent, null, cluster);
+
+        assertTrue(partition >= 0 && partition < 3);
+    }
+
+    public static class AuthorPartitionKeyExtractor implements LibraryEventPartitionKeyExtractor {
+        @Override
+        public Object extractPartitionKey(LibraryEvent libraryEvent) {
+            return libraryEvent.getBook().getBookAuthor();
+        }
+    }
+
+    private static LibraryEvent libraryEvent(Integer libraryEventId, LibraryEventType libraryEventType, int bookId) {
+        return LibraryEvent.builder()
+                .libraryEventId(libraryEventId)
+                .libraryEventType(libraryEventType)
+                .book(Book.builder()
+                        .bookId(bookId)
+                        .bookName("Kafka Using SpringBoot")
+                        .bookAuthor("Dilip")
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import com.learnkafka.libraryeventsproducer.domain.Book;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEventType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class LibraryEventCoalescerUnitTest {
+    @Mock
+    LibraryEventProducer libraryEventProducer;
+
+    @Spy
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    LibraryEventCoalescer libraryEventCoalescer;
+
+    @BeforeEach
+    public void setUp() {
+        libraryEventCoalescer.windowMs = 100;
+        libraryEventCoalescer.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        libraryEventCoalescer.destroy();
+    }
+
+    @Test
+    @DisplayName("Must send only the last update of a library event within the window.")
+    public void lastUpdateWinsTest() {
+        // Given
+        LibraryEvent first = libraryEvent(1, "Kafka Using SpringBoot");
+        LibraryEvent second = libraryEvent(1, "Kafka Using SpringBoot 2nd Edition");
+        LibraryEvent third = libraryEvent(1, "Kafka Using SpringBoot 3rd Edition");
+
+        // When
+        libraryEventCoalescer.submit(first);
+        libraryEventCoalescer.submit(second);
+        libraryEventCoalescer.submit(third);
+
+        // Then
+        verify(libraryEventProducer, timeout(2000))
+                .publishLibraryEvent(third);
+        verify(libraryEventProducer, times(1))
+                .publishLibraryEvent(isA(LibraryEvent.class));
+        assertEquals(2.0, meterRegistry.get("library.events.producer.coalescing.collapsed").counter().count());
+    }
+
+    @Test
+    @DisplayName("Must send updates of distinct library events independently.")
+    public void distinctKeysTest() {
+        // Given
+        LibraryEvent first = libraryEvent(1, "Kafka Using SpringBoot");
+        LibraryEvent second = libraryEvent(2, "Kafka Streams");
+
+        // When
+        libraryEventCoalescer.submit(first);
+        libraryEventCoalescer.submit(second);
+
+        // Then
+        verify(libraryEventProducer, timeout(2000))
+                .publishLibraryEvent(first);
+        verify(libraryEventProducer, timeout(2000))
+                .publishLibraryEvent(second);
+        assertEquals(0.0, meterRegistry.get("library.events.producer.coalescing.collapsed").counter().count());
+    }
+
+    @Test
+    @DisplayName("Must flush pending updates on shutdown.")
+    public void flushOnShutdownTest() {
+        // Given
+        libraryEventCoalescer.windowMs = 60_000;
+        LibraryEvent libraryEvent = libraryEvent(1, "Kafka Using SpringBoot");
+        libraryEventCoalescer.submit(libraryEvent);
+
+        // When
+        libraryEventCoalescer.destroy();
+
+        // Then
+        verify(libraryEventProducer)
+                .publishLibraryEvent(libraryEvent);
+    }
+
+    private static LibraryEvent libraryEvent(int libraryEventId, String bookName) {
+        return LibraryEvent.builder()
+                .libraryEventId(libraryEventId)
+                .libraryEventType(LibraryEventType.UPDATE)
+                .book(Book.builder()
+                        .bookId(456)
+                        .bookName(bookName)
+                        .bookAuthor("Dilip")
+                        .build())
+                .build();
+    }
+}
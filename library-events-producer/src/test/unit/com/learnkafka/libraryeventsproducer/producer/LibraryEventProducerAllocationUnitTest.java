@@ -0,0 +1,121 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import com.learnkafka.logging.SamplingTurboFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.support.SendResult;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the bytes allocated per call on the send hot path with the thread allocation counter,
+ * after a warm-up so the comparison runs against JIT-compiled code.
+ */
+public class LibraryEventProducerAllocationUnitTest {
+    private static final int ITERATIONS = 200_000;
+
+    private static final int ROUNDS = 3;
+
+    // Results escape through this field so the allocations cannot be optimised away
+    private static volatile Object sink;
+
+    private final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+    private final SamplingTurboFilter samplingTurboFilter = new SamplingTurboFilter();
+
+    private final LibraryEventSendCallback libraryEventSendCallback = new LibraryEventSendCallback(new LibraryEventProducerMetrics(new SimpleMeterRegistry()), 1000);
+
+    private Level rootLevel;
+
+    @BeforeEach
+    public void setUp() {
+        Logger rootLogger = loggerContext.getLogger(Logger.ROOT_LOGGER_NAME);
+        rootLevel = rootLogger.getLevel();
+        rootLogger.setLevel(Level.INFO);
+
+        samplingTurboFilter.setSampleRate(Integer.MAX_VALUE);
+        samplingTurboFilter.start();
+        loggerContext.addTurboFilter(samplingTurboFilter);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        loggerContext.getTurboFilterList().remove(samplingTurboFilter);
+        loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(rootLevel);
+    }
+
+    @Test
+    @DisplayName("Must allocate less per record with the shared headers than with per-record headers.")
+    public void buildProducerRecordAllocationTest() {
+        // Given
+        LibraryEvent libraryEvent = LibraryEvent.builder()
+                .libraryEventId(1)
+                .build();
+
+        // When
+        long sharedHeadersBytes = bytesPerCall(key -> sink = LibraryEventProducer.buildProducerRecord(key, libraryEvent, "library-events"));
+        long perRecordHeadersBytes = bytesPerCall(key -> sink = new ProducerRecord<>(
+                "library-events",
+                null,
+                key,
+                libraryEvent,
+                Collections.singletonList(new RecordHeader("event-source", "scanner".getBytes()))
+        ));
+
+        // Then
+        assertTrue(
+                sharedHeadersBytes < perRecordHeadersBytes,
+                "shared headers allocated " + sharedHeadersBytes + " bytes per record, per-record headers " + perRecordHeadersBytes
+        );
+    }
+
+    @Test
+    @DisplayName("Must keep the success callback nearly allocation free when the sampled send log is suppressed.")
+    public void onSuccessAllocationTest() {
+        // Given
+        SendResult<Integer, LibraryEvent> sendResult = new SendResult<>(
+                new ProducerRecord<>("library-events", 1, LibraryEvent.builder().libraryEventId(1).build()),
+                new RecordMetadata(new TopicPartition("library-events", 1), 100_000, 1, System.currentTimeMillis(), 1L, 1, 2)
+        );
+
+        // When
+        long onSuccessBytes = bytesPerCall(key -> libraryEventSendCallback.onSuccess(sendResult));
+
+        // Then
+        assertTrue(onSuccessBytes <= 96, "success callback allocated " + onSuccessBytes + " bytes per acknowledgement");
+    }
+
+    private long bytesPerCall(IntConsumer call) {
+        long threadId = Thread.currentThread().getId();
+        long bytesPerCall = Long.MAX_VALUE;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = threadMXBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < ITERATIONS; i++) {
+                call.accept(i);
+            }
+            bytesPerCall = Math.min(bytesPerCall, (threadMXBean.getThreadAllocatedBytes(threadId) - start) / ITERATIONS);
+        }
+
+        return bytesPerCall;
+    }
+}
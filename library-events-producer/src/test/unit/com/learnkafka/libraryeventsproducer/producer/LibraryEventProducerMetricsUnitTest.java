@@ -0,0 +1,80 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import com.learnkafka.libraryeventsproducer.serialization.LibraryEventSerializer;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.kafka.support.SendResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LibraryEventProducerMetricsUnitTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final LibraryEventSendCallback libraryEventSendCallback = new LibraryEventSendCallback(new LibraryEventProducerMetrics(meterRegistry), 1000);
+
+    @Test
+    @DisplayName("Must record the acknowledgement latency per partition and count successful sends.")
+    public void recordSuccessTest() {
+        // Given
+        LibraryEvent libraryEvent = LibraryEvent.builder()
+                .libraryEventId(1)
+                .build();
+        RecordMetadata recordMetadata = new RecordMetadata(new TopicPartition("library-events", 2), 1, 1, System.currentTimeMillis() - 25, 1L, 1, 2);
+
+        // When
+        libraryEventSendCallback.onSuccess(new SendResult<>(new ProducerRecord<>("library-events", 1, libraryEvent), recordMetadata));
+
+        // Then
+        assertEquals(1, meterRegistry.get(LibraryEventProducerMetrics.ACK_LATENCY).tag("partition", "2").timer().count());
+        assertEquals(1.0, meterRegistry.get(LibraryEventProducerMetrics.SENDS).tag("outcome", "success").counter().count());
+    }
+
+    @Test
+    @DisplayName("Must count failed sends by root exception type.")
+    public void recordFailureTest() {
+        // Given
+        KafkaProducerException kafkaProducerException = new KafkaProducerException(
+                new ProducerRecord<>("library-events", 1, LibraryEvent.builder().libraryEventId(1).build()),
+                "Failed to send",
+                new TimeoutException("Expiring 1 record(s)")
+        );
+
+        // When
+        libraryEventSendCallback.onFailure(kafkaProducerException);
+
+        // Then
+        assertEquals(1.0, meterRegistry.get(LibraryEventProducerMetrics.SENDS)
+                .tag("outcome", "failure")
+                .tag("exception", "TimeoutException")
+                .counter()
+                .count());
+    }
+
+    @Test
+    @DisplayName("Must time library event serialization per wire format.")
+    public void serializationTimerTest() {
+        // Given
+        // the serializer is created by the Kafka client, so its timer stays on the global registry
+        SimpleMeterRegistry globalRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(globalRegistry);
+        LibraryEventSerializer libraryEventSerializer = new LibraryEventSerializer();
+
+        try {
+            // When
+            libraryEventSerializer.serialize("library-events", LibraryEvent.builder().libraryEventId(1).build());
+
+            // Then
+            assertEquals(1, globalRegistry.get(LibraryEventSerializer.SERIALIZATION_TIMER).tag("format", "json").timer().count());
+        } finally {
+            Metrics.removeRegistry(globalRegistry);
+        }
+    }
+}
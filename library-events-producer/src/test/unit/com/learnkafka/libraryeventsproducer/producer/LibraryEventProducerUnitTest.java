@@ -1,9 +1,10 @@
 package com.learnkafka.libraryeventsproducer.producer;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.learnkafka.libraryeventsproducer.domain.Book;
 import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import com.learnkafka.libraryeventsproducer.spool.LibraryEventSpool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.TopicPartition;
@@ -14,24 +15,51 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaProducerException;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.util.concurrent.SettableListenableFuture;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class LibraryEventProducerUnitTest {
     @Mock
-    KafkaTemplate<Integer, String> kafkaTemplate;
+    KafkaTemplate<Integer, LibraryEvent> kafkaTemplate;
+
+    @Mock
+    KafkaTemplate<Integer, LibraryEvent> transactionalKafkaTemplate;
+
+    @Mock
+    KafkaOperations<Integer, LibraryEvent> kafkaOperations;
+
+    @Mock
+    LibraryEventSpool libraryEventSpool;
+
+    @Mock
+    ProducerAdmissionControl producerAdmissionControl;
 
     @Spy
-    ObjectMapper objectMapper = new ObjectMapper();
+    LibraryEventProducerMetrics libraryEventProducerMetrics = new LibraryEventProducerMetrics(new SimpleMeterRegistry());
+
+    @Spy
+    LibraryEventSendCallback libraryEventSendCallback = new LibraryEventSendCallback(libraryEventProducerMetrics, 1000);
 
     @InjectMocks
     LibraryEventProducer libraryEventProducer;
@@ -58,7 +86,7 @@ public class LibraryEventProducerUnitTest {
                 .thenReturn(future);
 
         // When
-        org.junit.jupiter.api.Assertions.assertThrows(
+        assertThrows(
                 Exception.class,
                 () -> libraryEventProducer.sendLibraryEvent(libraryEvent)
                         .get()
@@ -82,8 +110,7 @@ public class LibraryEventProducerUnitTest {
 
         SettableListenableFuture future = new SettableListenableFuture();
 
-        String record = objectMapper.writeValueAsString(libraryEvent);
-        ProducerRecord<Integer, String> producerRecord = new ProducerRecord<>("library-events", libraryEvent.getLibraryEventId(), record);
+        ProducerRecord<Integer, LibraryEvent> producerRecord = new ProducerRecord<>("library-events", libraryEvent.getLibraryEventId(), libraryEvent);
         RecordMetadata recordMetaData = new RecordMetadata(
                 new TopicPartition("library-events", 1),
                 1,
@@ -94,17 +121,162 @@ public class LibraryEventProducerUnitTest {
                 2
         );
 
-        SendResult<Integer, String> sendResult = new SendResult<>(producerRecord, recordMetaData);
+        SendResult<Integer, LibraryEvent> sendResult = new SendResult<>(producerRecord, recordMetaData);
         future.set(sendResult);
 
         when(kafkaTemplate.send(isA(ProducerRecord.class)))
                 .thenReturn(future);
 
         // When
-        ListenableFuture<SendResult<Integer, String>> listenableFuture = libraryEventProducer.sendLibraryEvent(libraryEvent);
+        ListenableFuture<SendResult<Integer, LibraryEvent>> listenableFuture = libraryEventProducer.sendLibraryEvent(libraryEvent);
 
         // Then
-        SendResult<Integer, String> sendResult1 = listenableFuture.get();
+        SendResult<Integer, LibraryEvent> sendResult1 = listenableFuture.get();
         assertEquals(1, sendResult1.getRecordMetadata().partition());
     }
+
+    @Test
+    @DisplayName("Must send library events in a single transaction.")
+    public void sendLibraryEventsTest() {
+        // Given
+        Book book = Book.builder()
+                .bookId(123)
+                .bookAuthor("Dilip")
+                .bookName("Kafka Using SpringBoot")
+                .build();
+
+        List<LibraryEvent> libraryEvents = Arrays.asList(
+                LibraryEvent.builder().libraryEventId(null).book(book).build(),
+                LibraryEvent.builder().libraryEventId(1).book(book).build()
+        );
+
+        when(kafkaOperations.send(isA(ProducerRecord.class)))
+                .thenAnswer(invocation -> {
+                    ProducerRecord<Integer, LibraryEvent> producerRecord = invocation.getArgument(0);
+                    SettableListenableFuture<SendResult<Integer, LibraryEvent>> future = new SettableListenableFuture<>();
+                    future.set(new SendResult<>(producerRecord, new RecordMetadata(new TopicPartition("library-events", 1), 1, 1, 342, System.currentTimeMillis(), 1, 2)));
+
+                    return future;
+                });
+        when(transactionalKafkaTemplate.executeInTransaction(any()))
+                .thenAnswer(invocation -> invocation.<KafkaOperations.OperationsCallback<Integer, LibraryEvent, ?>>getArgument(0).doInOperations(kafkaOperations));
+        libraryEventProducer.transactionExecutor = Runnable::run;
+
+        // When
+        CompletableFuture<List<SendResult<Integer, LibraryEvent>>> future = libraryEventProducer.sendLibraryEvents(libraryEvents);
+
+        // Then
+        assertEquals(2, future.join().size());
+        verify(kafkaOperations, times(2))
+                .send(isA(ProducerRecord.class));
+    }
+
+    @Test
+    @DisplayName("Must fail the batch future whenever the transaction aborts.")
+    public void sendLibraryEventsFailureTest() {
+        // Given
+        Book book = Book.builder()
+                .bookId(123)
+                .bookAuthor("Dilip")
+                .bookName("Kafka Using SpringBoot")
+                .build();
+
+        when(transactionalKafkaTemplate.executeInTransaction(any()))
+                .thenThrow(new RuntimeException("Transaction aborted"));
+        libraryEventProducer.transactionExecutor = Runnable::run;
+
+        // When
+        CompletableFuture<List<SendResult<Integer, LibraryEvent>>> future = libraryEventProducer.sendLibraryEvents(
+                Arrays.asList(LibraryEvent.builder().book(book).build())
+        );
+
+        // Then
+        assertThrows(Exception.class, future::join);
+    }
+
+    @Test
+    @DisplayName("Must share the static record headers between producer records.")
+    public void buildProducerRecordSharesHeadersTest() {
+        // Given
+        LibraryEvent libraryEvent = LibraryEvent.builder()
+                .libraryEventId(1)
+                .build();
+
+        // When
+        ProducerRecord<Integer, LibraryEvent> first = LibraryEventProducer.buildProducerRecord(1, libraryEvent, "library-events");
+        ProducerRecord<Integer, LibraryEvent> second = LibraryEventProducer.buildProducerRecord(2, libraryEvent, "library-events");
+
+        // Then
+        assertSame(first.headers().lastHeader("event-source"), second.headers().lastHeader("event-source"));
+        assertEquals("scanner", new String(first.headers().lastHeader("event-source").value(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Must spool library events while earlier ones are still waiting for replay.")
+    public void publishLibraryEventSpooledTest() {
+        // Given
+        LibraryEvent libraryEvent = LibraryEvent.builder()
+                .libraryEventId(1)
+                .build();
+
+        when(libraryEventSpool.hasPending())
+                .thenReturn(true);
+        when(libraryEventSpool.append(libraryEvent))
+                .thenReturn(true);
+
+        // When
+        libraryEventProducer.publishLibraryEvent(libraryEvent);
+
+        // Then
+        verify(libraryEventSpool)
+                .append(libraryEvent);
+        verify(kafkaTemplate, never())
+                .send(isA(ProducerRecord.class));
+    }
+
+    @Test
+    @DisplayName("Must spool library events whose send fails.")
+    public void publishLibraryEventSendFailureTest() {
+        // Given
+        LibraryEvent libraryEvent = LibraryEvent.builder()
+                .libraryEventId(1)
+                .build();
+
+        when(kafkaTemplate.send(isA(ProducerRecord.class)))
+                .thenAnswer(invocation -> {
+                    SettableListenableFuture<SendResult<Integer, LibraryEvent>> future = new SettableListenableFuture<>();
+                    future.setException(new KafkaProducerException(invocation.getArgument(0), "Failed to send", new RuntimeException("Broker unavailable")));
+
+                    return future;
+                });
+        when(libraryEventSpool.appendAsync(libraryEvent))
+                .thenReturn(CompletableFuture.completedFuture(true));
+        libraryEventProducer.init();
+
+        // When
+        libraryEventProducer.publishLibraryEvent(libraryEvent);
+
+        // Then
+        verify(libraryEventSpool)
+                .appendAsync(libraryEvent);
+        verify(libraryEventSpool, never())
+                .append(libraryEvent);
+    }
+
+    @Test
+    @DisplayName("Must reject library events whenever the spool is full.")
+    public void publishLibraryEventSpoolFullTest() {
+        // Given
+        LibraryEvent libraryEvent = LibraryEvent.builder()
+                .libraryEventId(1)
+                .build();
+
+        when(producerAdmissionControl.isOverloaded())
+                .thenReturn(true);
+        when(libraryEventSpool.append(libraryEvent))
+                .thenReturn(false);
+
+        // When / Then
+        assertThrows(ProducerOverloadedException.class, () -> libraryEventProducer.publishLibraryEvent(libraryEvent));
+    }
 }
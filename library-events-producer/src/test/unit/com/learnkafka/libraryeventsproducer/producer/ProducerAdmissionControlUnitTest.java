@@ -0,0 +1,100 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+public class ProducerAdmissionControlUnitTest {
+    @Mock
+    KafkaTemplate<Integer, LibraryEvent> kafkaTemplate;
+
+    @Spy
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    ProducerAdmissionControl producerAdmissionControl;
+
+    @BeforeEach
+    public void setUp() {
+        producerAdmissionControl.enabled = true;
+        producerAdmissionControl.minBufferAvailableRatio = 0.1;
+        producerAdmissionControl.maxRecordQueueTimeMs = 1000;
+        producerAdmissionControl.maxRequestsInFlight = 50;
+        producerAdmissionControl.retryAfterSeconds = 2;
+        producerAdmissionControl.init();
+    }
+
+    @Test
+    @DisplayName("Must admit requests while the producer has capacity.")
+    public void admitTest() {
+        // When
+        producerAdmissionControl.onSample(30_000_000, 33_554_432, 5, 1);
+
+        // Then
+        assertFalse(producerAdmissionControl.isOverloaded());
+        assertDoesNotThrow(producerAdmissionControl::checkAdmission);
+    }
+
+    @Test
+    @DisplayName("Must reject requests whenever the producer buffer is nearly exhausted.")
+    public void bufferExhaustedTest() {
+        // When
+        producerAdmissionControl.onSample(1_000_000, 33_554_432, 5, 1);
+
+        // Then
+        ProducerOverloadedException e = assertThrows(ProducerOverloadedException.class, producerAdmissionControl::checkAdmission);
+        assertEquals(2, e.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("library.events.producer.admission.rejected").counter().count());
+    }
+
+    @Test
+    @DisplayName("Must reject requests whenever records queue up or too many requests are in flight, and recover afterwards.")
+    public void queueTimeAndInFlightTest() {
+        // When
+        producerAdmissionControl.onSample(30_000_000, 33_554_432, 2000, 1);
+
+        // Then
+        assertTrue(producerAdmissionControl.isOverloaded());
+
+        // When
+        producerAdmissionControl.onSample(30_000_000, 33_554_432, 5, 80);
+
+        // Then
+        assertTrue(producerAdmissionControl.isOverloaded());
+
+        // When
+        producerAdmissionControl.onSample(30_000_000, 33_554_432, 5, 1);
+
+        // Then
+        assertFalse(producerAdmissionControl.isOverloaded());
+    }
+
+    @Test
+    @DisplayName("Must admit every request whenever admission control is disabled.")
+    public void disabledTest() {
+        // Given
+        producerAdmissionControl.enabled = false;
+
+        // When
+        producerAdmissionControl.onSample(0, 33_554_432, 5, 1);
+
+        // Then
+        assertDoesNotThrow(producerAdmissionControl::checkAdmission);
+    }
+}
@@ -0,0 +1,58 @@
+package com.learnkafka.libraryeventsproducer.producer;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class SwitchableProducerFactoryUnitTest {
+    private DefaultKafkaProducerFactory<Integer, String> initial;
+
+    private SwitchableProducerFactory<Integer, String> switchableProducerFactory;
+
+    @BeforeEach
+    public void setUp() {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        configs.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, IntegerSerializer.class);
+        configs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configs.put(ProducerConfig.LINGER_MS_CONFIG, 0);
+
+        initial = spy(new DefaultKafkaProducerFactory<>(configs));
+        switchableProducerFactory = new SwitchableProducerFactory<>(initial, Duration.ofMillis(200));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        switchableProducerFactory.destroy();
+    }
+
+    @Test
+    @DisplayName("Must hand new sends to the switched configuration and close the previous factory only after the delay.")
+    public void switchConfigsTest() {
+        // When
+        switchableProducerFactory.switchConfigs(Collections.singletonMap(ProducerConfig.LINGER_MS_CONFIG, 20));
+
+        // Then
+        assertEquals(20, switchableProducerFactory.getConfigurationProperties().get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals("localhost:9092", switchableProducerFactory.getConfigurationProperties().get(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG));
+        verify(initial, never()).reset();
+        verify(initial, never()).destroy();
+        verify(initial, timeout(2000)).destroy();
+    }
+}
@@ -0,0 +1,101 @@
+package com.learnkafka.libraryeventsproducer.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learnkafka.libraryeventsproducer.domain.Book;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEventType;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LibraryEventSerializerUnitTest {
+    private final LibraryEventSerializer libraryEventSerializer = new LibraryEventSerializer();
+
+    @Test
+    @DisplayName("Must serialize library event straight to UTF-8 JSON bytes.")
+    public void serializeTest() {
+        // Given
+        Book book = Book.builder()
+                .bookId(123)
+                .bookAuthor("Dilip")
+                .bookName("Kafka Using SpringBoot")
+                .build();
+
+        LibraryEvent libraryEvent = LibraryEvent.builder()
+                .libraryEventId(null)
+                .libraryEventType(LibraryEventType.NEW)
+                .book(book)
+                .build();
+
+        // When
+        byte[] bytes = libraryEventSerializer.serialize("library-events", libraryEvent);
+
+        // Then
+        String expectedValue = "{\"libraryEventId\":null,\"libraryEventType\":\"NEW\",\"book\":" +
+                "{\"bookId\":123,\"bookName\":\"Kafka Using SpringBoot\",\"bookAuthor\":\"Dilip\"}}";
+        assertEquals(expectedValue, new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Must serialize null library event as null.")
+    public void serializeNullTest() {
+        assertNull(libraryEventSerializer.serialize("library-events", null));
+    }
+
+    @Test
+    @DisplayName("Must mark binary payloads with the event-format header and shrink them.")
+    public void serializeBinaryTest() {
+        // Given
+        LibraryEvent libraryEvent = LibraryEvent.builder()
+                .libraryEventId(1)
+                .libraryEventType(LibraryEventType.UPDATE)
+                .book(Book.builder()
+                        .bookId(123)
+                        .bookAuthor("Dilip")
+                        .bookName("Kafka Using SpringBoot")
+                        .build())
+                .build();
+
+        Headers headers = new RecordHeaders();
+        LibraryEventSerializer binarySerializer = new LibraryEventSerializer(new ObjectMapper(), LibraryEventWireFormat.BINARY_V1);
+
+        // When
+        byte[] binary = binarySerializer.serialize("library-events", headers, libraryEvent);
+        byte[] json = libraryEventSerializer.serialize("library-events", new RecordHeaders(), libraryEvent);
+
+        // Then
+        Header header = headers.lastHeader(LibraryEventWireFormat.HEADER);
+        assertArrayEquals(LibraryEventWireFormat.BINARY_V1.getHeaderValue(), header.value());
+        assertEquals(libraryEvent, LibraryEventBinaryCodec.decode(binary));
+        assertEquals(40, binary.length);
+        assertEquals(127, json.length);
+        assertTrue(binary.length * 2 < json.length);
+    }
+
+    @Test
+    @DisplayName("Must round trip absent fields through the binary codec.")
+    public void binaryCodecAbsentFieldsTest() {
+        // Given
+        LibraryEvent libraryEvent = LibraryEvent.builder()
+                .libraryEventType(LibraryEventType.NEW)
+                .book(Book.builder()
+                        .bookId(123)
+                        .build())
+                .build();
+
+        // When
+        LibraryEvent decoded = LibraryEventBinaryCodec.decode(LibraryEventBinaryCodec.encode(libraryEvent));
+
+        // Then
+        assertEquals(libraryEvent, decoded);
+    }
+}
@@ -0,0 +1,131 @@
+package com.learnkafka.libraryeventsproducer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEventBatchItemStatus;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEventBatchResult;
+import com.learnkafka.libraryeventsproducer.producer.LibraryEventProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class LibraryEventBatchServiceUnitTest {
+    @Mock
+    LibraryEventProducer libraryEventProducer;
+
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @InjectMocks
+    LibraryEventBatchService libraryEventBatchService;
+
+    @Test
+    @DisplayName("Must send every valid element of a JSON array batch.")
+    public void sendLibraryEventBatchJsonArrayTest() throws Exception {
+        // Given
+        String body = "[" +
+                "{\"libraryEventId\":null,\"book\":{\"bookId\":1,\"bookName\":\"Kafka Using SpringBoot\",\"bookAuthor\":\"Dilip\"}}," +
+                "{\"libraryEventId\":null,\"book\":{\"bookId\":null,\"bookName\":\"Kafka Using SpringBoot\",\"bookAuthor\":\"Dilip\"}}," +
+                "{\"libraryEventId\":null,\"book\":{\"bookId\":3,\"bookName\":\"Kafka Streams\",\"bookAuthor\":\"Dilip\"}}" +
+                "]";
+
+        when(libraryEventProducer.sendLibraryEvent(isA(LibraryEvent.class)))
+                .thenAnswer(invocation -> acknowledged(invocation.getArgument(0)));
+
+        // When
+        LibraryEventBatchResult libraryEventBatchResult = libraryEventBatchService.sendLibraryEventBatch(toInputStream(body));
+
+        // Then
+        assertEquals(3, libraryEventBatchResult.getTotal());
+        assertEquals(2, libraryEventBatchResult.getAccepted());
+        assertEquals(1, libraryEventBatchResult.getInvalid());
+        assertFalse(libraryEventBatchResult.isFullyAccepted());
+        assertEquals(LibraryEventBatchItemStatus.INVALID, libraryEventBatchResult.getItems().get(1).getStatus());
+        assertEquals("book.bookId - must not be null", libraryEventBatchResult.getItems().get(1).getError());
+
+        verify(libraryEventProducer, times(2))
+                .sendLibraryEvent(isA(LibraryEvent.class));
+    }
+
+    @Test
+    @DisplayName("Must send every element of an NDJSON batch and report broker failures per item.")
+    public void sendLibraryEventBatchNdjsonTest() throws Exception {
+        // Given
+        String body = "{\"libraryEventId\":null,\"book\":{\"bookId\":1,\"bookName\":\"Kafka Using SpringBoot\",\"bookAuthor\":\"Dilip\"}}\n" +
+                "{\"libraryEventId\":7,\"book\":{\"bookId\":2,\"bookName\":\"Kafka Streams\",\"bookAuthor\":\"Dilip\"}}\n";
+
+        when(libraryEventProducer.sendLibraryEvent(isA(LibraryEvent.class)))
+                .thenAnswer(invocation -> {
+                    LibraryEvent libraryEvent = invocation.getArgument(0);
+                    if (libraryEvent.getLibraryEventId() == null) {
+                        return acknowledged(libraryEvent);
+                    }
+
+                    SettableListenableFuture<SendResult<Integer, LibraryEvent>> future = new SettableListenableFuture<>();
+                    future.setException(new RuntimeException("Exception calling Kafka"));
+
+                    return future;
+                });
+
+        // When
+        LibraryEventBatchResult libraryEventBatchResult = libraryEventBatchService.sendLibraryEventBatch(toInputStream(body));
+
+        // Then
+        assertEquals(2, libraryEventBatchResult.getTotal());
+        assertEquals(1, libraryEventBatchResult.getAccepted());
+        assertEquals(1, libraryEventBatchResult.getFailed());
+        assertEquals(LibraryEventBatchItemStatus.FAILED, libraryEventBatchResult.getItems().get(1).getStatus());
+        assertEquals("Exception calling Kafka", libraryEventBatchResult.getItems().get(1).getError());
+    }
+
+    @Test
+    @DisplayName("Must accept an empty batch.")
+    public void sendEmptyLibraryEventBatchTest() throws Exception {
+        // When
+        LibraryEventBatchResult libraryEventBatchResult = libraryEventBatchService.sendLibraryEventBatch(toInputStream("[]"));
+
+        // Then
+        assertEquals(0, libraryEventBatchResult.getTotal());
+        assertTrue(libraryEventBatchResult.isFullyAccepted());
+    }
+
+    private static SettableListenableFuture<SendResult<Integer, LibraryEvent>> acknowledged(LibraryEvent libraryEvent) {
+        ProducerRecord<Integer, LibraryEvent> producerRecord = new ProducerRecord<>("library-events", libraryEvent.getLibraryEventId(), libraryEvent);
+        RecordMetadata recordMetadata = new RecordMetadata(new TopicPartition("library-events", 1), 1, 1, System.currentTimeMillis(), 1L, 1, 2);
+
+        SettableListenableFuture<SendResult<Integer, LibraryEvent>> future = new SettableListenableFuture<>();
+        future.set(new SendResult<>(producerRecord, recordMetadata));
+
+        return future;
+    }
+
+    private static ByteArrayInputStream toInputStream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,167 @@
+package com.learnkafka.libraryeventsproducer.spool;
+
+import com.learnkafka.libraryeventsproducer.domain.Book;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEvent;
+import com.learnkafka.libraryeventsproducer.domain.LibraryEventType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LibraryEventSpoolUnitTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Must replay spooled library events in append order.")
+    public void appendPeekCommitTest() throws Exception {
+        try (LibraryEventSpool libraryEventSpool = new LibraryEventSpool(directory, 4096, SpoolFsyncPolicy.ALWAYS)) {
+            // Given
+            libraryEventSpool.append(libraryEvent(1));
+            libraryEventSpool.append(libraryEvent(2));
+            libraryEventSpool.append(libraryEvent(3));
+
+            // When
+            List<SpooledLibraryEvent> spooledLibraryEvents = libraryEventSpool.peek(2);
+
+            // Then
+            assertEquals(2, spooledLibraryEvents.size());
+            assertEquals(libraryEvent(1), spooledLibraryEvents.get(0).getLibraryEvent());
+            assertEquals(libraryEvent(2), spooledLibraryEvents.get(1).getLibraryEvent());
+
+            // When
+            libraryEventSpool.commit(spooledLibraryEvents.get(0));
+            libraryEventSpool.commit(spooledLibraryEvents.get(1));
+
+            // Then
+            assertEquals(1, libraryEventSpool.getPendingRecords());
+            assertEquals(libraryEvent(3), libraryEventSpool.peek(10).get(0).getLibraryEvent());
+        }
+    }
+
+    @Test
+    @DisplayName("Must append library events asynchronously and flush queued appends on close.")
+    public void appendAsyncTest() throws Exception {
+        // Given
+        LibraryEventSpool libraryEventSpool = new LibraryEventSpool(directory, 4096, SpoolFsyncPolicy.ALWAYS);
+
+        // When
+        boolean appended = libraryEventSpool.appendAsync(libraryEvent(1)).get(5, TimeUnit.SECONDS);
+        libraryEventSpool.appendAsync(libraryEvent(2));
+        libraryEventSpool.close();
+
+        // Then
+        assertTrue(appended);
+        try (LibraryEventSpool reopenedSpool = new LibraryEventSpool(directory, 4096, SpoolFsyncPolicy.ALWAYS)) {
+            assertEquals(2, reopenedSpool.getPendingRecords());
+        }
+    }
+
+    @Test
+    @DisplayName("Must reject commits out of order.")
+    public void commitOutOfOrderTest() throws Exception {
+        try (LibraryEventSpool libraryEventSpool = new LibraryEventSpool(directory, 4096, SpoolFsyncPolicy.NONE)) {
+            // Given
+            libraryEventSpool.append(libraryEvent(1));
+            libraryEventSpool.append(libraryEvent(2));
+
+            // When
+            SpooledLibraryEvent second = libraryEventSpool.peek(2).get(1);
+
+            // Then
+            assertThrows(IllegalStateException.class, () -> libraryEventSpool.commit(second));
+        }
+    }
+
+    @Test
+    @DisplayName("Must recover pending library events and the replay checkpoint after a restart.")
+    public void recoverTest() throws Exception {
+        // Given
+        try (LibraryEventSpool libraryEventSpool = new LibraryEventSpool(directory, 4096, SpoolFsyncPolicy.ALWAYS)) {
+            libraryEventSpool.append(libraryEvent(1));
+            libraryEventSpool.append(libraryEvent(2));
+            libraryEventSpool.append(libraryEvent(3));
+            libraryEventSpool.commit(libraryEventSpool.peek(1).get(0));
+        }
+
+        // When
+        try (LibraryEventSpool libraryEventSpool = new LibraryEventSpool(directory, 4096, SpoolFsyncPolicy.ALWAYS)) {
+            // Then
+            assertEquals(2, libraryEventSpool.getPendingRecords());
+
+            List<SpooledLibraryEvent> spooledLibraryEvents = libraryEventSpool.peek(10);
+            assertEquals(libraryEvent(2), spooledLibraryEvents.get(0).getLibraryEvent());
+            assertEquals(libraryEvent(3), spooledLibraryEvents.get(1).getLibraryEvent());
+        }
+    }
+
+    @Test
+    @DisplayName("Must refuse library events once the spool is full and accept them again after replay.")
+    public void boundedSizeTest() throws Exception {
+        try (LibraryEventSpool libraryEventSpool = new LibraryEventSpool(directory, 256, SpoolFsyncPolicy.NONE)) {
+            // Given
+            int appended = 0;
+            while (libraryEventSpool.append(libraryEvent(appended))) {
+                appended++;
+            }
+
+            // Then
+            assertTrue(appended > 0);
+            assertFalse(libraryEventSpool.append(libraryEvent(appended)));
+
+            // When
+            for (SpooledLibraryEvent spooledLibraryEvent : libraryEventSpool.peek(appended)) {
+                libraryEventSpool.commit(spooledLibraryEvent);
+            }
+
+            // Then
+            assertFalse(libraryEventSpool.hasPending());
+            assertTrue(libraryEventSpool.append(libraryEvent(appended)));
+        }
+    }
+
+    @Test
+    @DisplayName("Must keep peeked positions valid across compaction.")
+    public void compactionTest() throws Exception {
+        try (LibraryEventSpool libraryEventSpool = new LibraryEventSpool(directory, 512, SpoolFsyncPolicy.NONE)) {
+            // Given
+            int appended = 0;
+            while (libraryEventSpool.append(libraryEvent(appended))) {
+                appended++;
+            }
+
+            // When
+            List<SpooledLibraryEvent> spooledLibraryEvents = libraryEventSpool.peek(appended - 1);
+            for (SpooledLibraryEvent spooledLibraryEvent : spooledLibraryEvents) {
+                libraryEventSpool.commit(spooledLibraryEvent);
+            }
+
+            // Then
+            assertEquals(1, libraryEventSpool.getPendingRecords());
+            assertTrue(libraryEventSpool.append(libraryEvent(appended)));
+            List<SpooledLibraryEvent> remaining = libraryEventSpool.peek(10);
+            assertEquals(libraryEvent(appended - 1), remaining.get(0).getLibraryEvent());
+            assertEquals(libraryEvent(appended), remaining.get(1).getLibraryEvent());
+        }
+    }
+
+    private static LibraryEvent libraryEvent(int libraryEventId) {
+        return LibraryEvent.builder()
+                .libraryEventId(libraryEventId)
+                .libraryEventType(LibraryEventType.UPDATE)
+                .book(Book.builder()
+                        .bookId(libraryEventId)
+                        .bookName("Kafka Using SpringBoot")
+                        .bookAuthor("Dilip")
+                        .build())
+                .build();
+    }
+}